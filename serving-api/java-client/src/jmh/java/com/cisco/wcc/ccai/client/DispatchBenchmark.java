@@ -0,0 +1,202 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message overhead of a streamingInsightServing call through an in-process channel:
+ * deserialization, executor hand-off and observer callbacks, with full parsing or with
+ * the header-only marshaller dropping interim results before they are parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    /**
+     * Response marshaller that always parses from bytes. The default protobuf marshaller hands the
+     * server's message object straight to the client over an in-process transport, which would
+     * leave deserialization out of the measurement.
+     */
+    private static final MethodDescriptor.Marshaller<StreamingInsightServingResponse> PARSING_MARSHALLER =
+        new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(StreamingInsightServingResponse value) {
+                return value.toByteString().newInput();
+            }
+
+            @Override
+            public StreamingInsightServingResponse parse(InputStream stream) {
+                try {
+                    return StreamingInsightServingResponse.parseFrom(stream);
+                } catch (IOException e) {
+                    throw Status.INTERNAL.withCause(e).asRuntimeException();
+                }
+            }
+        };
+
+    private static final MethodDescriptor<StreamingInsightServingRequest, StreamingInsightServingResponse> PARSING_METHOD =
+        AiInsightGrpc.getStreamingInsightServingMethod().toBuilder(
+            ProtoUtils.marshaller(StreamingInsightServingRequest.getDefaultInstance()),
+            PARSING_MARSHALLER).build();
+
+    @Param({"DIRECT", "POOL"})
+    public String executor;
+
+    @Param({"FULL_PARSE", "LAZY_FINAL_ONLY"})
+    public String path;
+
+    private Server server;
+    private ManagedChannel channel;
+    private ExecutorService pool;
+    private StreamingInsightServingRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<StreamingInsightServingResponse> payloads = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            // Three interims per final, like a typical transcript stream
+            InsightPayloads.Kind kind = i % 4 == 3 ? InsightPayloads.Kind.FINAL_TRANSCRIPT : InsightPayloads.Kind.INTERIM_TRANSCRIPT;
+            payloads.add(InsightPayloads.create(kind, "bench-conversation", i));
+        }
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new AiInsightGrpc.AiInsightImplBase() {
+                @Override
+                public void streamingInsightServing(StreamingInsightServingRequest request,
+                                                    StreamObserver<StreamingInsightServingResponse> responseObserver) {
+                    for (StreamingInsightServingResponse payload : payloads) {
+                        responseObserver.onNext(payload);
+                    }
+                    responseObserver.onCompleted();
+                }
+            })
+            .build()
+            .start();
+
+        InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(name);
+        if ("DIRECT".equals(executor)) {
+            channelBuilder.directExecutor();
+        } else {
+            pool = Executors.newCachedThreadPool(ClientExecutors.daemonThreadFactory("bench-callback"));
+            channelBuilder.executor(pool);
+        }
+        channel = channelBuilder.build();
+
+        request = StreamingInsightServingRequest.newBuilder()
+            .setInsightServingRequest(InsightServingRequest.newBuilder()
+                .setConversationId("bench-conversation")
+                .setOrgId("bench-org")
+                .setRealTimeTranscripts(true))
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void stream(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        CompletingObserver<?> observer;
+        if ("FULL_PARSE".equals(path)) {
+            CompletingObserver<StreamingInsightServingResponse> full = new CompletingObserver<>(blackhole, done);
+            observer = full;
+            ClientCalls.asyncServerStreamingCall(
+                channel.newCall(PARSING_METHOD, CallOptions.DEFAULT), request, full);
+        } else {
+            CompletingObserver<LazyInsightResponse> lazyObserver = new CompletingObserver<>(blackhole, done) {
+                @Override
+                public void onNext(LazyInsightResponse lazy) {
+                    if (lazy.getIsFinal()) {
+                        try {
+                            blackhole.consume(lazy.toResponse());
+                        } catch (InvalidProtocolBufferException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            };
+            observer = lazyObserver;
+            ClientCalls.asyncServerStreamingCall(
+                channel.newCall(LazyInsightMarshaller.STREAMING_INSIGHT_SERVING_METHOD, CallOptions.DEFAULT), request,
+                lazyObserver);
+        }
+        if (!done.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Stream did not complete");
+        }
+        if (observer.error != null) {
+            throw new IllegalStateException("Stream failed", observer.error);
+        }
+    }
+
+    private static class CompletingObserver<T> implements StreamObserver<T> {
+        private final Blackhole blackhole;
+        private final CountDownLatch done;
+        volatile Throwable error;
+
+        CompletingObserver(Blackhole blackhole, CountDownLatch done) {
+            this.blackhole = blackhole;
+            this.done = done;
+        }
+
+        @Override
+        public void onNext(T value) {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-insight decoding and rendering cost: full and header-only protobuf parsing,
+ * NDJSON encoding and console formatting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InsightCodecBenchmark {
+
+    @Param({"INTERIM_TRANSCRIPT", "FINAL_TRANSCRIPT", "AGENT_ANSWER_SMALL", "AGENT_ANSWER_LARGE"})
+    public InsightPayloads.Kind kind;
+
+    private StreamingInsightServingResponse response;
+    private byte[] serialized;
+    private ByteString serializedByteString;
+    private final StringBuilder text = new StringBuilder(1024);
+
+    @Setup
+    public void setUp() {
+        response = InsightPayloads.create(kind, "bench-conversation", 42);
+        serialized = response.toByteArray();
+        serializedByteString = ByteString.copyFrom(serialized);
+    }
+
+    @Benchmark
+    public StreamingInsightServingResponse parseFull() throws IOException {
+        return StreamingInsightServingResponse.parseFrom(serialized);
+    }
+
+    @Benchmark
+    public LazyInsightResponse parseHeader() throws IOException {
+        return LazyInsightResponse.parseHeader(serializedByteString);
+    }
+
+    /**
+     * Header parse followed by the filter decision, without touching the content
+     */
+    @Benchmark
+    public boolean parseHeaderAndFilter() throws IOException {
+        LazyInsightResponse lazy = LazyInsightResponse.parseHeader(serializedByteString);
+        return lazy.getInsightType() == InsightServingResponse.ServiceType.TRANSCRIPTION && lazy.getIsFinal();
+    }
+
+    @Benchmark
+    public int encodeNdjson() throws IOException {
+        return InsightJsonEncoder.encodeLine(response).size();
+    }
+
+    @Benchmark
+    public int formatConsole() {
+        text.setLength(0);
+        ResponseHandler.formatInsight(response, text);
+        return text.length();
+    }
+
+    @Benchmark
+    public int formatTranscript() {
+        text.setLength(0);
+        ResponseHandler.formatTranscript(response, text);
+        return text.length();
+    }
+
+    /**
+     * What the JSON handler used to print, for comparison
+     */
+    @Benchmark
+    public String protobufToString() {
+        return response.toString();
+    }
+}
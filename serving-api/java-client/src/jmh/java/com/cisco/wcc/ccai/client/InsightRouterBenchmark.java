@@ -0,0 +1,82 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Dispatching a mixed stream to eight kind-specific handlers: {@link InsightRouter} against
+ * every handler checking type, role and finality itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InsightRouterBenchmark {
+
+    private static final int MESSAGES = 64;
+
+    private StreamingInsightServingResponse[] stream;
+    private InsightRouter router;
+    private List<Consumer<StreamingInsightServingResponse>> filteringHandlers;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        InsightPayloads.Kind[] kinds = InsightPayloads.Kind.values();
+        stream = new StreamingInsightServingResponse[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            stream[i] = InsightPayloads.create(kinds[i % kinds.length], "bench-conversation", i);
+        }
+
+        router = new InsightRouter();
+        filteringHandlers = new ArrayList<>();
+        for (InsightServingResponse.ServiceType type : new InsightServingResponse.ServiceType[] {
+                InsightServingResponse.ServiceType.TRANSCRIPTION, InsightServingResponse.ServiceType.AGENT_ANSWERS}) {
+            for (InsightServingResponse.Role role : new InsightServingResponse.Role[] {
+                    InsightServingResponse.Role.CALLER, InsightServingResponse.Role.AGENT}) {
+                for (boolean isFinal : new boolean[] {false, true}) {
+                    Consumer<StreamingInsightServingResponse> handler = blackhole::consume;
+                    InsightRouter.Route route = InsightRouter.Route.any().insightType(type).role(role);
+                    router.subscribe(isFinal ? route.finalOnly() : route.interimOnly(), handler);
+                    filteringHandlers.add(response -> {
+                        InsightServingResponse insight = response.getInsightServingResponse();
+                        if (insight.getInsightType() == type && insight.getRole() == role
+                                && ResponseHandler.isFinal(insight) == isFinal) {
+                            handler.accept(response);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void router() {
+        for (StreamingInsightServingResponse response : stream) {
+            router.accept(response);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void filteringHandlers() {
+        for (StreamingInsightServingResponse response : stream) {
+            for (Consumer<StreamingInsightServingResponse> handler : filteringHandlers) {
+                handler.accept(response);
+            }
+        }
+    }
+}
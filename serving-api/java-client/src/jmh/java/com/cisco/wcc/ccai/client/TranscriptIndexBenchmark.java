@@ -0,0 +1,88 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching the final transcripts of many live conversations: the {@link TranscriptIndex} against
+ * scanning the transcript text of every conversation. One conversation in a hundred mentions a
+ * refund; the other words of the generated transcripts occur in every conversation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TranscriptIndexBenchmark {
+
+    @Param({"500", "5000"})
+    public int conversations;
+
+    @Param({"40"})
+    public int utterancesPerConversation;
+
+    private TranscriptIndex index;
+    private List<List<String>> transcripts;
+
+    @Setup
+    public void setUp() {
+        index = new TranscriptIndex(conversations);
+        transcripts = new ArrayList<>(conversations);
+        for (int c = 0; c < conversations; c++) {
+            String conversationId = "bench-conversation-" + c;
+            List<String> texts = new ArrayList<>(utterancesPerConversation);
+            for (int u = 0; u < utterancesPerConversation; u++) {
+                StreamingInsightServingResponse response =
+                    InsightPayloads.create(InsightPayloads.Kind.FINAL_TRANSCRIPT, conversationId, (long) (c + u) * 4);
+                index.accept(response);
+                texts.add(response.getInsightServingResponse().getResponseContent()
+                    .getRecognitionResult().getAlternatives(0).getTranscript());
+            }
+            if (c % 100 == 0) {
+                String text = "I would like a refund for last month";
+                index.addUtterance(conversationId, text);
+                texts.add(text);
+            }
+            transcripts.add(texts);
+        }
+    }
+
+    @Benchmark
+    public List<TranscriptIndex.Hit> indexRareTerm() {
+        return index.search("refund");
+    }
+
+    @Benchmark
+    public List<TranscriptIndex.Hit> indexPhrase() {
+        return index.search("check the router");
+    }
+
+    @Benchmark
+    public List<TranscriptIndex.Hit> indexRarePhrase() {
+        return index.search("a refund for");
+    }
+
+    @Benchmark
+    public int scanRareTerm() {
+        int matches = 0;
+        for (List<String> texts : transcripts) {
+            for (String text : texts) {
+                if (text.toLowerCase(Locale.ROOT).contains("refund")) {
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,85 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One-time insight round trips over loopback TCP while many streaming sessions receive insights
+ * in the background, with gRPC's default transport settings or the MANY_STREAMS preset. The
+ * receipt latency of the streamed insights is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportBenchmark {
+
+    @Param({"DEFAULT", "MANY_STREAMS"})
+    public StreamingInsightClientConfig.TransportPreset preset;
+
+    @Param({"1000"})
+    public int streams;
+
+    @Param({"20"})
+    public double messagesPerSecond;
+
+    private FakeAiInsightServer server;
+    private StreamingInsightClient client;
+    private final List<StreamingInsightClient.StreamingInsightSession> sessions = new ArrayList<>();
+    private final LongAdder received = new LongAdder();
+
+    @Setup
+    public void setUp() throws IOException {
+        server = FakeAiInsightServer.newBuilder()
+            .setMessagesPerSecond(messagesPerSecond)
+            .setLargeAgentAnswers(true)
+            .build();
+        int port = server.start(0);
+        client = new StreamingInsightClient(StreamingInsightClientConfig.newBuilder()
+            .setServerHost("localhost")
+            .setServerPort(port)
+            .setUseTls(false)
+            .setChannelPoolSize(4)
+            .setSessionLeakDetectionEnabled(false)
+            .setLatencyTrackingEnabled(true)
+            .setTransportPreset(preset)
+            .build());
+        for (int i = 0; i < streams; i++) {
+            sessions.add(client.startStreamingInsights("bench-conversation-" + i, "bench-org", "bench-agent",
+                response -> received.increment(), error -> { }));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        InsightLatencyStats stats = client.getLatencyStats();
+        System.out.printf("%n[%s] %d insights received, receipt latency %s%n", preset, received.sum(),
+            stats.getSnapshot(InsightLatencyStats.Stage.PUBLISH_TO_RECEIPT));
+        for (StreamingInsightClient.StreamingInsightSession session : sessions) {
+            session.close();
+        }
+        sessions.clear();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public InsightsServingResponse unaryUnderStreamingLoad() {
+        return client.getInsightsAsync("bench-conversation-0", "bench-org", InsightsServingRequest.InsightType.TRANSCRIPTION)
+            .join();
+    }
+}
@@ -0,0 +1,38 @@
+package com.cisco.wcc.ccai.client;
+
+/**
+ * Bearer token together with its expiry time
+ */
+public final class AccessToken {
+    
+    private final String value;
+    private final long expiresAtMillis;
+    
+    /**
+     * Create a token
+     * @param value Token value, without the "Bearer " prefix
+     * @param expiresAtMillis Epoch milliseconds after which the token is no longer valid
+     */
+    public AccessToken(String value, long expiresAtMillis) {
+        this.value = value;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+    
+    /**
+     * Create a token that never expires
+     * @param value Token value, without the "Bearer " prefix
+     * @return token
+     */
+    public static AccessToken nonExpiring(String value) {
+        return new AccessToken(value, Long.MAX_VALUE);
+    }
+    
+    public String getValue() { return value; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+    
+    @Override
+    public String toString() {
+        // Never log the token itself
+        return "AccessToken{expiresAtMillis=" + expiresAtMillis + "}";
+    }
+}
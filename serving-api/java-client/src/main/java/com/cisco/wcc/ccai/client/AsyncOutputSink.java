@@ -0,0 +1,302 @@
+package com.cisco.wcc.ccai.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Text output written by a dedicated thread, so handlers never block on the console.
+ * <p>
+ * Items are queued in a preallocated ring buffer together with their formatter. The writer
+ * thread takes everything queued at once, renders it into a reused {@link StringBuilder} and
+ * char array, and flushes once per batch. What happens when the ring is full is decided by the
+ * {@link OverflowPolicy}.
+ */
+public class AsyncOutputSink implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOutputSink.class);
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int MAX_BATCH = 512;
+
+    /**
+     * What to do with a new item while the ring buffer is full
+     */
+    public enum OverflowPolicy {
+        /** Wait for the writer to make room, slowing down the caller */
+        BLOCK,
+        /** Drop interim items; final items replace the oldest queued interim item, or wait if there is none */
+        DROP_INTERIM,
+        /** Drop the oldest queued item */
+        DROP_OLDEST
+    }
+
+    private final Writer out;
+    private final OverflowPolicy overflowPolicy;
+    private final Object[] items;
+    private final OutputFormatter<Object>[] formatters;
+    private final boolean[] interim;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread writerThread;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Guarded by lock
+    private int head;
+    private int count;
+    private boolean closed;
+
+    /**
+     * Create a sink writing to standard output with room for 8192 items
+     * @param overflowPolicy What to do when the buffer is full
+     * @return sink
+     */
+    public static AsyncOutputSink stdout(OverflowPolicy overflowPolicy) {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8);
+        return new AsyncOutputSink(writer, DEFAULT_CAPACITY, overflowPolicy, "stdout-writer");
+    }
+
+    /**
+     * Create a sink
+     * @param out Destination, only ever written by the writer thread
+     * @param capacity Number of items the ring buffer holds, rounded up to a power of two
+     * @param overflowPolicy What to do when the buffer is full
+     * @param threadName Name of the writer thread
+     */
+    @SuppressWarnings("unchecked")
+    public AsyncOutputSink(Writer out, int capacity, OverflowPolicy overflowPolicy, String threadName) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.out = new BufferedWriter(out, 64 * 1024);
+        this.overflowPolicy = overflowPolicy;
+        this.items = new Object[size];
+        this.formatters = (OutputFormatter<Object>[]) new OutputFormatter<?>[size];
+        this.interim = new boolean[size];
+        this.mask = size - 1;
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue an item for output
+     * @param item Item to write
+     * @param isInterim Whether the item may be dropped under {@link OverflowPolicy#DROP_INTERIM}
+     * @param formatter Renders the item on the writer thread
+     * @return true if queued, false if dropped
+     */
+    @SuppressWarnings("unchecked")
+    public <T> boolean submit(T item, boolean isInterim, OutputFormatter<? super T> formatter) {
+        lock.lock();
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            while (count == items.length) {
+                if (!makeRoom(isInterim)) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            }
+            int slot = (head + count) & mask;
+            items[slot] = item;
+            formatters[slot] = (OutputFormatter<Object>) formatter;
+            interim[slot] = isInterim;
+            count++;
+            if (count == 1) {
+                notEmpty.signal();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply the overflow policy to a full buffer. Must hold lock.
+     * @return false if the new item is to be dropped
+     */
+    private boolean makeRoom(boolean isInterim) throws InterruptedException {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                clear(head);
+                head = (head + 1) & mask;
+                count--;
+                dropped.incrementAndGet();
+                return true;
+            case DROP_INTERIM:
+                if (isInterim) {
+                    return false;
+                }
+                if (removeOldestInterim()) {
+                    dropped.incrementAndGet();
+                    return true;
+                }
+                notFull.await();
+                return !closed;
+            case BLOCK:
+            default:
+                notFull.await();
+                return !closed;
+        }
+    }
+
+    // Must hold lock
+    private boolean removeOldestInterim() {
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) & mask;
+            if (interim[slot]) {
+                // Close the gap by moving the older items forward
+                for (int j = i; j > 0; j--) {
+                    int to = (head + j) & mask;
+                    int from = (head + j - 1) & mask;
+                    items[to] = items[from];
+                    formatters[to] = formatters[from];
+                    interim[to] = interim[from];
+                }
+                clear(head);
+                head = (head + 1) & mask;
+                count--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void clear(int slot) {
+        items[slot] = null;
+        formatters[slot] = null;
+        interim[slot] = false;
+    }
+
+    private void writeLoop() {
+        Object[] batchItems = new Object[Math.min(MAX_BATCH, items.length)];
+        @SuppressWarnings("unchecked")
+        OutputFormatter<Object>[] batchFormatters = (OutputFormatter<Object>[]) new OutputFormatter<?>[batchItems.length];
+        StringBuilder text = new StringBuilder(256);
+        char[] chars = new char[256];
+
+        while (true) {
+            int taken = 0;
+            lock.lock();
+            try {
+                while (count == 0 && !closed) {
+                    notEmpty.await();
+                }
+                if (count == 0) {
+                    return;
+                }
+                while (count > 0 && taken < batchItems.length) {
+                    batchItems[taken] = items[head];
+                    batchFormatters[taken] = formatters[head];
+                    clear(head);
+                    head = (head + 1) & mask;
+                    count--;
+                    taken++;
+                }
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < taken; i++) {
+                try {
+                    text.setLength(0);
+                    batchFormatters[i].format(batchItems[i], text);
+                    if (text.length() > chars.length) {
+                        chars = new char[Math.max(text.length(), chars.length * 2)];
+                    }
+                    text.getChars(0, text.length(), chars, 0);
+                    out.write(chars, 0, text.length());
+                    written.incrementAndGet();
+                } catch (Exception e) {
+                    logger.error("Error writing output", e);
+                }
+                batchItems[i] = null;
+                batchFormatters[i] = null;
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                logger.error("Error flushing output", e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of items waiting to be written
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of items written
+     * @return written count
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Get the number of items dropped by the overflow policy or after close
+     * @return dropped count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop accepting items and wait up to five seconds for the queued ones to be written
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            logger.error("Error flushing output", e);
+        }
+    }
+}
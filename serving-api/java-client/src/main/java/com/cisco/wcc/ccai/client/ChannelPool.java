@@ -0,0 +1,360 @@
+package com.cisco.wcc.ccai.client;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Fixed-size pool of gRPC channels used to spread streaming sessions across
+ * several HTTP/2 connections instead of multiplexing all of them on one socket.
+ */
+public class ChannelPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelPool.class);
+
+    /**
+     * Strategy used to pick a channel for a new call
+     */
+    public enum SelectionPolicy {
+        /** Rotate through the healthy channels in order */
+        ROUND_ROBIN,
+        /** Pick the healthy channel with the fewest active streams */
+        LEAST_LOADED
+    }
+
+    private final PooledChannel[] channels;
+    private final IntFunction<ManagedChannel> channelFactory;
+    private final SelectionPolicy selectionPolicy;
+    private final int maxStreamsPerChannel;
+    private final long evictAfterNanos;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+
+    /**
+     * Create a new ChannelPool
+     * @param poolSize Number of channels (connections) to keep open
+     * @param maxStreamsPerChannel Soft limit of concurrent streams per channel
+     * @param selectionPolicy Strategy for picking a channel
+     * @param evictAfterMs How long a channel may stay in TRANSIENT_FAILURE before it is rebuilt
+     * @param channelFactory Factory creating the channel for a given pool slot
+     */
+    public ChannelPool(int poolSize, int maxStreamsPerChannel, SelectionPolicy selectionPolicy,
+                       long evictAfterMs, IntFunction<ManagedChannel> channelFactory) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        if (maxStreamsPerChannel < 1) {
+            throw new IllegalArgumentException("maxStreamsPerChannel must be at least 1");
+        }
+        this.channelFactory = channelFactory;
+        this.selectionPolicy = selectionPolicy;
+        this.maxStreamsPerChannel = maxStreamsPerChannel;
+        this.evictAfterNanos = TimeUnit.MILLISECONDS.toNanos(evictAfterMs);
+        this.channels = new PooledChannel[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            channels[i] = new PooledChannel(i, channelFactory.apply(i));
+        }
+    }
+
+    /**
+     * Acquire a channel for one call. The returned lease must be released when the call ends.
+     * @return Lease on the selected channel
+     */
+    public ChannelLease acquire() {
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Channel pool is shutdown");
+        }
+
+        long now = System.nanoTime();
+        for (PooledChannel pooled : channels) {
+            pooled.evictIfUnhealthy(now);
+        }
+
+        PooledChannel selected = selectionPolicy == SelectionPolicy.LEAST_LOADED
+            ? selectLeastLoaded(true)
+            : selectRoundRobin();
+        if (selected == null) {
+            // Every channel is either unhealthy or at capacity: fall back to the least loaded one
+            // and let HTTP/2 queue the stream rather than failing the call locally
+            selected = selectLeastLoaded(false);
+            logger.debug("No channel with spare capacity, overflowing onto channel {}", selected.index);
+        }
+        return selected.lease();
+    }
+
+    private PooledChannel selectRoundRobin() {
+        int start = Math.floorMod(nextIndex.getAndIncrement(), channels.length);
+        for (int i = 0; i < channels.length; i++) {
+            PooledChannel candidate = channels[(start + i) % channels.length];
+            if (candidate.isHealthy() && candidate.activeStreams.get() < maxStreamsPerChannel) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private PooledChannel selectLeastLoaded(boolean healthyWithCapacityOnly) {
+        PooledChannel best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (PooledChannel candidate : channels) {
+            int load = candidate.activeStreams.get();
+            if (healthyWithCapacityOnly && (!candidate.isHealthy() || load >= maxStreamsPerChannel)) {
+                continue;
+            }
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Start connecting every channel that is not connected yet, instead of waiting for its first call
+     * @param scheduler Scheduler for the timeout
+     * @param timeoutMs How long to wait for all channels to become READY
+     * @return future completed once every channel is READY, or exceptionally with a
+     *         TimeoutException listing the channel states when the timeout passes first
+     */
+    public CompletableFuture<Void> connect(ScheduledExecutorService scheduler, long timeoutMs) {
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Channel pool is shutdown");
+        }
+        CompletableFuture<?>[] perChannel = new CompletableFuture<?>[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            CompletableFuture<Void> ready = new CompletableFuture<>();
+            awaitReady(channels[i].channel, ready);
+            perChannel[i] = ready;
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(perChannel);
+        if (!all.isDone()) {
+            ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+                all.completeExceptionally(new TimeoutException(
+                    "Channels not READY after " + timeoutMs + " ms: " + Arrays.toString(getStates())));
+                // Stops the state watchers, the channels keep connecting on their own
+                for (CompletableFuture<?> ready : perChannel) {
+                    ready.cancel(false);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            all.whenComplete((ignored, error) -> timeout.cancel(false));
+        }
+        return all;
+    }
+
+    private static void awaitReady(ManagedChannel channel, CompletableFuture<Void> ready) {
+        if (ready.isDone()) {
+            return;
+        }
+        // Asking with requestConnection=true moves an IDLE channel to CONNECTING
+        ConnectivityState state = channel.getState(true);
+        if (state == ConnectivityState.READY) {
+            ready.complete(null);
+        } else if (state == ConnectivityState.SHUTDOWN) {
+            ready.completeExceptionally(new IllegalStateException("Channel was shut down while connecting"));
+        } else {
+            // TRANSIENT_FAILURE keeps retrying with backoff, so keep waiting for READY
+            channel.notifyWhenStateChanged(state, () -> awaitReady(channel, ready));
+        }
+    }
+
+    /**
+     * Get the connectivity state of every channel, without triggering a connection
+     * @return states indexed by slot
+     */
+    public ConnectivityState[] getStates() {
+        ConnectivityState[] states = new ConnectivityState[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            states[i] = channels[i].channel.getState(false);
+        }
+        return states;
+    }
+
+    /**
+     * Replace every channel with a fresh one from the factory, e.g. to apply a new service config.
+     * Calls already running finish on the old channels, which are shut down gracefully. A new
+     * channel starts connecting right away when the one it replaces was connected.
+     */
+    public void replaceChannels() {
+        for (PooledChannel pooled : channels) {
+            pooled.replace();
+        }
+    }
+
+    /**
+     * Get the number of channels in the pool
+     * @return pool size
+     */
+    public int size() {
+        return channels.length;
+    }
+
+    /**
+     * Get the current channel for a pool slot
+     * @param index Slot index
+     * @return channel currently serving that slot
+     */
+    public ManagedChannel getChannel(int index) {
+        return channels[index].channel;
+    }
+
+    /**
+     * Get the number of active streams per pool slot
+     * @return active stream counts indexed by slot
+     */
+    public int[] getActiveStreamCounts() {
+        int[] counts = new int[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            counts[i] = channels[i].activeStreams.get();
+        }
+        return counts;
+    }
+
+    /**
+     * Get the total number of active streams across all channels
+     * @return active stream count
+     */
+    public int getActiveStreamCount() {
+        int total = 0;
+        for (PooledChannel pooled : channels) {
+            total += pooled.activeStreams.get();
+        }
+        return total;
+    }
+
+    /**
+     * Shut down every channel, waiting up to 30 seconds each for their calls to finish. If
+     * interrupted, the channels are shut down forcibly and the interrupt flag is kept.
+     */
+    @Override
+    public void close() {
+        if (!isShutdown.compareAndSet(false, true)) {
+            return;
+        }
+        for (PooledChannel pooled : channels) {
+            // Under the slot's monitor, so a channel being swapped in is shut down as well
+            synchronized (pooled) {
+                pooled.channel.shutdown();
+            }
+        }
+        try {
+            for (PooledChannel pooled : channels) {
+                if (!pooled.channel.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warn("Channel {} did not terminate gracefully, forcing shutdown", pooled.index);
+                    pooled.channel.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (PooledChannel pooled : channels) {
+                pooled.channel.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One slot of the pool. The channel may be replaced when it stays unhealthy or all channels
+     * are replaced.
+     */
+    private final class PooledChannel {
+        private final int index;
+        private final AtomicInteger activeStreams = new AtomicInteger();
+        private volatile ManagedChannel channel;
+        private volatile long unhealthySinceNanos = -1;
+
+        PooledChannel(int index, ManagedChannel channel) {
+            this.index = index;
+            this.channel = channel;
+        }
+
+        boolean isHealthy() {
+            ConnectivityState state = channel.getState(false);
+            return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+        }
+
+        // Swaps the channel under the same monitor as lease(), so a lease never gets a channel being shut down
+        void evictIfUnhealthy(long now) {
+            if (isHealthy()) {
+                unhealthySinceNanos = -1;
+                return;
+            }
+            if (unhealthySinceNanos < 0) {
+                unhealthySinceNanos = now;
+                return;
+            }
+            if (now - unhealthySinceNanos < evictAfterNanos || activeStreams.get() > 0) {
+                return;
+            }
+            synchronized (this) {
+                if (isShutdown.get() || isHealthy() || activeStreams.get() > 0) {
+                    return;
+                }
+                ManagedChannel old = channel;
+                logger.info("Evicting channel {} after it stayed in {}", index, old.getState(false));
+                channel = channelFactory.apply(index);
+                unhealthySinceNanos = -1;
+                old.shutdown();
+            }
+        }
+
+        synchronized void replace() {
+            if (isShutdown.get()) {
+                return;
+            }
+            ManagedChannel old = channel;
+            ManagedChannel fresh = channelFactory.apply(index);
+            if (old.getState(false) == ConnectivityState.READY) {
+                fresh.getState(true);
+            }
+            channel = fresh;
+            unhealthySinceNanos = -1;
+            old.shutdown();
+        }
+
+        synchronized ChannelLease lease() {
+            activeStreams.incrementAndGet();
+            return new ChannelLease(channel, activeStreams);
+        }
+    }
+
+    /**
+     * A channel checked out of the pool for the duration of one call
+     */
+    public static final class ChannelLease {
+        private final ManagedChannel channel;
+        private final AtomicInteger activeStreams;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        ChannelLease(ManagedChannel channel, AtomicInteger activeStreams) {
+            this.channel = channel;
+            this.activeStreams = activeStreams;
+        }
+
+        /**
+         * Get the leased channel
+         * @return channel to start the call on
+         */
+        public ManagedChannel getChannel() {
+            return channel;
+        }
+
+        /**
+         * Return the lease to the pool. Safe to call more than once.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                activeStreams.decrementAndGet();
+            }
+        }
+    }
+}
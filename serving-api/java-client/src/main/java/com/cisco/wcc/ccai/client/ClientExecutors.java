@@ -0,0 +1,52 @@
+package com.cisco.wcc.ccai.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factories for the executors owned by {@link StreamingInsightClient}
+ */
+final class ClientExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientExecutors.class);
+
+    private ClientExecutors() {
+    }
+
+    /**
+     * Create a thread factory producing numbered daemon threads
+     * @param prefix Thread name prefix
+     * @return thread factory
+     */
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task. The client is built for Java 17, so
+     * the executor is looked up reflectively and a cached platform pool is used on older runtimes.
+     * @param prefix Thread name prefix for the fallback pool
+     * @return executor service
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            logger.warn("Virtual threads are not available on Java {}, using a cached thread pool instead",
+                Runtime.version().feature());
+            return Executors.newCachedThreadPool(daemonThreadFactory(prefix));
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the AiInsight service, for measuring client throughput and latency without the cloud.
+ * <p>
+ * Every streamingInsightServing call gets its own stream for the requested conversation, either
+ * synthesized with {@link InsightPayloads} (interim transcripts revised a number of times before
+ * each final, an agent answer after every n-th final, optional bursts) or replayed from recorded
+ * responses with their original spacing. Streams honour flow control: while the client is not
+ * ready, emission pauses and the stream falls behind its rate instead of buffering.
+ * insightServing calls are answered with a synthetic response.
+ * <p>
+ * Run it on a port with {@link #start(int)}, or in the client's JVM with {@link #startInProcess(String)}
+ * and {@link StreamingInsightClientConfig.Builder#setInProcessServerName(String)}. Over an in-process
+ * channel the protobuf marshaller hands messages over without serializing them, so such runs leave
+ * out the wire and parsing cost.
+ */
+public class FakeAiInsightServer extends AiInsightGrpc.AiInsightImplBase implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeAiInsightServer.class);
+
+    private final double messagesPerSecond;
+    private final int interimsPerFinal;
+    private final int agentAnswerEvery;
+    private final boolean largeAgentAnswers;
+    private final int burstSize;
+    private final long burstIntervalMs;
+    private final long streamDurationMs;
+    private final List<StreamingInsightServingResponse> replay;
+    private final double replaySpeed;
+    private final boolean replayLoop;
+    private final int unaryResultCount;
+    private final String responseCompression;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong streamsStarted = new AtomicLong();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder flowControlPauses = new LongAdder();
+    private final LongAdder unaryCalls = new LongAdder();
+    private volatile Server server;
+
+    private FakeAiInsightServer(Builder builder) {
+        this.messagesPerSecond = builder.messagesPerSecond;
+        this.interimsPerFinal = builder.interimsPerFinal;
+        this.agentAnswerEvery = builder.agentAnswerEvery;
+        this.largeAgentAnswers = builder.largeAgentAnswers;
+        this.burstSize = builder.burstSize;
+        this.burstIntervalMs = builder.burstIntervalMs;
+        this.streamDurationMs = builder.streamDurationMs;
+        this.replay = List.copyOf(builder.replay);
+        this.replaySpeed = builder.replaySpeed;
+        this.replayLoop = builder.replayLoop;
+        this.unaryResultCount = builder.unaryResultCount;
+        this.responseCompression = builder.responseCompression;
+        this.scheduler = Executors.newScheduledThreadPool(builder.schedulerThreads,
+            ClientExecutors.daemonThreadFactory("fake-insight-server"));
+    }
+
+    /**
+     * Serve on a local port with plaintext
+     * @param port Port to listen on, 0 for any free port
+     * @return the port the server listens on
+     * @throws IOException if the server cannot be bound
+     */
+    public int start(int port) throws IOException {
+        server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+            .addService(this)
+            .build()
+            .start();
+        logger.info("Fake AiInsight server listening on port {}", server.getPort());
+        return server.getPort();
+    }
+
+    /**
+     * Serve in-process, reachable only from this JVM
+     * @param name In-process server name clients connect to
+     * @throws IOException if a server of that name is already running
+     */
+    public void startInProcess(String name) throws IOException {
+        server = InProcessServerBuilder.forName(name)
+            .addService(this)
+            .build()
+            .start();
+        logger.info("Fake AiInsight server running in-process as {}", name);
+    }
+
+    /**
+     * Block until the server has shut down
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        Server running = server;
+        if (running != null) {
+            running.awaitTermination();
+        }
+    }
+
+    /**
+     * Stop serving, cancelling all open streams
+     */
+    @Override
+    public void close() {
+        Server running = server;
+        if (running != null) {
+            running.shutdownNow();
+        }
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void streamingInsightServing(StreamingInsightServingRequest request,
+                                        StreamObserver<StreamingInsightServingResponse> responseObserver) {
+        InsightServingRequest insightRequest = request.getInsightServingRequest();
+        // Without any real-time flag set, send everything
+        boolean anyRequested = insightRequest.getRealTimeTranscripts() || insightRequest.getRealtimeAgentAssist();
+        ServerCallStreamObserver<StreamingInsightServingResponse> observer =
+            (ServerCallStreamObserver<StreamingInsightServingResponse>) responseObserver;
+        if (responseCompression != null) {
+            observer.setCompression(responseCompression);
+        }
+        StreamEmitter emitter = new StreamEmitter(
+            observer,
+            orgIdOrDefault(insightRequest.getOrgId()),
+            insightRequest.getConversationId(),
+            !anyRequested || insightRequest.getRealTimeTranscripts(),
+            !anyRequested || insightRequest.getRealtimeAgentAssist());
+        streamsStarted.incrementAndGet();
+        activeStreams.incrementAndGet();
+        emitter.start();
+    }
+
+    @Override
+    public void insightServing(InsightsServingRequest request, StreamObserver<InsightsServingResponse> responseObserver) {
+        unaryCalls.increment();
+        if (responseCompression != null) {
+            ((ServerCallStreamObserver<InsightsServingResponse>) responseObserver).setCompression(responseCompression);
+        }
+        String orgId = orgIdOrDefault(request.getOrgId());
+        InsightPayloads.Kind kind = request.getInsightType() == InsightsServingRequest.InsightType.AGENT_ANSWERS
+            ? agentAnswerKind()
+            : InsightPayloads.Kind.FINAL_TRANSCRIPT;
+
+        InsightsServingResponse.Builder response = InsightsServingResponse.newBuilder()
+            .setConversationId(request.getConversationId())
+            .setMessageId(request.getMessageId())
+            .setOrgId(orgId)
+            .setLanguageCode("en-US")
+            .setInsightProvider(InsightsServingResponse.ServiceProvider.GOOGLE);
+        for (int i = 0; i < unaryResultCount; i++) {
+            InsightServingResponse insight = InsightPayloads.create(
+                kind, orgId, request.getConversationId(), i, interimsPerFinal).getInsightServingResponse();
+            if (i == 0) {
+                response.setStartTimestamp(insight.getStartTimestamp());
+            }
+            response.setEndTimestamp(insight.getEndTimestamp())
+                .addResponseContent(insight.getResponseContent());
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    public long getStreamsStarted() { return streamsStarted.get(); }
+    public int getActiveStreams() { return activeStreams.get(); }
+    public long getMessagesSent() { return messagesSent.sum(); }
+    public long getFlowControlPauses() { return flowControlPauses.sum(); }
+    public long getUnaryCalls() { return unaryCalls.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("streams=%d active=%d sent=%d flowControlPauses=%d unary=%d",
+            getStreamsStarted(), getActiveStreams(), getMessagesSent(), getFlowControlPauses(), getUnaryCalls());
+    }
+
+    private InsightPayloads.Kind agentAnswerKind() {
+        return largeAgentAnswers ? InsightPayloads.Kind.AGENT_ANSWER_LARGE : InsightPayloads.Kind.AGENT_ANSWER_SMALL;
+    }
+
+    private static String orgIdOrDefault(String orgId) {
+        return orgId == null || orgId.isEmpty() ? InsightPayloads.DEFAULT_ORG_ID : orgId;
+    }
+
+    /**
+     * Emits the insights of one stream. Each tick reschedules the next one, so at most one tick
+     * of a stream runs at a time and the observer is never called concurrently.
+     */
+    private final class StreamEmitter implements Runnable {
+        private final ServerCallStreamObserver<StreamingInsightServingResponse> observer;
+        private final String orgId;
+        private final String conversationId;
+        private final boolean transcripts;
+        private final boolean agentAnswers;
+        private final long periodNanos;
+        private final long deadlineNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private long nextDueNanos;
+        private long nextBurstNanos;
+        private long index;
+
+        StreamEmitter(ServerCallStreamObserver<StreamingInsightServingResponse> observer, String orgId,
+                      String conversationId, boolean transcripts, boolean agentAnswers) {
+            this.observer = observer;
+            this.orgId = orgId;
+            this.conversationId = conversationId;
+            this.transcripts = transcripts;
+            this.agentAnswers = agentAnswers;
+            this.periodNanos = Math.max(1000, (long) (1_000_000_000L / messagesPerSecond));
+            long now = System.nanoTime();
+            this.deadlineNanos = streamDurationMs > 0 ? now + TimeUnit.MILLISECONDS.toNanos(streamDurationMs) : 0;
+            this.nextDueNanos = now;
+            this.nextBurstNanos = now + TimeUnit.MILLISECONDS.toNanos(burstIntervalMs);
+        }
+
+        void start() {
+            observer.setOnCancelHandler(this::finish);
+            scheduler.execute(this);
+        }
+
+        @Override
+        public void run() {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                long now = System.nanoTime();
+                if (deadlineNanos != 0 && now - deadlineNanos >= 0) {
+                    complete();
+                    return;
+                }
+                if (!observer.isReady()) {
+                    // Pause instead of catching up afterwards, like a server bound by the client
+                    flowControlPauses.increment();
+                    nextDueNanos = now + periodNanos;
+                    scheduler.schedule(this, periodNanos, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                int count = 1;
+                if (burstSize > 0 && now - nextBurstNanos >= 0) {
+                    count += burstSize;
+                    nextBurstNanos = now + TimeUnit.MILLISECONDS.toNanos(burstIntervalMs);
+                }
+                long delayNanos = periodNanos;
+                for (int i = 0; i < count; i++) {
+                    delayNanos = replay.isEmpty() ? emitSynthetic() : emitReplayed();
+                    if (delayNanos < 0) {
+                        complete();
+                        return;
+                    }
+                }
+                nextDueNanos += delayNanos;
+                scheduler.schedule(this, Math.max(0, nextDueNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                // onNext fails once the call is cancelled or closed
+                logger.debug("Stream for conversation {} ended: {}", conversationId, e.toString());
+                finish();
+            }
+        }
+
+        /**
+         * @return nanoseconds until the next message
+         */
+        private long emitSynthetic() {
+            long utterance = index / (interimsPerFinal + 1);
+            int revision = (int) (index % (interimsPerFinal + 1));
+            index++;
+            boolean isFinal = revision == interimsPerFinal;
+            if (transcripts) {
+                send(InsightPayloads.create(
+                    isFinal ? InsightPayloads.Kind.FINAL_TRANSCRIPT : InsightPayloads.Kind.INTERIM_TRANSCRIPT,
+                    orgId, conversationId, utterance, revision));
+            }
+            if (isFinal && agentAnswers && agentAnswerEvery > 0 && (utterance + 1) % agentAnswerEvery == 0) {
+                send(InsightPayloads.create(agentAnswerKind(), orgId, conversationId, utterance, revision));
+            }
+            return periodNanos;
+        }
+
+        /**
+         * @return nanoseconds until the next message, negative once the recording is exhausted
+         */
+        private long emitReplayed() {
+            if (index >= replay.size()) {
+                if (!replayLoop) {
+                    return -1;
+                }
+                index = 0;
+            }
+            InsightServingResponse recorded = replay.get((int) index++).getInsightServingResponse();
+            long now = System.currentTimeMillis();
+            long shift = recorded.getPublishTimestamp() > 0 ? now - recorded.getPublishTimestamp() : 0;
+            InsightServingResponse.Builder insight = recorded.toBuilder()
+                .setOrgId(orgId)
+                .setConversationId(conversationId)
+                .setPublishTimestamp(now);
+            if (recorded.getStartTimestamp() > 0) {
+                insight.setStartTimestamp(recorded.getStartTimestamp() + shift);
+            }
+            if (recorded.getEndTimestamp() > 0) {
+                insight.setEndTimestamp(recorded.getEndTimestamp() + shift);
+            }
+            send(StreamingInsightServingResponse.newBuilder().setInsightServingResponse(insight).build());
+
+            if (replaySpeed <= 0 || index >= replay.size()) {
+                return periodNanos;
+            }
+            long gapMs = replay.get((int) index).getInsightServingResponse().getPublishTimestamp()
+                - recorded.getPublishTimestamp();
+            return Math.max(0, (long) (TimeUnit.MILLISECONDS.toNanos(gapMs) / replaySpeed));
+        }
+
+        private void send(StreamingInsightServingResponse response) {
+            observer.onNext(response);
+            messagesSent.increment();
+        }
+
+        private void complete() {
+            if (finish()) {
+                observer.onCompleted();
+            }
+        }
+
+        private boolean finish() {
+            if (finished.compareAndSet(false, true)) {
+                activeStreams.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private double messagesPerSecond = 10;
+        private int interimsPerFinal = 3;
+        private int agentAnswerEvery = 4;
+        private boolean largeAgentAnswers = false;
+        private int burstSize = 0; // no bursts
+        private long burstIntervalMs = 1000;
+        private long streamDurationMs = 0; // until cancelled
+        private List<StreamingInsightServingResponse> replay = new ArrayList<>();
+        private double replaySpeed = 1.0;
+        private boolean replayLoop = true;
+        private int unaryResultCount = 20;
+        private String responseCompression; // null = uncompressed
+        private int schedulerThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Transcript messages per second and stream
+         */
+        public Builder setMessagesPerSecond(double messagesPerSecond) {
+            if (messagesPerSecond <= 0) {
+                throw new IllegalArgumentException("messagesPerSecond must be positive");
+            }
+            this.messagesPerSecond = messagesPerSecond;
+            return this;
+        }
+
+        /**
+         * Interim results sent for each utterance before its final
+         */
+        public Builder setInterimsPerFinal(int interimsPerFinal) {
+            this.interimsPerFinal = Math.max(0, interimsPerFinal);
+            return this;
+        }
+
+        /**
+         * Send an agent answer after every n-th final transcript, 0 for none
+         */
+        public Builder setAgentAnswerEvery(int agentAnswerEvery) {
+            this.agentAnswerEvery = Math.max(0, agentAnswerEvery);
+            return this;
+        }
+
+        /**
+         * Send agent answers with several long suggestions instead of a single short one
+         */
+        public Builder setLargeAgentAnswers(boolean largeAgentAnswers) {
+            this.largeAgentAnswers = largeAgentAnswers;
+            return this;
+        }
+
+        /**
+         * Send extra messages back to back at a fixed interval, 0 for no bursts
+         * @param burstSize Extra messages per burst
+         * @param burstIntervalMs Time between bursts
+         */
+        public Builder setBurst(int burstSize, long burstIntervalMs) {
+            this.burstSize = Math.max(0, burstSize);
+            this.burstIntervalMs = Math.max(1, burstIntervalMs);
+            return this;
+        }
+
+        /**
+         * Complete each stream after this long, 0 to stream until the client cancels
+         */
+        public Builder setStreamDurationMs(long streamDurationMs) {
+            this.streamDurationMs = streamDurationMs;
+            return this;
+        }
+
+        /**
+         * Replay recorded responses instead of synthesizing them. Organization, conversation and
+         * timestamps are rewritten for each stream.
+         * @param replay Recorded responses in publish order
+         * @param replaySpeed Speed-up of the recorded spacing, 0 or less to send at the configured rate
+         * @param replayLoop Start over once the recording is exhausted instead of completing the stream
+         */
+        public Builder setReplay(List<StreamingInsightServingResponse> replay, double replaySpeed, boolean replayLoop) {
+            this.replay = new ArrayList<>(replay);
+            this.replaySpeed = replaySpeed;
+            this.replayLoop = replayLoop;
+            return this;
+        }
+
+        /**
+         * Results in each insightServing response
+         */
+        public Builder setUnaryResultCount(int unaryResultCount) {
+            this.unaryResultCount = Math.max(0, unaryResultCount);
+            return this;
+        }
+
+        /**
+         * Compress responses with this codec, e.g. "gzip", when the client accepts it
+         */
+        public Builder setResponseCompression(String responseCompression) {
+            this.responseCompression = responseCompression;
+            return this;
+        }
+
+        /**
+         * Threads emitting the messages of all streams
+         */
+        public Builder setSchedulerThreads(int schedulerThreads) {
+            this.schedulerThreads = Math.max(1, schedulerThreads);
+            return this;
+        }
+
+        public FakeAiInsightServer build() {
+            return new FakeAiInsightServer(this);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> flags = new HashMap<>();
+        StreamingInsightClientMain.extractFlags(args, flags);
+
+        Builder builder = newBuilder();
+        if (flags.containsKey("replay")) {
+            try (InsightReplayer recording = InsightReplayer.open(Path.of(flags.get("replay")))) {
+                builder.setReplay(recording.readAll(),
+                    Double.parseDouble(flags.getOrDefault("replay-speed", "1.0")), true);
+            }
+        }
+        FakeAiInsightServer fakeServer = builder
+            .setMessagesPerSecond(Double.parseDouble(flags.getOrDefault("rate", "10")))
+            .setInterimsPerFinal(Integer.parseInt(flags.getOrDefault("interims-per-final", "3")))
+            .setAgentAnswerEvery(Integer.parseInt(flags.getOrDefault("agent-answer-every", "4")))
+            .setLargeAgentAnswers(Boolean.parseBoolean(flags.getOrDefault("large-agent-answers", "false")))
+            .setBurst(Integer.parseInt(flags.getOrDefault("burst-size", "0")),
+                Long.parseLong(flags.getOrDefault("burst-interval-ms", "1000")))
+            .setStreamDurationMs(Long.parseLong(flags.getOrDefault("duration-ms", "0")))
+            .setResponseCompression(flags.get("compression"))
+            .build();
+        int port = fakeServer.start(Integer.parseInt(flags.getOrDefault("port", "9090")));
+        Runtime.getRuntime().addShutdownHook(new Thread(fakeServer::close, "fake-insight-server-shutdown"));
+
+        System.out.printf("Fake AiInsight server listening on port %d%n", port);
+        fakeServer.scheduler.scheduleAtFixedRate(
+            () -> System.out.println(fakeServer), 5, 5, TimeUnit.SECONDS);
+        fakeServer.awaitTermination();
+    }
+}
@@ -0,0 +1,317 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of one-time insight responses.
+ * <p>
+ * Entries expire after a fixed time to live and are evicted least recently used first once
+ * the total weight exceeds the configured budget. The weight of an entry approximates its
+ * memory footprint from the serialized size of the response. Concurrent lookups of a key
+ * that is not cached share one in-flight load, which is cancelled once all of them cancelled.
+ * Failed loads are not cached, nor are loads that were in flight when their key was invalidated.
+ */
+public class InsightCache {
+
+    // Rough per-entry cost of the map node, key and entry objects
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+    private final LinkedHashMap<InsightKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true); // guarded by itself
+    private final ConcurrentHashMap<InsightKey, Load> inFlight = new ConcurrentHashMap<>();
+    private long weightBytes; // guarded by entries
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * Create a cache
+     * @param maxWeightBytes Approximate memory budget in bytes
+     * @param ttlMs Time to live of an entry in milliseconds
+     */
+    public InsightCache(long maxWeightBytes, long ttlMs) {
+        if (maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("maxWeightBytes must be positive");
+        }
+        if (ttlMs <= 0) {
+            throw new IllegalArgumentException("ttlMs must be positive");
+        }
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /**
+     * Get the cached response for a key, loading it if absent or expired
+     * @param key Insights to look up
+     * @param loader Starts the remote call on a miss; invoked at most once per concurrent miss
+     * @return future completed with the response. Cancelling it does not affect other callers;
+     *         once every caller waiting for a load has cancelled, the load is cancelled too.
+     */
+    public CompletableFuture<InsightsServingResponse> get(InsightKey key,
+                                                          Function<InsightKey, CompletableFuture<InsightsServingResponse>> loader) {
+        while (true) {
+            InsightsServingResponse cached = getIfPresent(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            Load load = new Load();
+            Load existing = inFlight.putIfAbsent(key, load);
+            if (existing != null) {
+                if (existing.join()) {
+                    coalesced.increment();
+                    return existing.waiter();
+                }
+                // Abandoned by all its callers, start a fresh load
+                inFlight.remove(key, existing);
+                continue;
+            }
+            misses.increment();
+            load.join();
+
+            CompletableFuture<InsightsServingResponse> call;
+            try {
+                call = loader.apply(key);
+            } catch (RuntimeException e) {
+                inFlight.remove(key, load);
+                loadFailures.increment();
+                load.result.completeExceptionally(e);
+                return load.waiter();
+            }
+            load.setCall(call);
+            call.whenComplete((response, error) -> {
+                if (error == null) {
+                    // Publish before leaving the in-flight map so no lookup misses in between
+                    synchronized (entries) {
+                        if (!load.invalidated) {
+                            put(key, response);
+                        }
+                    }
+                } else if (!load.isAbandoned()) {
+                    loadFailures.increment();
+                }
+                inFlight.remove(key, load);
+                if (error != null) {
+                    load.result.completeExceptionally(error);
+                } else {
+                    load.result.complete(response);
+                }
+            });
+            return load.waiter();
+        }
+    }
+
+    /**
+     * Get the cached response for a key without loading it
+     * @param key Insights to look up
+     * @return cached response, or null if absent or expired
+     */
+    public InsightsServingResponse getIfPresent(InsightKey key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAtNanos < 0) {
+                    hits.increment();
+                    return entry.response;
+                }
+                entries.remove(key);
+                weightBytes -= entry.weight;
+                expirations.increment();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store a response, evicting least recently used entries if over budget
+     * @param key Insights key
+     * @param response Response to cache
+     */
+    public void put(InsightKey key, InsightsServingResponse response) {
+        long weight = weigh(key, response);
+        if (weight > maxWeightBytes) {
+            // Would evict everything else and still not fit
+            return;
+        }
+        Entry entry = new Entry(response, weight, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                weightBytes -= previous.weight;
+            }
+            weightBytes += weight;
+            Iterator<Map.Entry<InsightKey, Entry>> eldest = entries.entrySet().iterator();
+            while (weightBytes > maxWeightBytes && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                weightBytes -= evicted.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drop the cached response for a key. A load of the key already in flight still completes
+     * for its callers but is not cached, and later lookups start a new one.
+     * @param key Insights key
+     */
+    public void invalidate(InsightKey key) {
+        synchronized (entries) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                weightBytes -= removed.weight;
+            }
+            Load loading = inFlight.remove(key);
+            if (loading != null) {
+                loading.invalidated = true;
+            }
+        }
+    }
+
+    /**
+     * Drop all cached responses, including the results of loads in flight
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            weightBytes = 0;
+            Iterator<Load> loading = inFlight.values().iterator();
+            while (loading.hasNext()) {
+                loading.next().invalidated = true;
+                loading.remove();
+            }
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getCoalescedCount() { return coalesced.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getExpirationCount() { return expirations.sum(); }
+    public long getLoadFailureCount() { return loadFailures.sum(); }
+
+    /**
+     * Get the share of lookups answered without a remote call, including coalesced ones
+     * @return hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hit = hits.sum() + coalesced.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    /**
+     * Get the number of cached responses
+     * @return entry count
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get the approximate memory used by cached responses
+     * @return weight in bytes
+     */
+    public long getWeightBytes() {
+        synchronized (entries) {
+            return weightBytes;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InsightCache{entries=%d, weightBytes=%d, hits=%d, misses=%d, coalesced=%d, evictions=%d, expirations=%d}",
+            size(), getWeightBytes(), getHitCount(), getMissCount(), getCoalescedCount(), getEvictionCount(), getExpirationCount());
+    }
+
+    private static long weigh(InsightKey key, InsightsServingResponse response) {
+        long keyChars = key.getConversationId().length() + key.getMessageId().length() + key.getOrgId().length();
+        return ENTRY_OVERHEAD_BYTES + 2 * keyChars + response.getSerializedSize();
+    }
+
+    /**
+     * A load shared by concurrent callers of the same key. Each caller gets its own copy of the
+     * result; the call is cancelled when the last caller still waiting cancels its copy.
+     */
+    private static final class Load {
+        final CompletableFuture<InsightsServingResponse> result = new CompletableFuture<>();
+        // Guarded by this
+        private CompletableFuture<InsightsServingResponse> call;
+        private int waiting;
+        private boolean abandoned;
+        // Guarded by the cache entries, set when the key was invalidated during the load
+        boolean invalidated;
+
+        synchronized boolean join() {
+            if (abandoned) {
+                return false;
+            }
+            waiting++;
+            return true;
+        }
+
+        synchronized void setCall(CompletableFuture<InsightsServingResponse> call) {
+            this.call = call;
+            if (abandoned) {
+                call.cancel(true);
+            }
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        CompletableFuture<InsightsServingResponse> waiter() {
+            CompletableFuture<InsightsServingResponse> waiter = result.copy();
+            waiter.whenComplete((response, error) -> {
+                if (waiter.isCancelled()) {
+                    leave();
+                }
+            });
+            return waiter;
+        }
+
+        private void leave() {
+            CompletableFuture<InsightsServingResponse> toCancel;
+            synchronized (this) {
+                if (--waiting > 0 || result.isDone()) {
+                    return;
+                }
+                abandoned = true;
+                toCancel = call;
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final InsightsServingResponse response;
+        final long weight;
+        final long expiresAtNanos;
+
+        Entry(InsightsServingResponse response, long weight, long expiresAtNanos) {
+            this.response = response;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
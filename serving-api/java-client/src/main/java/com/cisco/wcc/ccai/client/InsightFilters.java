@@ -0,0 +1,51 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Ready-made filters evaluated on the header fields of a {@link LazyInsightResponse},
+ * before the message is fully parsed. Combine them with {@link Predicate#and}.
+ */
+public final class InsightFilters {
+
+    private InsightFilters() {
+    }
+
+    /**
+     * Keep only insights of the given types
+     * @param types Insight types to keep
+     * @return filter
+     */
+    public static Predicate<LazyInsightResponse> insightTypes(InsightServingResponse.ServiceType... types) {
+        Set<InsightServingResponse.ServiceType> accepted = EnumSet.noneOf(InsightServingResponse.ServiceType.class);
+        for (InsightServingResponse.ServiceType type : types) {
+            accepted.add(type);
+        }
+        return response -> accepted.contains(response.getInsightType());
+    }
+
+    /**
+     * Keep only insights for the given roles
+     * @param roles Roles to keep
+     * @return filter
+     */
+    public static Predicate<LazyInsightResponse> roles(InsightServingResponse.Role... roles) {
+        Set<InsightServingResponse.Role> accepted = EnumSet.noneOf(InsightServingResponse.Role.class);
+        for (InsightServingResponse.Role role : roles) {
+            accepted.add(role);
+        }
+        return response -> accepted.contains(response.getRole());
+    }
+
+    /**
+     * Keep only final insights
+     * @return filter
+     */
+    public static Predicate<LazyInsightResponse> finalOnly() {
+        return LazyInsightResponse::getIsFinal;
+    }
+}
@@ -0,0 +1,843 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log of received insights, one directory per conversation, so that capture survives
+ * a restart of the consuming process.
+ * <p>
+ * A conversation directory holds the request its session was opened with, append-only segment
+ * files named after the sequence number of their first record, a checkpoint naming the last
+ * insight handed to the application, and a {@code completed} marker once the session ended on
+ * purpose. A record is the varint length of the serialized {@link InsightServingResponse}, the
+ * message, and its CRC32C, so a record torn by a crash is recognized and ignored.
+ * <p>
+ * Appends only queue the record. One writer thread writes everything queued in a single pass and
+ * forces the touched segments to disk at most once per sync interval, so many insights share one
+ * fsync. A checkpoint is written only after the records it covers were forced. Records received
+ * in the last sync interval before a crash may be missing from the log; recovery resubscribes
+ * with history, so the server replays them.
+ */
+public class InsightJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightJournal.class);
+
+    static final String SESSION_FILE = "session";
+    static final String CHECKPOINT_FILE = "checkpoint";
+    static final String COMPLETED_FILE = "completed";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int STAGING_BYTES = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long syncIntervalNanos;
+    private final int maxQueuedRecords;
+    private final Map<String, ConversationLog> openLogs = new ConcurrentHashMap<>();
+    private final Thread writerThread;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Guarded by lock
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private int queuedRecords;
+    private boolean closed;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private InsightJournal(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentBytes = builder.segmentBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.syncIntervalMs);
+        this.maxQueuedRecords = builder.maxQueuedRecords;
+        Files.createDirectories(directory);
+        this.writerThread = new Thread(this::writeLoop, "insight-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Open a journal with default settings
+     * @param directory Directory holding one subdirectory per conversation, created if missing
+     * @return journal
+     * @throws IOException if the directory cannot be created
+     */
+    public static InsightJournal open(Path directory) throws IOException {
+        return newBuilder(directory).build();
+    }
+
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    public Path getDirectory() { return directory; }
+    public long getAppendedCount() { return appended.get(); }
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getSyncCount() { return syncs.get(); }
+    public long getCheckpointCount() { return checkpoints.get(); }
+    public long getFailureCount() { return failures.get(); }
+    public int getOpenConversationCount() { return openLogs.size(); }
+
+    /**
+     * Open the log of a conversation for appending. Records already in the directory are kept and
+     * numbering continues after the last intact one; a {@code completed} marker is removed. If
+     * the previous log of the conversation is still being closed, waits until it is.
+     * @param request Request the session is opened with, stored to reopen it after a restart
+     * @return log of the conversation
+     * @throws IOException if the directory or the request file cannot be written
+     */
+    public ConversationLog openConversation(InsightServingRequest request) throws IOException {
+        String conversationId = request.getConversationId();
+        Path dir = directory.resolve(directoryName(conversationId));
+        ConversationLog previous = openLogs.get(conversationId);
+        if (previous != null && previous.closing.get()) {
+            previous.awaitFinished();
+        }
+        synchronized (openLogs) {
+            if (openLogs.containsKey(conversationId)) {
+                throw new IllegalStateException("Conversation " + conversationId + " is already open");
+            }
+            Files.createDirectories(dir);
+            long openedAtMillis = System.currentTimeMillis();
+            long nextSequence = 1;
+            if (Files.exists(dir.resolve(SESSION_FILE))) {
+                // Keep the original open time, it bounds the history the session asked for
+                openedAtMillis = readSession(dir).openedAtMillis;
+                for (LogRecord record : readRecords(dir)) {
+                    nextSequence = record.sequence + 1;
+                }
+            }
+            writeAtomically(dir.resolve(SESSION_FILE), encodeSession(request, openedAtMillis));
+            Files.deleteIfExists(dir.resolve(COMPLETED_FILE));
+            ConversationLog log = new ConversationLog(conversationId, dir, nextSequence);
+            openLogs.put(conversationId, log);
+            return log;
+        }
+    }
+
+    /**
+     * Read the conversations whose sessions did not complete, for example because the process
+     * was killed. Nothing is changed on disk.
+     * @return recovered conversations, in directory order
+     * @throws IOException if the journal directory cannot be listed
+     */
+    public List<RecoveredConversation> recover() throws IOException {
+        List<RecoveredConversation> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                if (!Files.exists(dir.resolve(SESSION_FILE)) || Files.exists(dir.resolve(COMPLETED_FILE))) {
+                    continue;
+                }
+                try {
+                    Session session = readSession(dir);
+                    if (openLogs.containsKey(session.request.getConversationId())) {
+                        continue;
+                    }
+                    recovered.add(new RecoveredConversation(session.request, session.openedAtMillis,
+                        readCheckpoint(dir), readRecords(dir)));
+                } catch (IOException e) {
+                    logger.warn("Skipping unreadable journal directory {}", dir, e);
+                }
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * Delete the directories of completed conversations
+     * @return number of conversations deleted
+     * @throws IOException if the journal directory cannot be listed
+     */
+    public int purgeCompleted() throws IOException {
+        int purged = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                if (!Files.exists(dir.resolve(COMPLETED_FILE))) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Hand a task to the writer
+     * @return false if the journal is closed and the task was not queued
+     */
+    private boolean enqueue(Task task) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (task.record != null) {
+                while (queuedRecords >= maxQueuedRecords && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return false;
+                }
+                // Numbered under the lock so sequence order is queue order
+                task.sequence = task.log.nextSequence++;
+                queuedRecords++;
+            }
+            queue.add(task);
+            if (queue.size() == 1) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<Task> batch = new ArrayList<>();
+        // Logs written to or checkpointed since the last sync
+        Set<ConversationLog> dirty = new HashSet<>();
+        long lastSync = System.nanoTime();
+
+        while (true) {
+            boolean exit;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    if (dirty.isEmpty()) {
+                        notEmpty.awaitUninterruptibly();
+                        continue;
+                    }
+                    long waitNanos = syncIntervalNanos - (System.nanoTime() - lastSync);
+                    if (waitNanos <= 0) {
+                        break;
+                    }
+                    try {
+                        notEmpty.awaitNanos(waitNanos);
+                    } catch (InterruptedException e) {
+                        // Only close() stops the writer
+                    }
+                }
+                batch.addAll(queue);
+                queue.clear();
+                queuedRecords = 0;
+                notFull.signalAll();
+                exit = closed;
+            } finally {
+                lock.unlock();
+            }
+
+            List<Task> closing = null;
+            for (Task task : batch) {
+                dirty.add(task.log);
+                if (task.record != null) {
+                    task.log.write(task.sequence, task.record);
+                } else if (task.close) {
+                    if (closing == null) {
+                        closing = new ArrayList<>();
+                    }
+                    closing.add(task);
+                }
+                // Checkpoint tasks only mark the log dirty
+            }
+            batch.clear();
+
+            long now = System.nanoTime();
+            if (!dirty.isEmpty() && (exit || closing != null || now - lastSync >= syncIntervalNanos)) {
+                for (ConversationLog log : dirty) {
+                    log.sync();
+                }
+                syncs.incrementAndGet();
+                dirty.clear();
+                lastSync = now;
+            }
+            if (closing != null) {
+                for (Task task : closing) {
+                    task.log.finish(task.markCompleted);
+                }
+            }
+            if (exit) {
+                for (ConversationLog log : openLogs.values()) {
+                    log.finish(false);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write everything queued, force it to disk with the pending checkpoints and stop the writer.
+     * Open conversation logs are closed without being marked completed, so they are recovered.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The append side of one conversation in the journal
+     */
+    public final class ConversationLog {
+        private final String conversationId;
+        private final Path dir;
+        private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private final CountDownLatch finishedLatch = new CountDownLatch(1);
+        private volatile Checkpoint delivered;
+
+        // Guarded by the journal lock
+        private long nextSequence;
+
+        // Only touched by the writer thread
+        private final ByteBuffer staging = ByteBuffer.allocate(STAGING_BYTES);
+        private FileChannel segment;
+        private long segmentSize;
+        private long writtenSequence;
+        private long syncedSequence;
+        private Checkpoint writtenCheckpoint;
+        private IOException failure;
+        private boolean finished;
+
+        private ConversationLog(String conversationId, Path dir, long nextSequence) {
+            this.conversationId = conversationId;
+            this.dir = dir;
+            this.nextSequence = nextSequence;
+            this.writtenSequence = nextSequence - 1;
+            this.syncedSequence = nextSequence - 1;
+        }
+
+        public String getConversationId() { return conversationId; }
+
+        /**
+         * Queue an insight for the log. Returns once it is queued, not once it is on disk; blocks
+         * only while the writer is behind by more than the configured number of records.
+         * @param insight Insight as received
+         * @return sequence number of the record, or -1 if the journal is closed and the insight
+         *         was not logged
+         */
+        public long append(InsightServingResponse insight) {
+            Task task = new Task(this);
+            task.record = encodeRecord(insight);
+            if (!enqueue(task)) {
+                return -1;
+            }
+            appended.incrementAndGet();
+            return task.sequence;
+        }
+
+        /**
+         * Record that an insight was handed to the application. The checkpoint reaches the disk
+         * with the next sync that covers the record.
+         * @param sequence Sequence number returned by {@link #append}
+         * @param insight The delivered insight
+         */
+        public void markDelivered(long sequence, InsightServingResponse insight) {
+            Checkpoint current = delivered;
+            if (current != null && current.sequence >= sequence) {
+                return;
+            }
+            delivered = new Checkpoint(sequence, insight.getUtteranceId(), insight.getPublishTimestamp());
+            if (checkpointQueued.compareAndSet(false, true)) {
+                if (!enqueue(new Task(this))) {
+                    checkpointQueued.set(false);
+                }
+            }
+        }
+
+        /**
+         * Mark the conversation completed once everything queued is on disk. A completed
+         * conversation is not recovered.
+         */
+        public void complete() {
+            close(true);
+        }
+
+        /**
+         * Close the log once everything queued is on disk, without marking the conversation
+         * completed, e.g. because its session failed. The conversation stays recoverable and can
+         * be opened again.
+         */
+        public void release() {
+            close(false);
+        }
+
+        private void close(boolean markCompleted) {
+            if (!closing.compareAndSet(false, true)) {
+                return;
+            }
+            Task task = new Task(this);
+            task.close = true;
+            task.markCompleted = markCompleted;
+            if (!enqueue(task)) {
+                // The writer finishes every open log when it stops
+                logger.debug("Journal closed before conversation {} was closed", conversationId);
+            }
+        }
+
+        private void awaitFinished() throws IOException {
+            try {
+                finishedLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while conversation " + conversationId + " was closing");
+            }
+        }
+
+        // Writer thread only
+        private void write(long sequence, byte[] record) {
+            if (failure != null || finished) {
+                return;
+            }
+            try {
+                if (segment == null || (segmentSize > 0 && segmentSize + record.length > segmentBytes)) {
+                    roll(sequence);
+                }
+                if (record.length > staging.remaining()) {
+                    flushStaging();
+                }
+                if (record.length > staging.capacity()) {
+                    writeFully(ByteBuffer.wrap(record));
+                } else {
+                    staging.put(record);
+                }
+                segmentSize += record.length;
+                writtenSequence = sequence;
+                bytesWritten.addAndGet(record.length);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        // Writer thread only
+        private void roll(long firstSequence) throws IOException {
+            if (segment != null) {
+                flushStaging();
+                segment.force(false);
+                segment.close();
+                syncedSequence = writtenSequence;
+            }
+            // A file of this name can only hold a record torn by a crash, nothing after it survived
+            segment = FileChannel.open(dir.resolve(segmentName(firstSequence)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segmentSize = 0;
+        }
+
+        // Writer thread only
+        private void sync() {
+            if (failure != null) {
+                return;
+            }
+            try {
+                if (segment != null && syncedSequence < writtenSequence) {
+                    flushStaging();
+                    segment.force(false);
+                    syncedSequence = writtenSequence;
+                }
+                checkpointQueued.set(false);
+                Checkpoint checkpoint = delivered;
+                if (checkpoint != null && checkpoint != writtenCheckpoint && checkpoint.sequence <= syncedSequence) {
+                    writeAtomically(dir.resolve(CHECKPOINT_FILE), encodeCheckpoint(checkpoint));
+                    writtenCheckpoint = checkpoint;
+                    checkpoints.incrementAndGet();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        // Writer thread only
+        private void finish(boolean markCompleted) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                if (segment != null) {
+                    segment.close();
+                    segment = null;
+                }
+                if (markCompleted && failure == null) {
+                    writeAtomically(dir.resolve(COMPLETED_FILE), new byte[0]);
+                }
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                openLogs.remove(conversationId, this);
+                finishedLatch.countDown();
+            }
+        }
+
+        private void flushStaging() throws IOException {
+            staging.flip();
+            writeFully(staging);
+            staging.clear();
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+        }
+
+        private void fail(IOException e) {
+            // Later records are dropped rather than written after a gap
+            failure = e;
+            failures.incrementAndGet();
+            logger.error("Journal of conversation {} failed, no further insights are logged", conversationId, e);
+        }
+    }
+
+    /**
+     * The last insight handed to the application before a checkpoint was written
+     */
+    public static final class Checkpoint {
+        private final long sequence;
+        private final String utteranceId;
+        private final long publishTimestamp;
+
+        Checkpoint(long sequence, String utteranceId, long publishTimestamp) {
+            this.sequence = sequence;
+            this.utteranceId = utteranceId;
+            this.publishTimestamp = publishTimestamp;
+        }
+
+        public long getSequence() { return sequence; }
+        public String getUtteranceId() { return utteranceId; }
+        public long getPublishTimestamp() { return publishTimestamp; }
+    }
+
+    /**
+     * A logged insight and its sequence number
+     */
+    public static final class LogRecord {
+        private final long sequence;
+        private final InsightServingResponse insight;
+
+        LogRecord(long sequence, InsightServingResponse insight) {
+            this.sequence = sequence;
+            this.insight = insight;
+        }
+
+        public long getSequence() { return sequence; }
+        public InsightServingResponse getInsight() { return insight; }
+    }
+
+    /**
+     * What the journal holds for a conversation whose session did not complete
+     */
+    public static final class RecoveredConversation {
+        private final InsightServingRequest request;
+        private final long openedAtMillis;
+        private final Checkpoint checkpoint;
+        private final List<LogRecord> records;
+
+        RecoveredConversation(InsightServingRequest request, long openedAtMillis,
+                              Checkpoint checkpoint, List<LogRecord> records) {
+            this.request = request;
+            this.openedAtMillis = openedAtMillis;
+            this.checkpoint = checkpoint;
+            this.records = Collections.unmodifiableList(records);
+        }
+
+        public InsightServingRequest getRequest() { return request; }
+        public String getConversationId() { return request.getConversationId(); }
+        public long getOpenedAtMillis() { return openedAtMillis; }
+        /** Last checkpoint on disk, null if none was written */
+        public Checkpoint getCheckpoint() { return checkpoint; }
+        /** Every intact record, in sequence order */
+        public List<LogRecord> getRecords() { return records; }
+
+        /**
+         * Get the records logged after the checkpoint. Some of them may have reached the
+         * application already, the checkpoint lags delivery by up to one sync interval.
+         * @return records not covered by the checkpoint
+         */
+        public List<LogRecord> getUndelivered() {
+            long delivered = checkpoint != null ? checkpoint.sequence : 0;
+            List<LogRecord> undelivered = new ArrayList<>();
+            for (LogRecord record : records) {
+                if (record.sequence > delivered) {
+                    undelivered.add(record);
+                }
+            }
+            return undelivered;
+        }
+    }
+
+    /**
+     * Queued work for the writer: a record, a checkpoint or the closing of a log
+     */
+    private static final class Task {
+        final ConversationLog log;
+        byte[] record;
+        long sequence;
+        boolean close;
+        boolean markCompleted;
+
+        Task(ConversationLog log) {
+            this.log = log;
+        }
+    }
+
+    private static final class Session {
+        final InsightServingRequest request;
+        final long openedAtMillis;
+
+        Session(InsightServingRequest request, long openedAtMillis) {
+            this.request = request;
+            this.openedAtMillis = openedAtMillis;
+        }
+    }
+
+    static String directoryName(String conversationId) {
+        return conversationId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Serialize a record on the caller's thread, keeping the writer thread to plain I/O
+     */
+    private static byte[] encodeRecord(InsightServingResponse insight) {
+        int size = insight.getSerializedSize();
+        byte[] record = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size + 4];
+        try {
+            // Covers the length prefix and the message, the CRC is added below
+            CodedOutputStream out = CodedOutputStream.newInstance(record, 0, record.length - 4);
+            out.writeUInt32NoTag(size);
+            insight.writeTo(out);
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize insight", e);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record, record.length - 4 - size, size);
+        ByteBuffer.wrap(record, record.length - 4, 4).putInt((int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Read the intact records of every segment. A segment ends at its first torn or corrupt
+     * record, which can only be the last one written before a crash.
+     */
+    static List<LogRecord> readRecords(Path dir) throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file {}", file);
+                }
+            }
+        }
+        List<LogRecord> records = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            long sequence = segment.getKey();
+            try (InputStream in = Files.newInputStream(segment.getValue())) {
+                CodedInputStream coded = CodedInputStream.newInstance(in);
+                coded.setSizeLimit(Integer.MAX_VALUE);
+                while (!coded.isAtEnd()) {
+                    int size = coded.readUInt32();
+                    if (size < 0 || size > MAX_RECORD_BYTES) {
+                        throw new IOException("Bad record length " + size);
+                    }
+                    byte[] message = coded.readRawBytes(size);
+                    int expected = ByteBuffer.wrap(coded.readRawBytes(4)).getInt();
+                    crc.reset();
+                    crc.update(message);
+                    if ((int) crc.getValue() != expected) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                    records.add(new LogRecord(sequence++, InsightServingResponse.parseFrom(message)));
+                    coded.resetSizeCounter();
+                }
+            } catch (IOException e) {
+                logger.warn("Journal segment {} ends with a damaged record after sequence {}: {}",
+                    segment.getValue(), sequence - 1, e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    private static byte[] encodeSession(InsightServingRequest request, long openedAtMillis) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(openedAtMillis);
+        request.writeDelimitedTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Session readSession(Path dir) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(dir.resolve(SESSION_FILE)))) {
+            checkVersion(in.readInt());
+            long openedAtMillis = in.readLong();
+            InsightServingRequest request = InsightServingRequest.parseDelimitedFrom(in);
+            if (request == null) {
+                throw new EOFException("Session file has no request");
+            }
+            return new Session(request, openedAtMillis);
+        }
+    }
+
+    private static byte[] encodeCheckpoint(Checkpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(checkpoint.sequence);
+        out.writeLong(checkpoint.publishTimestamp);
+        out.writeUTF(checkpoint.utteranceId);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Checkpoint readCheckpoint(Path dir) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            checkVersion(in.readInt());
+            long sequence = in.readLong();
+            long publishTimestamp = in.readLong();
+            return new Checkpoint(sequence, in.readUTF(), publishTimestamp);
+        }
+    }
+
+    private static void checkVersion(int version) throws IOException {
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported journal format version " + version);
+        }
+    }
+
+    /**
+     * Replace a file so that readers see either the old or the new content, never a mix
+     */
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static class Builder {
+        private final Path directory;
+        private long segmentBytes = 64L * 1024 * 1024; // 64 MiB
+        private long syncIntervalMs = 50;
+        private int maxQueuedRecords = 65_536;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Size after which a new segment file is started
+         */
+        public Builder setSegmentBytes(long segmentBytes) {
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        /**
+         * Longest time between two syncs while records are pending; bounds what a crash can lose
+         * from the log and how far checkpoints lag delivery
+         */
+        public Builder setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+            return this;
+        }
+
+        /**
+         * Records queued but not yet written after which appends block
+         */
+        public Builder setMaxQueuedRecords(int maxQueuedRecords) {
+            this.maxQueuedRecords = maxQueuedRecords;
+            return this;
+        }
+
+        public InsightJournal build() throws IOException {
+            if (segmentBytes < STAGING_BYTES) {
+                throw new IllegalArgumentException("segmentBytes must be at least " + STAGING_BYTES);
+            }
+            if (syncIntervalMs < 0 || maxQueuedRecords < 1) {
+                throw new IllegalArgumentException("Invalid journal settings");
+            }
+            return new InsightJournal(this);
+        }
+    }
+}
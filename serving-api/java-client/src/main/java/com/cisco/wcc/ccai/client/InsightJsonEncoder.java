@@ -0,0 +1,330 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Messages.Message;
+import com.cisco.wcc.ccai.v1.Recognize.Duration;
+import com.cisco.wcc.ccai.v1.Recognize.SpeechRecognitionAlternative;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.Recognize.WordInfo;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.cisco.wcc.ccai.v1.Suggestions.AgentAnswer;
+import com.cisco.wcc.ccai.v1.Suggestions.Answer;
+import com.cisco.wcc.ccai.v1.Suggestions.range;
+import com.cisco.wcc.ccai.v1.Virtualagent.Entity;
+import com.cisco.wcc.ccai.v1.Virtualagent.NLU;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoder for {@link StreamingInsightServingResponse}.
+ * <p>
+ * Fields are written straight from the protobuf getters through a Jackson {@link JsonGenerator},
+ * using the lowerCamelCase names of the proto3 JSON mapping and enum names for enums. Each thread
+ * keeps its own generator and byte buffer, so encoding allocates no intermediate String or
+ * tree and runs in parallel on the threads delivering insights. 64-bit integers are written as
+ * JSON numbers rather than the strings the canonical proto3 mapping uses.
+ */
+public final class InsightJsonEncoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    // Buffers grown by an unusually large message are dropped instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<LineBuffer> BUFFERS = new ThreadLocal<>();
+
+    private InsightJsonEncoder() {
+    }
+
+    /**
+     * Encode a response as one line of JSON into the calling thread's buffer.
+     * The returned buffer is only valid until the next call on the same thread.
+     * @param response Response to encode
+     * @return buffer holding the JSON object followed by a newline
+     * @throws IOException if encoding fails
+     */
+    public static LineBuffer encodeLine(StreamingInsightServingResponse response) throws IOException {
+        LineBuffer buffer = BUFFERS.get();
+        if (buffer == null || buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new LineBuffer();
+            BUFFERS.set(buffer);
+        }
+        buffer.reset();
+        try {
+            write(response, buffer.generator);
+            buffer.generator.flush();
+        } catch (IOException | RuntimeException e) {
+            // The generator may be left mid-object, start over on the next call
+            BUFFERS.remove();
+            throw e;
+        }
+        buffer.write('\n');
+        return buffer;
+    }
+
+    /**
+     * Encode a response as one line of JSON to an output stream
+     * @param response Response to encode
+     * @param out Destination
+     * @throws IOException if encoding or writing fails
+     */
+    public static void encodeLine(StreamingInsightServingResponse response, OutputStream out) throws IOException {
+        encodeLine(response).writeTo(out);
+    }
+
+    /**
+     * Write a response as a JSON object to a generator
+     * @param response Response to write
+     * @param gen Destination generator
+     * @throws IOException if writing fails
+     */
+    public static void write(StreamingInsightServingResponse response, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        if (response.hasInsightServingResponse()) {
+            gen.writeFieldName("insightServingResponse");
+            writeInsight(response.getInsightServingResponse(), gen);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeInsight(InsightServingResponse insight, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("orgId", insight.getOrgId());
+        gen.writeStringField("conversationId", insight.getConversationId());
+        gen.writeStringField("roleId", insight.getRoleId());
+        gen.writeStringField("utteranceId", insight.getUtteranceId());
+        gen.writeStringField("role", insight.getRole().name());
+        gen.writeStringField("insightType", insight.getInsightType().name());
+        gen.writeStringField("insightProvider", insight.getInsightProvider().name());
+        gen.writeNumberField("publishTimestamp", insight.getPublishTimestamp());
+        gen.writeNumberField("startTimestamp", insight.getStartTimestamp());
+        gen.writeNumberField("endTimestamp", insight.getEndTimestamp());
+        gen.writeBooleanField("isFinal", insight.getIsFinal());
+        writeNonEmpty(gen, "messageId", insight.getMessageId());
+        writeNonEmpty(gen, "configId", insight.getConfigId());
+        writeNonEmpty(gen, "languageCode", insight.getLanguageCode());
+        if (insight.hasResponseContent()) {
+            gen.writeFieldName("responseContent");
+            writeContent(insight.getResponseContent(), gen);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeContent(ResponseContent content, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        switch (content.getStreamResponseContentCase()) {
+            case RAWCONTENT:
+                gen.writeStringField("rawContent", content.getRawContent());
+                break;
+            case RECOGNITIONRESULT:
+                gen.writeFieldName("recognitionResult");
+                writeRecognition(content.getRecognitionResult(), gen);
+                break;
+            case AGENTANSWERRESULT:
+                gen.writeFieldName("agentAnswerResult");
+                writeAgentAnswer(content.getAgentAnswerResult(), gen);
+                break;
+            case MESSAGERESULT:
+                gen.writeFieldName("messageResult");
+                writeMessage(content.getMessageResult(), gen);
+                break;
+            case VIRTUALAGENTRESULT:
+                gen.writeFieldName("virtualAgentResult");
+                writeNlu(content.getVirtualAgentResult(), gen);
+                break;
+            default:
+                break;
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeRecognition(StreamingRecognitionResult result, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("alternatives");
+        for (SpeechRecognitionAlternative alternative : result.getAlternativesList()) {
+            gen.writeStartObject();
+            gen.writeStringField("transcript", alternative.getTranscript());
+            gen.writeNumberField("confidence", alternative.getConfidence());
+            if (alternative.getWordsCount() > 0) {
+                gen.writeArrayFieldStart("words");
+                for (WordInfo word : alternative.getWordsList()) {
+                    gen.writeStartObject();
+                    gen.writeStringField("word", word.getWord());
+                    if (word.hasStartTime()) {
+                        writeDuration(gen, "startTime", word.getStartTime());
+                    }
+                    if (word.hasEndTime()) {
+                        writeDuration(gen, "endTime", word.getEndTime());
+                    }
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeBooleanField("isFinal", result.getIsFinal());
+        if (result.hasResultEndTime()) {
+            writeDuration(gen, "resultEndTime", result.getResultEndTime());
+        }
+        gen.writeNumberField("channelTag", result.getChannelTag());
+        writeNonEmpty(gen, "languageCode", result.getLanguageCode());
+        if (result.getHasAppliedRecordingOffsets()) {
+            gen.writeBooleanField("hasAppliedRecordingOffsets", true);
+        }
+        if (result.getSpeakerIdsCount() > 0) {
+            gen.writeArrayFieldStart("speakerIds");
+            for (int i = 0; i < result.getSpeakerIdsCount(); i++) {
+                gen.writeNumber(Integer.toUnsignedLong(result.getSpeakerIds(i)));
+            }
+            gen.writeEndArray();
+        }
+        if (result.getLastPacketMetricsUnixTimestampMs() != 0) {
+            gen.writeNumberField("lastPacketMetricsUnixTimestampMs", result.getLastPacketMetricsUnixTimestampMs());
+        }
+        writeNonEmpty(gen, "messageType", result.getMessageType());
+        gen.writeStringField("responseEvent", result.getResponseEvent().name());
+        gen.writeStringField("role", result.getRole().name());
+        gen.writeEndObject();
+    }
+
+    private static void writeAgentAnswer(AgentAnswer agentAnswer, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("answers");
+        for (Answer answer : agentAnswer.getAnswersList()) {
+            gen.writeStartObject();
+            writeNonEmpty(gen, "title", answer.getTitle());
+            writeNonEmpty(gen, "uri", answer.getUri());
+            writeStrings(gen, "snippets", answer.getSnippetsList());
+            writeNonEmpty(gen, "description", answer.getDescription());
+            gen.writeNumberField("confidence", answer.getConfidence());
+            writeNonEmpty(gen, "source", answer.getSource());
+            writeMap(gen, "metadata", answer.getMetadataMap());
+            writeNonEmpty(gen, "answerRecord", answer.getAnswerRecord());
+            if (answer.getHighlightCount() > 0) {
+                gen.writeArrayFieldStart("highlight");
+                for (range highlight : answer.getHighlightList()) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("start", highlight.getStart());
+                    gen.writeNumberField("end", highlight.getEnd());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        writeStrings(gen, "tags", agentAnswer.getTagsList());
+        gen.writeEndObject();
+    }
+
+    private static void writeMessage(Message message, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("id", message.getId());
+        gen.writeStringField("content", message.getContent());
+        gen.writeStringField("senderId", message.getSenderId());
+        gen.writeStringField("senderName", message.getSenderName());
+        gen.writeNumberField("timestamp", message.getTimestamp());
+        gen.writeStringField("type", message.getType().name());
+        writeMap(gen, "metadata", message.getMetadataMap());
+        gen.writeEndObject();
+    }
+
+    private static void writeNlu(NLU nlu, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("intent", nlu.getIntent());
+        gen.writeNumberField("confidence", nlu.getConfidence());
+        if (nlu.getEntitiesCount() > 0) {
+            gen.writeArrayFieldStart("entities");
+            for (Entity entity : nlu.getEntitiesList()) {
+                gen.writeStartObject();
+                gen.writeStringField("type", entity.getType());
+                gen.writeStringField("value", entity.getValue());
+                gen.writeNumberField("confidence", entity.getConfidence());
+                gen.writeNumberField("startOffset", entity.getStartOffset());
+                gen.writeNumberField("endOffset", entity.getEndOffset());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeStringField("queryText", nlu.getQueryText());
+        writeNonEmpty(gen, "languageCode", nlu.getLanguageCode());
+        writeMap(gen, "parameters", nlu.getParametersMap());
+        gen.writeBooleanField("allRequiredParamsPresent", nlu.getAllRequiredParamsPresent());
+        gen.writeStringField("fulfillmentText", nlu.getFulfillmentText());
+        gen.writeEndObject();
+    }
+
+    private static void writeDuration(JsonGenerator gen, String name, Duration duration) throws IOException {
+        gen.writeObjectFieldStart(name);
+        gen.writeNumberField("seconds", duration.getSeconds());
+        gen.writeNumberField("nanos", duration.getNanos());
+        gen.writeEndObject();
+    }
+
+    private static void writeNonEmpty(JsonGenerator gen, String name, String value) throws IOException {
+        if (!value.isEmpty()) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    private static void writeStrings(JsonGenerator gen, String name, List<String> values) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        gen.writeArrayFieldStart(name);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeMap(JsonGenerator gen, String name, Map<String, String> values) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        gen.writeObjectFieldStart(name);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            gen.writeStringField(entry.getKey(), entry.getValue());
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Per-thread byte buffer with a generator bound to it
+     */
+    public static final class LineBuffer extends ByteArrayOutputStream {
+        private final JsonGenerator generator;
+
+        private LineBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+            try {
+                generator = JSON_FACTORY.createGenerator(this, JsonEncoding.UTF8);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create JSON generator", e);
+            }
+            // Lines are separated explicitly, not by the generator's root value separator
+            generator.setRootValueSeparator(null);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        /**
+         * Get the backing array; only the first {@link #size()} bytes are valid
+         * @return backing array
+         */
+        public byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+
+import java.util.Objects;
+
+/**
+ * Identifies one one-time insights lookup: a conversation (optionally narrowed to an
+ * interaction), the organization it belongs to and the insight type.
+ */
+public final class InsightKey {
+
+    private final String conversationId;
+    private final String messageId;
+    private final String orgId;
+    private final InsightsServingRequest.InsightType insightType;
+
+    private InsightKey(String conversationId, String messageId, String orgId,
+                       InsightsServingRequest.InsightType insightType) {
+        this.conversationId = Objects.requireNonNull(conversationId, "conversationId");
+        this.messageId = messageId == null ? "" : messageId;
+        this.orgId = Objects.requireNonNull(orgId, "orgId");
+        this.insightType = Objects.requireNonNull(insightType, "insightType");
+    }
+
+    /**
+     * Create a key for the insights of a conversation
+     * @param conversationId Conversation ID
+     * @param orgId Organization ID
+     * @param insightType Type of insight to retrieve
+     * @return key
+     */
+    public static InsightKey of(String conversationId, String orgId, InsightsServingRequest.InsightType insightType) {
+        return new InsightKey(conversationId, "", orgId, insightType);
+    }
+
+    /**
+     * Create a key for the insights of an interaction
+     * @param conversationId Conversation ID
+     * @param interactionId Interaction ID (message ID)
+     * @param orgId Organization ID
+     * @param insightType Type of insight to retrieve
+     * @return key
+     */
+    public static InsightKey ofInteraction(String conversationId, String interactionId, String orgId,
+                                           InsightsServingRequest.InsightType insightType) {
+        return new InsightKey(conversationId, interactionId, orgId, insightType);
+    }
+
+    public String getConversationId() { return conversationId; }
+    public String getMessageId() { return messageId; }
+    public String getOrgId() { return orgId; }
+    public InsightsServingRequest.InsightType getInsightType() { return insightType; }
+
+    /**
+     * Build the request for this key
+     * @return InsightsServingRequest
+     */
+    public InsightsServingRequest toRequest() {
+        InsightsServingRequest.Builder builder = InsightsServingRequest.newBuilder()
+            .setConversationId(conversationId)
+            .setOrgId(orgId)
+            .setInsightType(insightType);
+        if (!messageId.isEmpty()) {
+            builder.setMessageId(messageId);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InsightKey)) {
+            return false;
+        }
+        InsightKey other = (InsightKey) o;
+        return conversationId.equals(other.conversationId)
+            && messageId.equals(other.messageId)
+            && orgId.equals(other.orgId)
+            && insightType == other.insightType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conversationId, messageId, orgId, insightType);
+    }
+
+    @Override
+    public String toString() {
+        return "InsightKey{conversationId=" + conversationId
+            + (messageId.isEmpty() ? "" : ", messageId=" + messageId)
+            + ", orgId=" + orgId + ", insightType=" + insightType + "}";
+    }
+}
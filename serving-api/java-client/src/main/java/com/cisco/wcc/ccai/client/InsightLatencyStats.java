@@ -0,0 +1,232 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * End-to-end latency of received insights, broken down by insight type, role and finality.
+ * <p>
+ * For every insight the following {@link Stage}s are recorded into a {@link LatencyHistogram}:
+ * publish time to local receipt, end of speech to local receipt (when the server sets
+ * {@code endTimestamp}), receipt to handler completion, and publish time to handler completion.
+ * Server timestamps are compared with the local wall clock, so stages starting at a server
+ * timestamp include any clock skew; {@link #getEstimatedClockSkewMs()} gives an estimate of it.
+ * Histograms are created on first use. Stats of a session also feed those of its client.
+ */
+public class InsightLatencyStats {
+
+    /**
+     * Measured interval
+     */
+    public enum Stage {
+        /** publishTimestamp to local receipt */
+        PUBLISH_TO_RECEIPT,
+        /** endTimestamp (end of the speech interval) to local receipt */
+        SPEECH_END_TO_RECEIPT,
+        /** Local receipt to response handler completion, including time spent queued */
+        RECEIPT_TO_HANDLED,
+        /** publishTimestamp to response handler completion */
+        PUBLISH_TO_HANDLED
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final InsightServingResponse.ServiceType[] TYPES = {
+        InsightServingResponse.ServiceType.DEFAULT_TRANSCRIPTION,
+        InsightServingResponse.ServiceType.AGENT_ANSWERS,
+        InsightServingResponse.ServiceType.TRANSCRIPTION,
+        InsightServingResponse.ServiceType.VIRTUAL_AGENT,
+        InsightServingResponse.ServiceType.MESSAGE
+    };
+    private static final InsightServingResponse.Role[] ROLES = {
+        InsightServingResponse.Role.IVR,
+        InsightServingResponse.Role.CALLER,
+        InsightServingResponse.Role.AGENT
+    };
+    // One extra slot each for values added to the proto after this client was built
+    private static final int TYPE_SLOTS = TYPES.length + 1;
+    private static final int ROLE_SLOTS = ROLES.length + 1;
+    private static final int KEY_SLOTS = TYPE_SLOTS * ROLE_SLOTS * 2;
+
+    private final InsightLatencyStats parent;
+    private final AtomicReferenceArray<LatencyHistogram> histograms =
+        new AtomicReferenceArray<>(KEY_SLOTS * STAGES.length);
+    // Smallest receipt minus publish time seen: network floor plus clock skew
+    private final LongAccumulator minPublishToReceiptMs = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    /**
+     * Create stats not attached to a parent
+     */
+    public InsightLatencyStats() {
+        this(null);
+    }
+
+    /**
+     * Create stats that also record into a parent
+     * @param parent Stats receiving every recording as well, may be null
+     */
+    public InsightLatencyStats(InsightLatencyStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Record the latencies of one insight
+     * @param insight Received insight
+     * @param receivedAtMillis Local wall clock time of receipt
+     * @param receivedNanos {@link System#nanoTime()} at receipt
+     * @param handledNanos {@link System#nanoTime()} when the response handler returned
+     */
+    public void record(InsightServingResponse insight, long receivedAtMillis, long receivedNanos, long handledNanos) {
+        int key = keyIndex(insight.getInsightTypeValue(), insight.getRoleValue(), insight.getIsFinal());
+        long handlerMicros = (handledNanos - receivedNanos) / 1000;
+        histogram(key, Stage.RECEIPT_TO_HANDLED).record(handlerMicros);
+
+        long publish = insight.getPublishTimestamp();
+        if (publish > 0) {
+            long publishToReceiptMs = receivedAtMillis - publish;
+            histogram(key, Stage.PUBLISH_TO_RECEIPT).record(publishToReceiptMs * 1000);
+            histogram(key, Stage.PUBLISH_TO_HANDLED).record(publishToReceiptMs * 1000 + handlerMicros);
+            minPublishToReceiptMs.accumulate(publishToReceiptMs);
+        }
+        long end = insight.getEndTimestamp();
+        if (end > 0) {
+            histogram(key, Stage.SPEECH_END_TO_RECEIPT).record((receivedAtMillis - end) * 1000);
+        }
+
+        if (parent != null) {
+            parent.record(insight, receivedAtMillis, receivedNanos, handledNanos);
+        }
+    }
+
+    /**
+     * Estimate how far the local clock is ahead of the server clock, as the smallest observed
+     * difference between receipt and publish time. This includes the fastest network transit,
+     * so it is an upper bound of the skew; a negative value means the server clock is ahead.
+     * @return estimated skew in milliseconds, 0 before the first insight
+     */
+    public long getEstimatedClockSkewMs() {
+        long min = minPublishToReceiptMs.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    /**
+     * Get the histogram of one stage for one kind of insight
+     * @param stage Measured interval
+     * @param insightType Insight type
+     * @param role Role
+     * @param isFinal Whether final or interim insights
+     * @return snapshot, empty if nothing was recorded
+     */
+    public LatencyHistogram.Snapshot getSnapshot(Stage stage, InsightServingResponse.ServiceType insightType,
+                                                 InsightServingResponse.Role role, boolean isFinal) {
+        int typeValue = insightType == InsightServingResponse.ServiceType.UNRECOGNIZED ? -1 : insightType.getNumber();
+        int roleValue = role == InsightServingResponse.Role.UNRECOGNIZED ? -1 : role.getNumber();
+        LatencyHistogram histogram = histograms.get(slot(keyIndex(typeValue, roleValue, isFinal), stage));
+        return histogram == null ? LatencyHistogram.Snapshot.empty() : histogram.snapshot();
+    }
+
+    /**
+     * Get the histogram of one stage across all kinds of insights
+     * @param stage Measured interval
+     * @return merged snapshot
+     */
+    public LatencyHistogram.Snapshot getSnapshot(Stage stage) {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty();
+        for (int key = 0; key < KEY_SLOTS; key++) {
+            LatencyHistogram histogram = histograms.get(slot(key, stage));
+            if (histogram != null) {
+                merged = merged.merge(histogram.snapshot());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Get one line per stage and kind of insight that has recordings
+     * @return breakdown entries
+     */
+    public List<Entry> getBreakdown() {
+        List<Entry> entries = new ArrayList<>();
+        for (int key = 0; key < KEY_SLOTS; key++) {
+            for (Stage stage : STAGES) {
+                LatencyHistogram histogram = histograms.get(slot(key, stage));
+                if (histogram != null) {
+                    int typeSlot = key / (ROLE_SLOTS * 2);
+                    int roleSlot = (key / 2) % ROLE_SLOTS;
+                    entries.add(new Entry(
+                        stage,
+                        typeSlot < TYPES.length ? TYPES[typeSlot] : InsightServingResponse.ServiceType.UNRECOGNIZED,
+                        roleSlot < ROLES.length ? ROLES[roleSlot] : InsightServingResponse.Role.UNRECOGNIZED,
+                        (key & 1) != 0,
+                        histogram.snapshot()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append("estimated clock skew: ").append(getEstimatedClockSkewMs()).append(" ms\n");
+        for (Entry entry : getBreakdown()) {
+            out.append(entry).append('\n');
+        }
+        return out.toString();
+    }
+
+    private LatencyHistogram histogram(int key, Stage stage) {
+        int slot = slot(key, stage);
+        LatencyHistogram histogram = histograms.get(slot);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.compareAndSet(slot, null, created) ? created : histograms.get(slot);
+        }
+        return histogram;
+    }
+
+    private static int slot(int key, Stage stage) {
+        return key * STAGES.length + stage.ordinal();
+    }
+
+    private static int keyIndex(int typeValue, int roleValue, boolean isFinal) {
+        int typeSlot = typeValue >= 0 && typeValue < TYPES.length ? typeValue : TYPES.length;
+        int roleSlot = roleValue >= 0 && roleValue < ROLES.length ? roleValue : ROLES.length;
+        return (typeSlot * ROLE_SLOTS + roleSlot) * 2 + (isFinal ? 1 : 0);
+    }
+
+    /**
+     * Latency of one stage for one kind of insight
+     */
+    public static final class Entry {
+        private final Stage stage;
+        private final InsightServingResponse.ServiceType insightType;
+        private final InsightServingResponse.Role role;
+        private final boolean isFinal;
+        private final LatencyHistogram.Snapshot snapshot;
+
+        Entry(Stage stage, InsightServingResponse.ServiceType insightType, InsightServingResponse.Role role,
+              boolean isFinal, LatencyHistogram.Snapshot snapshot) {
+            this.stage = stage;
+            this.insightType = insightType;
+            this.role = role;
+            this.isFinal = isFinal;
+            this.snapshot = snapshot;
+        }
+
+        public Stage getStage() { return stage; }
+        public InsightServingResponse.ServiceType getInsightType() { return insightType; }
+        public InsightServingResponse.Role getRole() { return role; }
+        public boolean isFinal() { return isFinal; }
+        public LatencyHistogram.Snapshot getSnapshot() { return snapshot; }
+
+        @Override
+        public String toString() {
+            return String.format("%-21s %-21s %-6s %-7s %s",
+                stage, insightType, role, isFinal ? "final" : "interim", snapshot);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.Duration;
+import com.cisco.wcc.ccai.v1.Recognize.SpeechRecognitionAlternative;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.Recognize.WordInfo;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.cisco.wcc.ccai.v1.Suggestions.AgentAnswer;
+import com.cisco.wcc.ccai.v1.Suggestions.Answer;
+import com.cisco.wcc.ccai.v1.Suggestions.range;
+
+/**
+ * Generates synthetic insights shaped like production traffic, for benchmarks and load tests.
+ * Output is deterministic for a given kind, utterance and revision; interim transcripts of an
+ * utterance grow with each revision towards the text of its final transcript.
+ */
+public final class InsightPayloads {
+
+    /**
+     * Shape of a generated insight
+     */
+    public enum Kind {
+        /** Interim transcript without word timings, a prefix of the final transcript */
+        INTERIM_TRANSCRIPT,
+        /** Final transcript of a full sentence with word timings */
+        FINAL_TRANSCRIPT,
+        /** Agent answer with a single short suggestion */
+        AGENT_ANSWER_SMALL,
+        /** Agent answer with several long suggestions, metadata and highlights */
+        AGENT_ANSWER_LARGE
+    }
+
+    /** Organization of generated insights when none is given */
+    public static final String DEFAULT_ORG_ID = "6a4a5c3e-2e1b-4c7e-9d2f-0b5f3c1e8a77";
+
+    private static final int FINAL_WORDS = 24;
+    private static final int INTERIM_WORDS_PER_REVISION = 6;
+
+    private static final String[] WORDS = {
+        "hello", "thanks", "for", "calling", "my", "internet", "connection", "keeps", "dropping",
+        "since", "yesterday", "could", "you", "please", "check", "the", "router", "account", "number",
+        "is", "seven", "four", "two", "nine", "let", "me", "look", "into", "that", "for", "you"
+    };
+
+    private InsightPayloads() {
+    }
+
+    /**
+     * Generate an insight
+     * @param kind Shape of the insight
+     * @param conversationId Conversation the insight belongs to
+     * @param sequence Sequence number, varies text and identifiers
+     * @return insight
+     */
+    public static StreamingInsightServingResponse create(Kind kind, String conversationId, long sequence) {
+        return create(kind, DEFAULT_ORG_ID, conversationId, sequence / 4, (int) (sequence % 4));
+    }
+
+    /**
+     * Generate an insight for one revision of an utterance
+     * @param kind Shape of the insight
+     * @param orgId Organization the insight belongs to
+     * @param conversationId Conversation the insight belongs to
+     * @param utterance Utterance number, varies text, role and identifiers
+     * @param revision Interim results sent for the utterance before this one
+     * @return insight
+     */
+    public static StreamingInsightServingResponse create(Kind kind, String orgId, String conversationId,
+                                                         long utterance, int revision) {
+        long now = System.currentTimeMillis();
+        boolean caller = utterance % 2 == 0;
+        InsightServingResponse.Builder insight = InsightServingResponse.newBuilder()
+            .setOrgId(orgId)
+            .setConversationId(conversationId)
+            .setRoleId(caller ? "caller-leg-1" : "agent-leg-1")
+            .setUtteranceId(conversationId + "-u" + utterance)
+            .setRole(caller ? InsightServingResponse.Role.CALLER : InsightServingResponse.Role.AGENT)
+            .setInsightProvider(InsightServingResponse.ServiceProvider.GOOGLE)
+            .setPublishTimestamp(now)
+            .setStartTimestamp(now - 2400)
+            .setEndTimestamp(now - 150)
+            .setLanguageCode("en-US");
+
+        switch (kind) {
+            case INTERIM_TRANSCRIPT:
+                insight.setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+                    .setIsFinal(false)
+                    .setResponseContent(ResponseContent.newBuilder()
+                        .setRecognitionResult(transcript(utterance, Math.min(FINAL_WORDS, INTERIM_WORDS_PER_REVISION * (revision + 1)), false)));
+                break;
+            case FINAL_TRANSCRIPT:
+                insight.setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+                    .setIsFinal(true)
+                    .setResponseContent(ResponseContent.newBuilder()
+                        .setRecognitionResult(transcript(utterance, FINAL_WORDS, true)));
+                break;
+            case AGENT_ANSWER_SMALL:
+                insight.setInsightType(InsightServingResponse.ServiceType.AGENT_ANSWERS)
+                    .setIsFinal(true)
+                    .setResponseContent(ResponseContent.newBuilder()
+                        .setAgentAnswerResult(agentAnswer(utterance, 1, 1, false)));
+                break;
+            case AGENT_ANSWER_LARGE:
+                insight.setInsightType(InsightServingResponse.ServiceType.AGENT_ANSWERS)
+                    .setIsFinal(true)
+                    .setResponseContent(ResponseContent.newBuilder()
+                        .setAgentAnswerResult(agentAnswer(utterance, 5, 4, true)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload kind " + kind);
+        }
+        return StreamingInsightServingResponse.newBuilder().setInsightServingResponse(insight).build();
+    }
+
+    private static StreamingRecognitionResult transcript(long utterance, int wordCount, boolean withTimings) {
+        StringBuilder text = new StringBuilder();
+        SpeechRecognitionAlternative.Builder alternative = SpeechRecognitionAlternative.newBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            String word = WORDS[(int) ((utterance + i) % WORDS.length)];
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word);
+            if (withTimings) {
+                long startMs = i * 320L;
+                alternative.addWords(WordInfo.newBuilder()
+                    .setWord(word)
+                    .setStartTime(Duration.newBuilder().setSeconds(startMs / 1000).setNanos((int) (startMs % 1000) * 1_000_000))
+                    .setEndTime(Duration.newBuilder().setSeconds((startMs + 280) / 1000).setNanos((int) ((startMs + 280) % 1000) * 1_000_000)));
+            }
+        }
+        alternative.setTranscript(text.toString()).setConfidence(withTimings ? 0.93f : 0.0f);
+        return StreamingRecognitionResult.newBuilder()
+            .addAlternatives(alternative)
+            .setIsFinal(withTimings)
+            .setLanguageCode("en-US")
+            .setChannelTag(1)
+            .setRole(utterance % 2 == 0 ? StreamingRecognitionResult.Role.CALLER : StreamingRecognitionResult.Role.AGENT)
+            .build();
+    }
+
+    private static AgentAnswer agentAnswer(long sequence, int answerCount, int snippetCount, boolean detailed) {
+        AgentAnswer.Builder agentAnswer = AgentAnswer.newBuilder().addTags("connectivity").addTags("router");
+        for (int a = 0; a < answerCount; a++) {
+            Answer.Builder answer = Answer.newBuilder()
+                .setTitle("Troubleshooting intermittent connection drops (" + (sequence + a) + ")")
+                .setUri("https://kb.example.com/articles/" + (1000 + (sequence + a) % 9000))
+                .setDescription("Steps to diagnose and resolve a connection that drops repeatedly.")
+                .setConfidence(0.9f - a * 0.1f)
+                .setSource("knowledge-base")
+                .setAnswerRecord("answer-record-" + sequence + "-" + a);
+            for (int s = 0; s < snippetCount; s++) {
+                answer.addSnippets("Power cycle the router, wait thirty seconds and check whether the status light "
+                    + "turns solid green. If the connection still drops, verify the line signal levels (step " + s + ").");
+            }
+            if (detailed) {
+                answer.putMetadata("category", "internet")
+                    .putMetadata("locale", "en-US")
+                    .putMetadata("updated", "2024-01-15")
+                    .addHighlight(range.newBuilder().setStart(0).setEnd(18))
+                    .addHighlight(range.newBuilder().setStart(40).setEnd(72));
+            }
+            agentAnswer.addAnswers(answer);
+        }
+        return agentAnswer.build();
+    }
+}
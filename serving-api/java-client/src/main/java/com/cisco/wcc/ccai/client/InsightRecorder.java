@@ -0,0 +1,230 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.CodedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Response handler capturing a stream of insights for later replay with {@link InsightReplayer}.
+ * <p>
+ * Responses are appended to a data file as length-delimited protobuf messages, the format of
+ * {@code writeDelimitedTo}, so other protobuf tooling can read it too. A small index file next to
+ * it ({@code <data file>.idx}) holds the offset and receipt time of every record. Chain the
+ * recorder in front of a session's handler to capture what the session saw:
+ * <pre>{@code
+ * client.startStreamingInsights(conversationId, orgId, agentId, recorder.andThen(handler), errorHandler);
+ * }</pre>
+ * Writes are buffered, so recording adds little to the handler thread; close the recorder to
+ * make sure everything reaches the disk. If a write fails, the records it held are dropped and
+ * both files are truncated back to the last complete record, so a torn record is never followed
+ * by later ones.
+ */
+public class InsightRecorder implements Consumer<StreamingInsightServingResponse>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightRecorder.class);
+
+    /** Index file header: magic, version, recording start time */
+    static final int INDEX_MAGIC = 0x494E5358; // "INSX"
+    static final int INDEX_VERSION = 1;
+    static final int INDEX_HEADER_BYTES = 16;
+    /** Index entry: data file offset, nanoseconds since the recording started */
+    static final int INDEX_ENTRY_BYTES = 16;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final long startNanos;
+    private final Object lock = new Object();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Guarded by lock
+    private final ByteBuffer dataBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(BUFFER_SIZE / 4);
+    private long offset; // end of the last accepted record
+    private long writtenOffset; // end of the records in the data file
+    private long indexWrittenBytes;
+    private int pendingRecords; // accepted records still in the buffers
+    private boolean closed;
+
+    /**
+     * Start a recording, replacing any existing one at the path
+     * @param path Data file, the index is written to the same path with {@code .idx} appended
+     * @return recorder
+     * @throws IOException if the files cannot be created
+     */
+    public static InsightRecorder open(Path path) throws IOException {
+        FileChannel data = openForWrite(path);
+        FileChannel index = null;
+        try {
+            index = openForWrite(indexPath(path));
+            return new InsightRecorder(data, index);
+        } catch (IOException e) {
+            data.close();
+            if (index != null) {
+                index.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the index file belonging to a data file
+     * @param path Data file
+     * @return index file
+     */
+    public static Path indexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    private static FileChannel openForWrite(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    InsightRecorder(FileChannel data, FileChannel index) throws IOException {
+        this.data = data;
+        this.index = index;
+        this.startNanos = System.nanoTime();
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES)
+            .putInt(INDEX_MAGIC)
+            .putInt(INDEX_VERSION)
+            .putLong(System.currentTimeMillis());
+        header.flip();
+        this.indexWrittenBytes = writeFully(index, header, 0);
+    }
+
+    @Override
+    public void accept(StreamingInsightServingResponse response) {
+        int size = response.getSerializedSize();
+        int length = CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+        try {
+            synchronized (lock) {
+                if (closed) {
+                    failed.incrementAndGet();
+                    return;
+                }
+                // Taken under the lock so index times never go backwards
+                long elapsedNanos = System.nanoTime() - startNanos;
+                if (length > dataBuffer.remaining() || indexBuffer.remaining() < INDEX_ENTRY_BYTES) {
+                    writeBuffers(null);
+                }
+                boolean buffered = length <= dataBuffer.remaining();
+                ByteBuffer target = buffered ? dataBuffer : ByteBuffer.allocate(length);
+                CodedOutputStream out = CodedOutputStream.newInstance(target);
+                out.writeUInt32NoTag(size);
+                response.writeTo(out);
+                out.flush();
+                indexBuffer.putLong(offset).putLong(elapsedNanos);
+                offset += length;
+                if (buffered) {
+                    pendingRecords++;
+                } else {
+                    // Larger than the buffer, written right away
+                    writeBuffers(target);
+                }
+            }
+            recorded.incrementAndGet();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            logger.error("Error recording insight", e);
+        }
+    }
+
+    /**
+     * Flush buffered records to the files
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            if (!closed) {
+                writeBuffers(null);
+            }
+        }
+    }
+
+    public long getRecordedCount() { return recorded.get(); }
+    public long getFailedCount() { return failed.get(); }
+
+    /**
+     * Flush and close both files
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBuffers(null);
+            } finally {
+                try {
+                    data.close();
+                } finally {
+                    index.close();
+                }
+            }
+        }
+        logger.info("Recorded {} insights ({} failed)", recorded.get(), failed.get());
+    }
+
+    /**
+     * Write the buffered records, followed by a record too large for the buffer, to the files.
+     * On failure the records not yet written are dropped and both files are cut back to the end
+     * of the last complete record.
+     */
+    // Must hold lock
+    private void writeBuffers(ByteBuffer oversized) throws IOException {
+        dataBuffer.flip();
+        indexBuffer.flip();
+        long indexEnd = indexWrittenBytes + indexBuffer.remaining();
+        try {
+            long position = writeFully(data, dataBuffer, writtenOffset);
+            if (oversized != null) {
+                oversized.flip();
+                writeFully(data, oversized, position);
+            }
+            writeFully(index, indexBuffer, indexWrittenBytes);
+        } catch (IOException e) {
+            failed.addAndGet(pendingRecords);
+            recorded.addAndGet(-pendingRecords);
+            offset = writtenOffset;
+            try {
+                data.truncate(writtenOffset);
+                index.truncate(indexWrittenBytes);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            throw e;
+        } finally {
+            dataBuffer.clear();
+            indexBuffer.clear();
+            pendingRecords = 0;
+        }
+        writtenOffset = offset;
+        indexWrittenBytes = indexEnd;
+    }
+
+    /**
+     * Write all of a buffer at a file position
+     * @return position after the written bytes
+     */
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+}
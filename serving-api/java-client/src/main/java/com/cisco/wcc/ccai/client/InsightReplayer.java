@@ -0,0 +1,300 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Plays back a recording made by {@link InsightRecorder} into any response handler.
+ * <p>
+ * The data file is memory-mapped and each record is parsed straight from the mapping when it is
+ * due, so playback does no read calls and keeps no copy of the recording on the heap. Records are
+ * delivered on the calling thread at the recorded pace, at a multiple of it, or as fast as the
+ * handler accepts them. A missing or partly written index is rebuilt from the data file, which
+ * loses receipt times only for the records it did not cover.
+ */
+public class InsightReplayer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightReplayer.class);
+
+    /** Speed for playback at the recorded pace */
+    public static final double REAL_TIME = 1.0;
+    /** Speed for playback without pauses */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    // Mappings start every REGION_STRIDE bytes and overlap by MAX_RECORD_BYTES,
+    // so every record lies entirely within the mapping of the stride it starts in
+    private static final long REGION_STRIDE = 1L << 30;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long startEpochMillis;
+    private final long[] recordOffsets; // offset of the message, after its length prefix
+    private final int[] recordLengths;
+    private final long[] elapsedNanos;
+    private volatile long lastMaxLagNanos;
+
+    /**
+     * Open a recording
+     * @param path Data file written by {@link InsightRecorder}
+     * @return replayer
+     * @throws IOException if the recording cannot be read or is corrupt
+     */
+    public static InsightReplayer open(Path path) throws IOException {
+        return new InsightReplayer(path);
+    }
+
+    private InsightReplayer(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int regionCount = (int) ((size + REGION_STRIDE - 1) / REGION_STRIDE);
+            this.regions = new MappedByteBuffer[regionCount];
+            for (int i = 0; i < regionCount; i++) {
+                long start = i * REGION_STRIDE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(REGION_STRIDE + MAX_RECORD_BYTES, size - start));
+            }
+
+            IndexData index = readIndex(InsightRecorder.indexPath(path), size);
+            this.startEpochMillis = index.startEpochMillis;
+            List<long[]> records = new ArrayList<>(index.count + 16);
+            long offset = 0;
+            for (int i = 0; i < index.count; i++) {
+                long[] record = readRecord(index.offsets[i], index.elapsedNanos[i], size);
+                if (record == null) {
+                    break;
+                }
+                records.add(record);
+                offset = record[0] + record[1];
+            }
+            // Records written after the last index flush, replayed back to back with the last indexed one
+            long lastElapsed = records.isEmpty() ? 0 : records.get(records.size() - 1)[2];
+            int unindexed = 0;
+            while (offset < size) {
+                long[] record = readRecord(offset, lastElapsed, size);
+                if (record == null) {
+                    logger.warn("Ignoring truncated record at offset {} of {}", offset, path);
+                    break;
+                }
+                records.add(record);
+                offset = record[0] + record[1];
+                unindexed++;
+            }
+            if (unindexed > 0) {
+                logger.info("Recovered {} records missing from the index of {}", unindexed, path);
+            }
+
+            this.recordOffsets = new long[records.size()];
+            this.recordLengths = new int[records.size()];
+            this.elapsedNanos = new long[records.size()];
+            for (int i = 0; i < records.size(); i++) {
+                long[] record = records.get(i);
+                recordOffsets[i] = record[0];
+                recordLengths[i] = (int) record[1];
+                elapsedNanos[i] = record[2];
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Play back all records
+     * @param consumer Handler receiving the records on the calling thread
+     * @param speed Multiple of the recorded pace, {@link #REAL_TIME} for the recorded pace,
+     *              {@link #MAX_SPEED} (or any value of 0 or less) for no pauses
+     * @return number of records delivered, fewer than {@link #size()} if the thread was interrupted
+     * @throws InvalidProtocolBufferException if a record cannot be parsed
+     */
+    public int replay(Consumer<? super StreamingInsightServingResponse> consumer, double speed)
+            throws InvalidProtocolBufferException {
+        boolean paced = speed > 0 && !Double.isInfinite(speed);
+        long maxLagNanos = 0;
+        long baseNanos = System.nanoTime();
+        long firstElapsed = elapsedNanos.length > 0 ? elapsedNanos[0] : 0;
+        for (int i = 0; i < elapsedNanos.length; i++) {
+            if (paced) {
+                long due = baseNanos + (long) ((elapsedNanos[i] - firstElapsed) / speed);
+                long wait = due - System.nanoTime();
+                // parkNanos may return early, so re-check until the record is due
+                while (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.currentThread().isInterrupted()) {
+                        lastMaxLagNanos = maxLagNanos;
+                        return i;
+                    }
+                    wait = due - System.nanoTime();
+                }
+                maxLagNanos = Math.max(maxLagNanos, -wait);
+            } else if (Thread.currentThread().isInterrupted()) {
+                return i;
+            }
+            consumer.accept(get(i));
+        }
+        lastMaxLagNanos = maxLagNanos;
+        return elapsedNanos.length;
+    }
+
+    /**
+     * Parse one record
+     * @param i Record number, from 0
+     * @return response
+     * @throws InvalidProtocolBufferException if the record cannot be parsed
+     */
+    public StreamingInsightServingResponse get(int i) throws InvalidProtocolBufferException {
+        long offset = recordOffsets[i];
+        MappedByteBuffer region = regions[(int) (offset / REGION_STRIDE)];
+        int position = (int) (offset % REGION_STRIDE);
+        return StreamingInsightServingResponse.parseFrom(region.slice(position, recordLengths[i]));
+    }
+
+    /**
+     * Parse all records into memory, e.g. for {@link FakeAiInsightServer.Builder#setReplay}
+     * @return responses in recorded order
+     * @throws InvalidProtocolBufferException if a record cannot be parsed
+     */
+    public List<StreamingInsightServingResponse> readAll() throws InvalidProtocolBufferException {
+        List<StreamingInsightServingResponse> responses = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            responses.add(get(i));
+        }
+        return responses;
+    }
+
+    public int size() { return recordOffsets.length; }
+    public long getStartEpochMillis() { return startEpochMillis; }
+
+    /**
+     * Get when a record was received, relative to the start of the recording
+     * @param i Record number, from 0
+     * @return nanoseconds since the recording started
+     */
+    public long getElapsedNanos(int i) {
+        return elapsedNanos[i];
+    }
+
+    /**
+     * Get the time between the first and the last record
+     * @return duration in nanoseconds
+     */
+    public long getDurationNanos() {
+        return elapsedNanos.length == 0 ? 0 : elapsedNanos[elapsedNanos.length - 1] - elapsedNanos[0];
+    }
+
+    /**
+     * Get how far the last paced playback fell behind the recorded pace at worst,
+     * i.e. whether the handler kept up
+     * @return nanoseconds
+     */
+    public long getLastMaxLagNanos() {
+        return lastMaxLagNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings are released when they are garbage collected
+        channel.close();
+    }
+
+    /**
+     * Read the length prefix of a record
+     * @return message offset, message length and receipt time, or null if the record runs past the end
+     */
+    private long[] readRecord(long offset, long elapsed, long size) throws IOException {
+        ByteBuffer region = regions[(int) (offset / REGION_STRIDE)];
+        int position = (int) (offset % REGION_STRIDE);
+        long length = 0;
+        int shift = 0;
+        while (true) {
+            if (position >= region.limit()) {
+                return null;
+            }
+            byte b = region.get(position++);
+            length |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Malformed record length at offset " + offset);
+            }
+        }
+        long messageOffset = offset - (offset % REGION_STRIDE) + position;
+        if (length > MAX_RECORD_BYTES) {
+            throw new IOException("Record of " + length + " bytes at offset " + offset + " exceeds " + MAX_RECORD_BYTES);
+        }
+        if (messageOffset + length > size) {
+            return null;
+        }
+        return new long[] {messageOffset, length, elapsed};
+    }
+
+    private static IndexData readIndex(Path indexPath, long dataSize) throws IOException {
+        if (!Files.exists(indexPath)) {
+            logger.warn("No index at {}, rebuilding it from the data file", indexPath);
+            return new IndexData(0, new long[0], new long[0], 0);
+        }
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long indexSize = indexChannel.size();
+            if (indexSize < InsightRecorder.INDEX_HEADER_BYTES) {
+                return new IndexData(0, new long[0], new long[0], 0);
+            }
+            ByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+            if (index.getInt() != InsightRecorder.INDEX_MAGIC) {
+                throw new IOException("Not an insight recording index: " + indexPath);
+            }
+            int version = index.getInt();
+            if (version != InsightRecorder.INDEX_VERSION) {
+                throw new IOException("Unsupported index version " + version + " in " + indexPath);
+            }
+            long startEpochMillis = index.getLong();
+            int entries = (int) ((indexSize - InsightRecorder.INDEX_HEADER_BYTES) / InsightRecorder.INDEX_ENTRY_BYTES);
+            long[] offsets = new long[entries];
+            long[] elapsed = new long[entries];
+            int count = 0;
+            // The index is flushed independently of the data, so it may point past the data's end
+            while (count < entries) {
+                long offset = index.getLong();
+                long time = index.getLong();
+                if (offset >= dataSize) {
+                    break;
+                }
+                offsets[count] = offset;
+                elapsed[count] = time;
+                count++;
+            }
+            return new IndexData(startEpochMillis, Arrays.copyOf(offsets, count), Arrays.copyOf(elapsed, count), count);
+        }
+    }
+
+    private static final class IndexData {
+        final long startEpochMillis;
+        final long[] offsets;
+        final long[] elapsedNanos;
+        final int count;
+
+        IndexData(long startEpochMillis, long[] offsets, long[] elapsedNanos, int count) {
+            this.startEpochMillis = startEpochMillis;
+            this.offsets = offsets;
+            this.elapsedNanos = elapsedNanos;
+            this.count = count;
+        }
+    }
+}
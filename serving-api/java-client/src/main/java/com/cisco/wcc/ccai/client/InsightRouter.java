@@ -0,0 +1,256 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Response handler dispatching each insight to the handlers subscribed to its kind.
+ * <p>
+ * A kind is the combination of insight type, role, response content case and finality. Every kind
+ * has a slot in a dense table holding the array of its subscribers, so dispatch is an index
+ * computation and one array load regardless of how many routes are registered. Routes may leave
+ * any dimension open; subscribing expands them into every matching slot. Subscribing and
+ * unsubscribing copy the table, which keeps dispatch lock-free and is meant for setup, not for
+ * every message. A handler that throws is logged and does not keep the others from running.
+ * <pre>{@code
+ * InsightRouter router = new InsightRouter();
+ * router.subscribe(InsightRouter.Route.any()
+ *     .insightType(InsightServingResponse.ServiceType.AGENT_ANSWERS)
+ *     .role(InsightServingResponse.Role.AGENT), agentAnswerHandler);
+ * router.subscribe(InsightRouter.Route.any().finalOnly(), finalHandler);
+ * client.startStreamingInsights(conversationId, orgId, agentId, router, errorHandler);
+ * }</pre>
+ */
+public class InsightRouter implements Consumer<StreamingInsightServingResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightRouter.class);
+
+    // Generated enums end with UNRECOGNIZED, which doubles as the slot for values newer than this client
+    private static final InsightServingResponse.ServiceType[] TYPES = InsightServingResponse.ServiceType.values();
+    private static final InsightServingResponse.Role[] ROLES = InsightServingResponse.Role.values();
+    private static final ResponseContent.StreamResponseContentCase[] CONTENT_CASES =
+        ResponseContent.StreamResponseContentCase.values();
+    private static final int SLOTS = TYPES.length * ROLES.length * CONTENT_CASES.length * 2;
+
+    @SuppressWarnings("unchecked")
+    private static final Consumer<StreamingInsightServingResponse>[] NO_HANDLERS =
+        (Consumer<StreamingInsightServingResponse>[]) new Consumer<?>[0];
+
+    private final Object lock = new Object();
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder handlerFailures = new LongAdder();
+    private volatile Consumer<StreamingInsightServingResponse>[][] table = emptyTable();
+    private volatile Consumer<StreamingInsightServingResponse> unmatchedHandler;
+
+    @Override
+    public void accept(StreamingInsightServingResponse response) {
+        Consumer<StreamingInsightServingResponse>[] handlers = table[slotOf(response.getInsightServingResponse())];
+        if (handlers.length == 0) {
+            unmatched.increment();
+            Consumer<StreamingInsightServingResponse> fallback = unmatchedHandler;
+            if (fallback != null) {
+                fallback.accept(response);
+            }
+            return;
+        }
+        for (Consumer<StreamingInsightServingResponse> handler : handlers) {
+            try {
+                handler.accept(response);
+            } catch (RuntimeException e) {
+                handlerFailures.increment();
+                logger.warn("Insight handler failed", e);
+            }
+        }
+    }
+
+    /**
+     * Subscribe a handler to every kind of insight the route matches. A handler subscribed
+     * to overlapping routes receives a matching insight once per subscription.
+     * @param route Kinds of insight to receive
+     * @param handler Handler to call
+     * @return subscription, close it to unsubscribe
+     */
+    public Subscription subscribe(Route route, Consumer<StreamingInsightServingResponse> handler) {
+        Subscription subscription = new Subscription(route, handler);
+        synchronized (lock) {
+            Consumer<StreamingInsightServingResponse>[][] updated = table.clone();
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (route.matchesSlot(slot)) {
+                    Consumer<StreamingInsightServingResponse>[] handlers = Arrays.copyOf(updated[slot], updated[slot].length + 1);
+                    handlers[handlers.length - 1] = handler;
+                    updated[slot] = handlers;
+                }
+            }
+            table = updated;
+        }
+        return subscription;
+    }
+
+    /**
+     * Set the handler for insights no route matches
+     * @param unmatchedHandler Handler, or null to drop them
+     */
+    public void setUnmatchedHandler(Consumer<StreamingInsightServingResponse> unmatchedHandler) {
+        this.unmatchedHandler = unmatchedHandler;
+    }
+
+    /**
+     * Get the number of subscriptions an insight of the given kind is dispatched to
+     * @return subscriber count
+     */
+    public int getSubscriberCount(InsightServingResponse.ServiceType insightType, InsightServingResponse.Role role,
+                                  ResponseContent.StreamResponseContentCase contentCase, boolean isFinal) {
+        return table[slot(insightType.ordinal(), role.ordinal(), contentCase.ordinal(), isFinal)].length;
+    }
+
+    public long getUnmatchedCount() { return unmatched.sum(); }
+    public long getHandlerFailureCount() { return handlerFailures.sum(); }
+
+    private void unsubscribe(Subscription subscription) {
+        synchronized (lock) {
+            Consumer<StreamingInsightServingResponse>[][] updated = table.clone();
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (!subscription.route.matchesSlot(slot)) {
+                    continue;
+                }
+                Consumer<StreamingInsightServingResponse>[] handlers = updated[slot];
+                for (int i = 0; i < handlers.length; i++) {
+                    // One occurrence per slot, so a handler subscribed twice keeps its other subscription
+                    if (handlers[i] == subscription.handler) {
+                        Consumer<StreamingInsightServingResponse>[] remaining = Arrays.copyOf(handlers, handlers.length - 1);
+                        System.arraycopy(handlers, i + 1, remaining, i, handlers.length - i - 1);
+                        updated[slot] = remaining.length == 0 ? NO_HANDLERS : remaining;
+                        break;
+                    }
+                }
+            }
+            table = updated;
+        }
+    }
+
+    private static int slotOf(InsightServingResponse insight) {
+        // The enum accessors map unknown numbers to UNRECOGNIZED, the last constant
+        int type = insight.getInsightTypeValue();
+        int role = insight.getRoleValue();
+        int typeIndex = type >= 0 && type < TYPES.length - 1 ? type : TYPES.length - 1;
+        int roleIndex = role >= 0 && role < ROLES.length - 1 ? role : ROLES.length - 1;
+        return slot(typeIndex, roleIndex, insight.getResponseContent().getStreamResponseContentCase().ordinal(),
+            ResponseHandler.isFinal(insight));
+    }
+
+    private static int slot(int typeIndex, int roleIndex, int contentIndex, boolean isFinal) {
+        return ((typeIndex * ROLES.length + roleIndex) * CONTENT_CASES.length + contentIndex) * 2 + (isFinal ? 1 : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<StreamingInsightServingResponse>[][] emptyTable() {
+        Consumer<StreamingInsightServingResponse>[][] empty =
+            (Consumer<StreamingInsightServingResponse>[][]) new Consumer<?>[SLOTS][];
+        Arrays.fill(empty, NO_HANDLERS);
+        return empty;
+    }
+
+    /**
+     * Kinds of insight a handler subscribes to. Every dimension matches anything until it is narrowed.
+     * Routes are immutable; each narrowing returns a new route.
+     */
+    public static final class Route {
+        private static final Route ANY = new Route(null, null, null, null);
+
+        private final InsightServingResponse.ServiceType insightType;
+        private final InsightServingResponse.Role role;
+        private final ResponseContent.StreamResponseContentCase contentCase;
+        private final Boolean isFinal;
+
+        private Route(InsightServingResponse.ServiceType insightType, InsightServingResponse.Role role,
+                      ResponseContent.StreamResponseContentCase contentCase, Boolean isFinal) {
+            this.insightType = insightType;
+            this.role = role;
+            this.contentCase = contentCase;
+            this.isFinal = isFinal;
+        }
+
+        /**
+         * Route matching every insight
+         * @return route
+         */
+        public static Route any() {
+            return ANY;
+        }
+
+        public Route insightType(InsightServingResponse.ServiceType insightType) {
+            return new Route(insightType, role, contentCase, isFinal);
+        }
+
+        public Route role(InsightServingResponse.Role role) {
+            return new Route(insightType, role, contentCase, isFinal);
+        }
+
+        public Route content(ResponseContent.StreamResponseContentCase contentCase) {
+            return new Route(insightType, role, contentCase, isFinal);
+        }
+
+        public Route finalOnly() {
+            return new Route(insightType, role, contentCase, Boolean.TRUE);
+        }
+
+        public Route interimOnly() {
+            return new Route(insightType, role, contentCase, Boolean.FALSE);
+        }
+
+        boolean matchesSlot(int slot) {
+            boolean slotFinal = (slot & 1) != 0;
+            int rest = slot >> 1;
+            int contentIndex = rest % CONTENT_CASES.length;
+            rest /= CONTENT_CASES.length;
+            int roleIndex = rest % ROLES.length;
+            int typeIndex = rest / ROLES.length;
+            return (insightType == null || insightType.ordinal() == typeIndex)
+                && (role == null || role.ordinal() == roleIndex)
+                && (contentCase == null || contentCase.ordinal() == contentIndex)
+                && (isFinal == null || isFinal == slotFinal);
+        }
+
+        @Override
+        public String toString() {
+            return "Route{type=" + (insightType == null ? "*" : insightType)
+                + ", role=" + (role == null ? "*" : role)
+                + ", content=" + (contentCase == null ? "*" : contentCase)
+                + ", final=" + (isFinal == null ? "*" : isFinal) + "}";
+        }
+    }
+
+    /**
+     * Registration of a handler, close it to stop receiving insights
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Route route;
+        private final Consumer<StreamingInsightServingResponse> handler;
+        private boolean closed;
+
+        private Subscription(Route route, Consumer<StreamingInsightServingResponse> handler) {
+            this.route = route;
+            this.handler = handler;
+        }
+
+        public Route getRoute() { return route; }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            unsubscribe(this);
+        }
+    }
+}
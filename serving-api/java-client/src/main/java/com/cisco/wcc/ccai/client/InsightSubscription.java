@@ -0,0 +1,209 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One local subscriber of a shared upstream stream, see
+ * {@link StreamingInsightClient#subscribeStreamingInsights(com.cisco.wcc.ccai.v1.InsightServingRequest, Consumer, Consumer)}.
+ * <p>
+ * Every subscriber has its own bounded buffer drained on the client's dispatch executor, so a slow
+ * subscriber falls behind on its own without holding up the stream or the other subscribers. When
+ * its buffer is full, an arriving interim result is dropped; a final result evicts the oldest
+ * buffered interim result, or the oldest result if none is interim.
+ */
+public class InsightSubscription implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightSubscription.class);
+
+    private final SharedInsightStreams.Upstream upstream;
+    private final Consumer<StreamingInsightServingResponse> responseHandler;
+    private final Consumer<Throwable> errorHandler;
+    private final Executor dispatchExecutor;
+    private final int capacity;
+    private final AtomicInteger drainWip = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Guarded by buffer
+    private final ArrayDeque<StreamingInsightServingResponse> buffer;
+    private boolean ended;
+    private Throwable pendingError;
+
+    private volatile boolean active = true;
+
+    InsightSubscription(SharedInsightStreams.Upstream upstream,
+                        Consumer<StreamingInsightServingResponse> responseHandler,
+                        Consumer<Throwable> errorHandler,
+                        Executor dispatchExecutor,
+                        int capacity) {
+        this.upstream = upstream;
+        this.responseHandler = responseHandler;
+        this.errorHandler = errorHandler;
+        this.dispatchExecutor = dispatchExecutor;
+        this.capacity = Math.max(1, capacity);
+        this.buffer = new ArrayDeque<>(Math.min(this.capacity, 64));
+    }
+
+    /**
+     * Queue an insight from the upstream stream, called on the stream's callback thread
+     */
+    void offer(StreamingInsightServingResponse response) {
+        synchronized (buffer) {
+            if (ended) {
+                return;
+            }
+            if (buffer.size() >= capacity && !makeRoom(response)) {
+                dropped.incrementAndGet();
+                return;
+            }
+            buffer.addLast(response);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Deliver what is buffered, then end the subscription
+     * @param error Error to pass to the error handler afterwards, null if the stream completed
+     */
+    void end(Throwable error) {
+        synchronized (buffer) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            pendingError = error;
+        }
+        scheduleDrain();
+    }
+
+    private boolean makeRoom(StreamingInsightServingResponse incoming) {
+        if (!ResponseHandler.isFinal(incoming.getInsightServingResponse())) {
+            return false;
+        }
+        for (Iterator<StreamingInsightServingResponse> it = buffer.iterator(); it.hasNext(); ) {
+            InsightServingResponse queued = it.next().getInsightServingResponse();
+            if (!ResponseHandler.isFinal(queued)) {
+                it.remove();
+                dropped.incrementAndGet();
+                return true;
+            }
+        }
+        buffer.pollFirst();
+        dropped.incrementAndGet();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (drainWip.getAndIncrement() == 0) {
+            try {
+                dispatchExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Executor is shutting down, drain on the calling thread so the subscription still ends
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        while (true) {
+            while (true) {
+                StreamingInsightServingResponse response;
+                synchronized (buffer) {
+                    response = buffer.pollFirst();
+                }
+                if (response == null) {
+                    break;
+                }
+                if (active) {
+                    try {
+                        responseHandler.accept(response);
+                        delivered.incrementAndGet();
+                    } catch (Exception e) {
+                        logger.error("Error in subscription response handler", e);
+                    }
+                }
+            }
+            finishIfEnded();
+            missed = drainWip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void finishIfEnded() {
+        Throwable error;
+        synchronized (buffer) {
+            if (!ended || !buffer.isEmpty() || !active) {
+                return;
+            }
+            error = pendingError;
+            pendingError = null;
+        }
+        active = false;
+        if (error != null && errorHandler != null) {
+            try {
+                errorHandler.accept(error);
+            } catch (Exception e) {
+                logger.error("Error in subscription error handler", e);
+            }
+        }
+    }
+
+    /**
+     * Check whether insights are still being delivered to this subscriber
+     * @return false once closed or once the upstream stream ended and the buffer was drained
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public String getConversationId() { return upstream.getConversationId(); }
+    public long getDeliveredCount() { return delivered.get(); }
+
+    /**
+     * Get the number of insights this subscriber lost because its buffer was full
+     * @return dropped count
+     */
+    public long getDroppedCount() { return dropped.get(); }
+
+    public int getQueueDepth() {
+        synchronized (buffer) {
+            return buffer.size();
+        }
+    }
+
+    /**
+     * Get the number of subscribers sharing this subscription's upstream stream, including this one
+     * @return subscriber count, 0 once the upstream stream has ended
+     */
+    public int getSharedWith() {
+        return upstream.getSubscriberCount();
+    }
+
+    /**
+     * Stop receiving insights. The upstream stream is cancelled when its last subscriber leaves.
+     */
+    @Override
+    public void close() {
+        active = false;
+        synchronized (buffer) {
+            ended = true;
+            pendingError = null;
+            buffer.clear();
+        }
+        upstream.remove(this);
+    }
+}
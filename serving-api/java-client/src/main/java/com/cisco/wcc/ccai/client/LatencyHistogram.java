@@ -0,0 +1,184 @@
+package com.cisco.wcc.ccai.client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the spirit of HdrHistogram.
+ * <p>
+ * Values are in microseconds. Each power of two is split into 32 linear sub-buckets, so a
+ * recorded value is reported within about 3% of its true value. Values above roughly 67 seconds
+ * fall into the last bucket, although the maximum stays exact; negative values are counted as zero. Recording is a few atomic
+ * increments and never blocks, so histograms can be updated from any callback thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 26; // 2^26 us ~ 67 seconds, 704 buckets
+    private static final long MAX_TRACKABLE = (1L << MAX_MAGNITUDE) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAdder negativeCount = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a latency
+     * @param micros Latency in microseconds
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            negativeCount.increment();
+            micros = 0;
+        }
+        counts.incrementAndGet(bucketIndex(Math.min(micros, MAX_TRACKABLE)));
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * Take a point-in-time copy of the histogram. Concurrent recordings may be partially included.
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalMicros.sum(), maxMicros.get(), negativeCount.sum());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Highest value that maps to a bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowest = ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram, can be merged with others
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+        private final long negativeCount;
+
+        private Snapshot(long[] counts, long totalMicros, long maxMicros, long negativeCount) {
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+            this.negativeCount = negativeCount;
+        }
+
+        /**
+         * Create an empty snapshot, useful as a starting point for merging
+         * @return empty snapshot
+         */
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+        }
+
+        /**
+         * Combine with another snapshot
+         * @param other Snapshot to add
+         * @return new snapshot holding both
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged, totalMicros + other.totalMicros,
+                Math.max(maxMicros, other.maxMicros), negativeCount + other.negativeCount);
+        }
+
+        /**
+         * Get the recordings made after an earlier snapshot of the same histogram, e.g. for
+         * per-interval reports. The maximum is estimated from the highest bucket recorded into.
+         * @param earlier Earlier snapshot
+         * @return new snapshot holding the difference
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[BUCKET_COUNT];
+            int highest = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                if (delta[i] > 0) {
+                    highest = i;
+                }
+            }
+            long max = highest < 0 ? 0 : Math.min(bucketUpperBound(highest), maxMicros);
+            return new Snapshot(delta, totalMicros - earlier.totalMicros, max,
+                negativeCount - earlier.negativeCount);
+        }
+
+        public long getCount() { return count; }
+        public long getMaxMicros() { return maxMicros; }
+
+        /**
+         * Get the number of recordings that were negative (clamped to zero), usually caused by clock skew
+         * @return negative count
+         */
+        public long getNegativeCount() { return negativeCount; }
+
+        public double getMeanMicros() {
+            return count == 0 ? 0.0 : (double) totalMicros / count;
+        }
+
+        /**
+         * Get the value below which the given share of recordings fall
+         * @param percentile Percentile between 0 and 100, e.g. 99.9
+         * @return latency in microseconds, 0 if empty
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms",
+                count,
+                getValueAtPercentile(50) / 1000.0,
+                getValueAtPercentile(99) / 1000.0,
+                getValueAtPercentile(99.9) / 1000.0,
+                maxMicros / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response marshaller for the streamingInsightServing method that only decodes the header
+ * fields of each message, see {@link LazyInsightResponse}
+ */
+public class LazyInsightMarshaller implements MethodDescriptor.Marshaller<LazyInsightResponse> {
+
+    /**
+     * streamingInsightServing method descriptor producing {@link LazyInsightResponse}s
+     */
+    public static final MethodDescriptor<StreamingInsightServingRequest, LazyInsightResponse> STREAMING_INSIGHT_SERVING_METHOD =
+        AiInsightGrpc.getStreamingInsightServingMethod().toBuilder(
+                ProtoUtils.marshaller(StreamingInsightServingRequest.getDefaultInstance()),
+                new LazyInsightMarshaller())
+            .build();
+
+    @Override
+    public InputStream stream(LazyInsightResponse value) {
+        return value.toByteString().newInput();
+    }
+
+    @Override
+    public LazyInsightResponse parse(InputStream stream) {
+        try {
+            // The framer already enforced maxInboundMessageSize, the bytes are owned by us from here on
+            byte[] bytes = stream.readAllBytes();
+            return LazyInsightResponse.parseHeader(UnsafeByteOperations.unsafeWrap(bytes));
+        } catch (InvalidProtocolBufferException e) {
+            throw Status.INTERNAL.withDescription("Invalid " + StreamingInsightServingResponse.class.getSimpleName())
+                .withCause(e).asRuntimeException();
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to read insight message").withCause(e).asRuntimeException();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+
+/**
+ * A {@link StreamingInsightServingResponse} whose header fields are decoded eagerly while the
+ * rest of the message, in particular {@code responseContent}, stays as undecoded bytes until
+ * it is accessed. Lets filters drop messages before paying for a full parse.
+ */
+public final class LazyInsightResponse {
+
+    // Field numbers of StreamingInsightServingResponse / InsightServingResponse in serving.proto
+    private static final int INSIGHT_SERVING_RESPONSE_FIELD = 1;
+    private static final int CONVERSATION_ID_FIELD = 2;
+    private static final int UTTERANCE_ID_FIELD = 4;
+    private static final int ROLE_FIELD = 5;
+    private static final int INSIGHT_TYPE_FIELD = 6;
+    private static final int PUBLISH_TIMESTAMP_FIELD = 8;
+    private static final int IS_FINAL_FIELD = 11;
+    private static final int RESPONSE_CONTENT_FIELD = 12;
+
+    private final ByteString raw;
+    private ByteString conversationIdBytes = ByteString.EMPTY;
+    private ByteString utteranceIdBytes = ByteString.EMPTY;
+    private int roleValue;
+    private int insightTypeValue;
+    private long publishTimestamp;
+    private boolean isFinal;
+    private ByteString responseContentBytes;
+
+    private String conversationId;
+    private String utteranceId;
+    private ResponseContent responseContent;
+    private StreamingInsightServingResponse response;
+
+    private LazyInsightResponse(ByteString raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * Decode the header fields of a serialized StreamingInsightServingResponse
+     * @param raw Serialized message; it is aliased, not copied
+     * @return lazily decoded response
+     * @throws InvalidProtocolBufferException if the bytes are not a valid message
+     */
+    public static LazyInsightResponse parseHeader(ByteString raw) throws InvalidProtocolBufferException {
+        LazyInsightResponse lazy = new LazyInsightResponse(raw);
+        try {
+            CodedInputStream outer = raw.newCodedInput();
+            outer.enableAliasing(true);
+            int tag;
+            while ((tag = outer.readTag()) != 0) {
+                if (WireFormat.getTagFieldNumber(tag) == INSIGHT_SERVING_RESPONSE_FIELD
+                        && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    lazy.readInsightHeader(outer.readBytes());
+                } else if (!outer.skipField(tag)) {
+                    break;
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            InvalidProtocolBufferException invalid = new InvalidProtocolBufferException(e.getMessage());
+            invalid.initCause(e);
+            throw invalid;
+        }
+        return lazy;
+    }
+
+    private void readInsightHeader(ByteString insightBytes) throws IOException {
+        CodedInputStream input = insightBytes.newCodedInput();
+        input.enableAliasing(true);
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case CONVERSATION_ID_FIELD:
+                    conversationIdBytes = input.readBytes();
+                    break;
+                case UTTERANCE_ID_FIELD:
+                    utteranceIdBytes = input.readBytes();
+                    break;
+                case ROLE_FIELD:
+                    roleValue = input.readEnum();
+                    break;
+                case INSIGHT_TYPE_FIELD:
+                    insightTypeValue = input.readEnum();
+                    break;
+                case PUBLISH_TIMESTAMP_FIELD:
+                    publishTimestamp = input.readInt64();
+                    break;
+                case IS_FINAL_FIELD:
+                    isFinal = input.readBool();
+                    break;
+                case RESPONSE_CONTENT_FIELD:
+                    responseContentBytes = input.readBytes();
+                    break;
+                default:
+                    if (!input.skipField(tag)) {
+                        return;
+                    }
+            }
+        }
+    }
+
+    public InsightServingResponse.ServiceType getInsightType() {
+        InsightServingResponse.ServiceType type = InsightServingResponse.ServiceType.forNumber(insightTypeValue);
+        return type == null ? InsightServingResponse.ServiceType.UNRECOGNIZED : type;
+    }
+
+    public InsightServingResponse.Role getRole() {
+        InsightServingResponse.Role role = InsightServingResponse.Role.forNumber(roleValue);
+        return role == null ? InsightServingResponse.Role.UNRECOGNIZED : role;
+    }
+
+    public boolean getIsFinal() { return isFinal; }
+    public long getPublishTimestamp() { return publishTimestamp; }
+
+    public String getConversationId() {
+        if (conversationId == null) {
+            conversationId = conversationIdBytes.toStringUtf8();
+        }
+        return conversationId;
+    }
+
+    public String getUtteranceId() {
+        if (utteranceId == null) {
+            utteranceId = utteranceIdBytes.toStringUtf8();
+        }
+        return utteranceId;
+    }
+
+    /**
+     * Check whether the message carries response content
+     * @return true if a responseContent field is present
+     */
+    public boolean hasResponseContent() {
+        return responseContentBytes != null;
+    }
+
+    /**
+     * Get the serialized responseContent without decoding it
+     * @return responseContent bytes, empty if absent
+     */
+    public ByteString getResponseContentBytes() {
+        return responseContentBytes == null ? ByteString.EMPTY : responseContentBytes;
+    }
+
+    /**
+     * Decode the response content on first access
+     * @return decoded response content
+     * @throws InvalidProtocolBufferException if the content is malformed
+     */
+    public ResponseContent getResponseContent() throws InvalidProtocolBufferException {
+        if (responseContent == null) {
+            responseContent = responseContentBytes == null
+                ? ResponseContent.getDefaultInstance()
+                : ResponseContent.parseFrom(responseContentBytes);
+        }
+        return responseContent;
+    }
+
+    /**
+     * Fully decode the message on first access
+     * @return decoded response
+     * @throws InvalidProtocolBufferException if the message is malformed
+     */
+    public StreamingInsightServingResponse toResponse() throws InvalidProtocolBufferException {
+        if (response == null) {
+            response = StreamingInsightServingResponse.parseFrom(raw);
+        }
+        return response;
+    }
+
+    /**
+     * Get the serialized message
+     * @return raw bytes as received
+     */
+    public ByteString toByteString() {
+        return raw;
+    }
+
+    /**
+     * Get the serialized size of the message
+     * @return size in bytes
+     */
+    public int getSerializedSize() {
+        return raw.size();
+    }
+}
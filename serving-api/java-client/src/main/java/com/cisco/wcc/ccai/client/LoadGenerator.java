@@ -0,0 +1,484 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Headless load test: holds a target number of concurrent streaming sessions through ramp-up,
+ * hold and ramp-down phases, optionally mixed with one-time insight calls, and prints periodic
+ * throughput, error and latency reports followed by a summary.
+ * <p>
+ * Sessions are opened and closed from the thread calling {@link #run()}, one conversation each.
+ * Sessions that end on their own (errors, server completion) are replaced while the target allows.
+ * Streaming latency percentiles come from the client's {@link InsightLatencyStats}, so latency
+ * tracking must be enabled on the client for them to show up.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long TICK_MS = 100;
+    private static final int MAX_UNARY_IN_FLIGHT = 4096;
+
+    /**
+     * Phase of a load test
+     */
+    public enum Phase {
+        RAMP_UP,
+        HOLD,
+        RAMP_DOWN,
+        DONE
+    }
+
+    private final StreamingInsightClient client;
+    private final int sessions;
+    private final long rampUpMs;
+    private final long holdMs;
+    private final long rampDownMs;
+    private final long reportIntervalMs;
+    private final double unaryCallsPerSecond;
+    private final InsightsServingRequest.InsightType unaryInsightType;
+    private final long unaryDeadlineMs;
+    private final String conversationPrefix;
+    private final String orgId;
+    private final String agentId;
+    private final PrintStream out;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder finals = new LongAdder();
+    private final LongAdder streamErrors = new LongAdder();
+    private final LongAdder unaryOk = new LongAdder();
+    private final LongAdder unaryFailed = new LongAdder();
+    private final LongAdder unaryShed = new LongAdder();
+    private final AtomicInteger unaryInFlight = new AtomicInteger();
+    private final LatencyHistogram unaryLatency = new LatencyHistogram();
+    private volatile Throwable lastError;
+
+    // Only touched by the thread calling run()
+    private final Deque<StreamingInsightClient.StreamingInsightSession> open = new ArrayDeque<>();
+    private volatile long nextConversation; // also read by the one-time call scheduler
+    private long sessionsOpened;
+    private long openFailures;
+    private int peakSessions;
+
+    private LoadGenerator(StreamingInsightClient client, Builder builder) {
+        this.client = client;
+        this.sessions = builder.sessions;
+        this.rampUpMs = builder.rampUpMs;
+        this.holdMs = builder.holdMs;
+        this.rampDownMs = builder.rampDownMs;
+        this.reportIntervalMs = builder.reportIntervalMs;
+        this.unaryCallsPerSecond = builder.unaryCallsPerSecond;
+        this.unaryInsightType = builder.unaryInsightType;
+        this.unaryDeadlineMs = builder.unaryDeadlineMs;
+        this.conversationPrefix = builder.conversationPrefix;
+        this.orgId = builder.orgId;
+        this.agentId = builder.agentId;
+        this.out = builder.out;
+    }
+
+    /**
+     * Run the load test to the end of the ramp-down phase
+     * @return summary of the run
+     * @throws InterruptedException if interrupted, after closing all sessions
+     */
+    public Summary run() throws InterruptedException {
+        Consumer<StreamingInsightServingResponse> handler = response -> {
+            messages.increment();
+            if (response.getInsightServingResponse().getIsFinal()) {
+                finals.increment();
+            }
+        };
+        Consumer<Throwable> errorHandler = error -> {
+            streamErrors.increment();
+            lastError = error;
+        };
+
+        ScheduledExecutorService unaryScheduler = null;
+        if (unaryCallsPerSecond > 0) {
+            unaryScheduler = Executors.newSingleThreadScheduledExecutor(
+                ClientExecutors.daemonThreadFactory("load-generator-unary"));
+            long periodNanos = Math.max(1000, (long) (1_000_000_000L / unaryCallsPerSecond));
+            unaryScheduler.scheduleAtFixedRate(this::fireUnary, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        out.printf("Load test: %d sessions, ramp-up %ds, hold %ds, ramp-down %ds, %.1f one-time calls/s%n",
+            sessions, rampUpMs / 1000, holdMs / 1000, rampDownMs / 1000, unaryCallsPerSecond);
+        long startNanos = System.nanoTime();
+        Interval interval = new Interval(startNanos);
+        long nextReportMs = reportIntervalMs;
+        try {
+            while (true) {
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                Phase phase = phaseAt(elapsedMs);
+                adjustSessions(phase == Phase.DONE ? 0 : targetAt(elapsedMs), handler, errorHandler);
+                if (elapsedMs >= nextReportMs) {
+                    interval = report(phase, elapsedMs, interval);
+                    nextReportMs += reportIntervalMs;
+                }
+                if (phase == Phase.DONE) {
+                    break;
+                }
+                Thread.sleep(TICK_MS);
+            }
+        } finally {
+            if (unaryScheduler != null) {
+                unaryScheduler.shutdownNow();
+            }
+            adjustSessions(0, handler, errorHandler);
+        }
+
+        Summary summary = new Summary(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+            sessionsOpened, openFailures, peakSessions, messages.sum(), finals.sum(), streamErrors.sum(),
+            unaryOk.sum(), unaryFailed.sum(), unaryShed.sum(),
+            streamingLatency(), unaryLatency.snapshot());
+        out.println(summary);
+        if (unaryCallsPerSecond > 0) {
+            out.println("Unary attempts: " + client.getUnaryAttemptStats());
+        }
+        return summary;
+    }
+
+    /**
+     * Get the phase at a point of the run
+     * @param elapsedMs Time since the start of the run
+     * @return phase
+     */
+    public Phase phaseAt(long elapsedMs) {
+        if (elapsedMs < rampUpMs) {
+            return Phase.RAMP_UP;
+        } else if (elapsedMs < rampUpMs + holdMs) {
+            return Phase.HOLD;
+        } else if (elapsedMs < rampUpMs + holdMs + rampDownMs) {
+            return Phase.RAMP_DOWN;
+        }
+        return Phase.DONE;
+    }
+
+    /**
+     * Get the number of sessions that should be open at a point of the run
+     * @param elapsedMs Time since the start of the run
+     * @return target session count
+     */
+    public int targetAt(long elapsedMs) {
+        switch (phaseAt(elapsedMs)) {
+            case RAMP_UP:
+                return (int) Math.ceil((double) sessions * elapsedMs / rampUpMs);
+            case HOLD:
+                return sessions;
+            case RAMP_DOWN:
+                long remainingMs = rampUpMs + holdMs + rampDownMs - elapsedMs;
+                return (int) Math.ceil((double) sessions * remainingMs / rampDownMs);
+            default:
+                return 0;
+        }
+    }
+
+    private void adjustSessions(int target, Consumer<StreamingInsightServingResponse> handler,
+                                Consumer<Throwable> errorHandler) {
+        for (Iterator<StreamingInsightClient.StreamingInsightSession> it = open.iterator(); it.hasNext(); ) {
+            StreamingInsightClient.StreamingInsightSession session = it.next();
+            if (!session.isActive()) {
+                session.close();
+                it.remove();
+            }
+        }
+        while (open.size() < target) {
+            String conversationId = conversationPrefix + nextConversation++;
+            try {
+                open.addLast(client.startStreamingInsights(conversationId, orgId, agentId, handler, errorHandler));
+                sessionsOpened++;
+            } catch (RuntimeException e) {
+                // Try again on the next tick rather than spinning on a failing client
+                logger.debug("Could not open session for {}: {}", conversationId, e.toString());
+                openFailures++;
+                lastError = e;
+                break;
+            }
+        }
+        // Close the newest sessions first, so the longest-lived ones survive the ramp-down
+        while (open.size() > target) {
+            open.pollLast().close();
+        }
+        peakSessions = Math.max(peakSessions, open.size());
+    }
+
+    private void fireUnary() {
+        if (unaryInFlight.incrementAndGet() > MAX_UNARY_IN_FLIGHT) {
+            unaryInFlight.decrementAndGet();
+            unaryShed.increment();
+            return;
+        }
+        long bound = Math.max(1, nextConversation);
+        String conversationId = conversationPrefix + ThreadLocalRandom.current().nextLong(bound);
+        long startNanos = System.nanoTime();
+        try {
+            client.getInsightsAsync(InsightKey.of(conversationId, orgId, unaryInsightType), unaryDeadlineMs)
+                .whenComplete((response, error) -> {
+                    unaryInFlight.decrementAndGet();
+                    if (error != null) {
+                        unaryFailed.increment();
+                        lastError = error;
+                    } else {
+                        unaryOk.increment();
+                        unaryLatency.record((System.nanoTime() - startNanos) / 1000);
+                    }
+                });
+        } catch (RuntimeException e) {
+            unaryInFlight.decrementAndGet();
+            unaryFailed.increment();
+            lastError = e;
+        }
+    }
+
+    private LatencyHistogram.Snapshot streamingLatency() {
+        InsightLatencyStats stats = client.getLatencyStats();
+        return stats == null
+            ? LatencyHistogram.Snapshot.empty()
+            : stats.getSnapshot(InsightLatencyStats.Stage.PUBLISH_TO_RECEIPT);
+    }
+
+    private Interval report(Phase phase, long elapsedMs, Interval previous) {
+        Interval current = new Interval(System.nanoTime());
+        double seconds = Math.max(1e-3, (current.nanos - previous.nanos) / 1e9);
+        Throwable error = lastError;
+        lastError = null;
+        long wireBytes = current.inboundWireBytes - previous.inboundWireBytes;
+        long uncompressedBytes = current.inboundUncompressedBytes - previous.inboundUncompressedBytes;
+        out.printf("[%5ds] %-9s sessions=%d msgs/s=%.1f finals/s=%.1f errors=%d unary/s=%.1f unaryFailed=%d"
+                + " in=%.1fKB/s (%.0f%% saved) | receipt %s | unary %s%s%n",
+            elapsedMs / 1000, phase, open.size(),
+            (current.messages - previous.messages) / seconds,
+            (current.finals - previous.finals) / seconds,
+            current.streamErrors - previous.streamErrors,
+            (current.unaryOk - previous.unaryOk) / seconds,
+            current.unaryFailed - previous.unaryFailed,
+            wireBytes / 1024.0 / seconds,
+            uncompressedBytes == 0 ? 0.0 : 100.0 * (1.0 - (double) wireBytes / uncompressedBytes),
+            percentiles(current.streaming.since(previous.streaming)),
+            percentiles(current.unary.since(previous.unary)),
+            error == null ? "" : " | last error: " + error.getMessage());
+        return current;
+    }
+
+    private static String percentiles(LatencyHistogram.Snapshot snapshot) {
+        return String.format("p50=%.1fms p99=%.1fms p999=%.1fms",
+            snapshot.getValueAtPercentile(50) / 1000.0,
+            snapshot.getValueAtPercentile(99) / 1000.0,
+            snapshot.getValueAtPercentile(99.9) / 1000.0);
+    }
+
+    /**
+     * Counters at the start of a report interval
+     */
+    private final class Interval {
+        final long nanos;
+        final long messages;
+        final long finals;
+        final long streamErrors;
+        final long unaryOk;
+        final long unaryFailed;
+        final LatencyHistogram.Snapshot streaming;
+        final LatencyHistogram.Snapshot unary;
+        final long inboundWireBytes;
+        final long inboundUncompressedBytes;
+
+        Interval(long nanos) {
+            this.nanos = nanos;
+            this.messages = LoadGenerator.this.messages.sum();
+            this.finals = LoadGenerator.this.finals.sum();
+            this.streamErrors = LoadGenerator.this.streamErrors.sum();
+            this.unaryOk = LoadGenerator.this.unaryOk.sum();
+            this.unaryFailed = LoadGenerator.this.unaryFailed.sum();
+            this.streaming = streamingLatency();
+            this.unary = unaryLatency.snapshot();
+            WireSizeStats wireSizeStats = client.getWireSizeStats();
+            this.inboundWireBytes = wireSizeStats == null ? 0 : wireSizeStats.getInboundWireBytes();
+            this.inboundUncompressedBytes = wireSizeStats == null ? 0 : wireSizeStats.getInboundUncompressedBytes();
+        }
+    }
+
+    /**
+     * Totals of a load test run
+     */
+    public static final class Summary {
+        private final long durationMs;
+        private final long sessionsOpened;
+        private final long openFailures;
+        private final int peakSessions;
+        private final long messages;
+        private final long finals;
+        private final long streamErrors;
+        private final long unaryOk;
+        private final long unaryFailed;
+        private final long unaryShed;
+        private final LatencyHistogram.Snapshot streamingLatency;
+        private final LatencyHistogram.Snapshot unaryLatency;
+
+        Summary(long durationMs, long sessionsOpened, long openFailures, int peakSessions, long messages,
+                long finals, long streamErrors, long unaryOk, long unaryFailed, long unaryShed,
+                LatencyHistogram.Snapshot streamingLatency, LatencyHistogram.Snapshot unaryLatency) {
+            this.durationMs = durationMs;
+            this.sessionsOpened = sessionsOpened;
+            this.openFailures = openFailures;
+            this.peakSessions = peakSessions;
+            this.messages = messages;
+            this.finals = finals;
+            this.streamErrors = streamErrors;
+            this.unaryOk = unaryOk;
+            this.unaryFailed = unaryFailed;
+            this.unaryShed = unaryShed;
+            this.streamingLatency = streamingLatency;
+            this.unaryLatency = unaryLatency;
+        }
+
+        public long getDurationMs() { return durationMs; }
+        public long getSessionsOpened() { return sessionsOpened; }
+        public long getOpenFailures() { return openFailures; }
+        public int getPeakSessions() { return peakSessions; }
+        public long getMessages() { return messages; }
+        public long getFinals() { return finals; }
+        public long getStreamErrors() { return streamErrors; }
+        public long getUnaryOk() { return unaryOk; }
+        public long getUnaryFailed() { return unaryFailed; }
+        public long getUnaryShed() { return unaryShed; }
+        public LatencyHistogram.Snapshot getStreamingLatency() { return streamingLatency; }
+        public LatencyHistogram.Snapshot getUnaryLatency() { return unaryLatency; }
+
+        /**
+         * Check whether the run completed without stream, open or one-time call failures
+         * @return true if nothing failed
+         */
+        public boolean isClean() {
+            return streamErrors == 0 && openFailures == 0 && unaryFailed == 0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(1e-3, durationMs / 1000.0);
+            return String.format("%n=== Load test summary ===%n"
+                    + "duration:          %.1fs%n"
+                    + "sessions:          %d opened, %d peak, %d failed to open%n"
+                    + "insights:          %d (%.1f/s), %d final%n"
+                    + "stream errors:     %d%n"
+                    + "one-time calls:    %d ok, %d failed, %d shed%n"
+                    + "publish->receipt:  %s%n"
+                    + "one-time latency:  %s",
+                seconds, sessionsOpened, peakSessions, openFailures,
+                messages, messages / seconds, finals,
+                streamErrors,
+                unaryOk, unaryFailed, unaryShed,
+                streamingLatency, unaryLatency);
+        }
+    }
+
+    public static Builder newBuilder(StreamingInsightClient client) {
+        return new Builder(client);
+    }
+
+    public static class Builder {
+        private final StreamingInsightClient client;
+        private int sessions = 100;
+        private long rampUpMs = 30000; // 30 seconds
+        private long holdMs = 60000; // 1 minute
+        private long rampDownMs = 10000; // 10 seconds
+        private long reportIntervalMs = 5000; // 5 seconds
+        private double unaryCallsPerSecond = 0; // streaming only
+        private InsightsServingRequest.InsightType unaryInsightType = InsightsServingRequest.InsightType.TRANSCRIPTION;
+        private long unaryDeadlineMs = 30000; // 30 seconds
+        private String conversationPrefix = "load-" + System.currentTimeMillis() + "-";
+        private String orgId = InsightPayloads.DEFAULT_ORG_ID;
+        private String agentId = "load-agent";
+        private PrintStream out = System.out;
+
+        private Builder(StreamingInsightClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Concurrent streaming sessions held during the hold phase
+         */
+        public Builder setSessions(int sessions) {
+            this.sessions = Math.max(0, sessions);
+            return this;
+        }
+
+        /**
+         * Length of the phases: linear ramp from 0 to the session count, hold, linear ramp back to 0
+         */
+        public Builder setPhases(long rampUpMs, long holdMs, long rampDownMs) {
+            this.rampUpMs = Math.max(0, rampUpMs);
+            this.holdMs = Math.max(0, holdMs);
+            this.rampDownMs = Math.max(0, rampDownMs);
+            return this;
+        }
+
+        public Builder setReportIntervalMs(long reportIntervalMs) {
+            this.reportIntervalMs = Math.max(TICK_MS, reportIntervalMs);
+            return this;
+        }
+
+        /**
+         * One-time insight calls per second for random conversations of the run, 0 for none
+         */
+        public Builder setUnaryCallsPerSecond(double unaryCallsPerSecond) {
+            this.unaryCallsPerSecond = unaryCallsPerSecond;
+            return this;
+        }
+
+        public Builder setUnaryInsightType(InsightsServingRequest.InsightType unaryInsightType) {
+            this.unaryInsightType = unaryInsightType;
+            return this;
+        }
+
+        public Builder setUnaryDeadlineMs(long unaryDeadlineMs) {
+            this.unaryDeadlineMs = unaryDeadlineMs;
+            return this;
+        }
+
+        /**
+         * Prefix of the generated conversation IDs, followed by a sequence number
+         */
+        public Builder setConversationPrefix(String conversationPrefix) {
+            this.conversationPrefix = conversationPrefix;
+            return this;
+        }
+
+        public Builder setOrgId(String orgId) {
+            this.orgId = orgId;
+            return this;
+        }
+
+        public Builder setAgentId(String agentId) {
+            this.agentId = agentId;
+            return this;
+        }
+
+        /**
+         * Destination of the reports and the summary
+         */
+        public Builder setOut(PrintStream out) {
+            this.out = out;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            return new LoadGenerator(client, this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Response handler writing one JSON object per line (NDJSON) to a file or stdout.
+ * <p>
+ * Insights are encoded on the calling thread with {@link InsightJsonEncoder} and appended to a
+ * shared output buffer. The buffer is flushed once a batch of lines has accumulated, and by a
+ * background timer so a quiet stream does not leave lines sitting in memory.
+ */
+public class NdjsonSink implements Consumer<StreamingInsightServingResponse>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonSink.class);
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_FLUSH_EVERY_LINES = 256;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+
+    private final OutputStream out;
+    private final boolean closeOut;
+    private final int flushEveryLines;
+    private final ScheduledExecutorService flusher;
+    private final Object lock = new Object();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Guarded by lock
+    private int unflushedLines;
+    private boolean closed;
+
+    /**
+     * Create a sink appending to a file, creating it if needed
+     * @param path File to append to
+     * @return sink
+     * @throws IOException if the file cannot be opened
+     */
+    public static NdjsonSink toFile(Path path) throws IOException {
+        OutputStream file = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new NdjsonSink(file, true, DEFAULT_FLUSH_EVERY_LINES, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Create a sink writing to standard output
+     * @return sink
+     */
+    public static NdjsonSink toStdout() {
+        // Bypass System.out, which flushes and locks per println
+        return new NdjsonSink(new FileOutputStream(FileDescriptor.out), false,
+            DEFAULT_FLUSH_EVERY_LINES, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Create a sink
+     * @param out Destination stream
+     * @param closeOut Whether closing the sink closes the destination
+     * @param flushEveryLines Flush after this many lines
+     * @param flushIntervalMs Flush pending lines at least this often, 0 to only flush by count
+     */
+    public NdjsonSink(OutputStream out, boolean closeOut, int flushEveryLines, long flushIntervalMs) {
+        this.out = new BufferedOutputStream(out, DEFAULT_BUFFER_SIZE);
+        this.closeOut = closeOut;
+        this.flushEveryLines = Math.max(1, flushEveryLines);
+        if (flushIntervalMs > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                ClientExecutors.daemonThreadFactory("ndjson-flusher"));
+            this.flusher.scheduleWithFixedDelay(this::flushPending, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    @Override
+    public void accept(StreamingInsightServingResponse response) {
+        try {
+            InsightJsonEncoder.LineBuffer line = InsightJsonEncoder.encodeLine(response);
+            synchronized (lock) {
+                if (closed) {
+                    failed.incrementAndGet();
+                    return;
+                }
+                out.write(line.array(), 0, line.size());
+                if (++unflushedLines >= flushEveryLines) {
+                    out.flush();
+                    unflushedLines = 0;
+                }
+            }
+            written.incrementAndGet();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            logger.error("Error writing insight as NDJSON", e);
+        }
+    }
+
+    /**
+     * Flush all buffered lines to the destination
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            out.flush();
+            unflushedLines = 0;
+        }
+    }
+
+    private void flushPending() {
+        synchronized (lock) {
+            if (closed || unflushedLines == 0) {
+                return;
+            }
+            try {
+                out.flush();
+                unflushedLines = 0;
+            } catch (IOException e) {
+                logger.error("Error flushing NDJSON output", e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of insights written
+     * @return written count
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Get the number of insights that could not be written
+     * @return failed count
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.flush();
+            if (closeOut) {
+                out.close();
+            }
+        }
+    }
+}
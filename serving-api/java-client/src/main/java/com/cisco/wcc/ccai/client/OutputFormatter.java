@@ -0,0 +1,16 @@
+package com.cisco.wcc.ccai.client;
+
+/**
+ * Renders an item as text for an {@link AsyncOutputSink}
+ * @param <T> Type of item
+ */
+@FunctionalInterface
+public interface OutputFormatter<T> {
+
+    /**
+     * Append the text for an item
+     * @param item Item to render
+     * @param out Reused builder to append to, including any trailing line separator
+     */
+    void format(T item, StringBuilder out);
+}
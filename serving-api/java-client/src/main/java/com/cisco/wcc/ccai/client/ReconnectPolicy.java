@@ -0,0 +1,129 @@
+package com.cisco.wcc.ccai.client;
+
+import io.grpc.Status;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reconnect settings for {@link ResilientStreamingInsightSession}
+ */
+public class ReconnectPolicy {
+    
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double backoffMultiplier;
+    private final double jitter;
+    private final int maxAttempts;
+    private final Set<Status.Code> retryableCodes;
+    
+    private ReconnectPolicy(Builder builder) {
+        this.initialBackoffMs = builder.initialBackoffMs;
+        this.maxBackoffMs = builder.maxBackoffMs;
+        this.backoffMultiplier = builder.backoffMultiplier;
+        this.jitter = builder.jitter;
+        this.maxAttempts = builder.maxAttempts;
+        this.retryableCodes = EnumSet.copyOf(builder.retryableCodes);
+    }
+    
+    public long getInitialBackoffMs() { return initialBackoffMs; }
+    public long getMaxBackoffMs() { return maxBackoffMs; }
+    public double getBackoffMultiplier() { return backoffMultiplier; }
+    public double getJitter() { return jitter; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public Set<Status.Code> getRetryableCodes() { return retryableCodes; }
+    
+    /**
+     * Check whether a stream failure should trigger a reconnect
+     * @param error Error reported by the stream
+     * @return true if the status code is retryable
+     */
+    public boolean isRetryable(Throwable error) {
+        return retryableCodes.contains(Status.fromThrowable(error).getCode());
+    }
+    
+    /**
+     * Compute the delay before a reconnect attempt (exponential backoff with jitter)
+     * @param attempt Reconnect attempt, starting at 1
+     * @return delay in milliseconds
+     */
+    public long computeBackoffMs(int attempt) {
+        double backoff = initialBackoffMs * Math.pow(backoffMultiplier, Math.max(0, attempt - 1));
+        backoff = Math.min(backoff, maxBackoffMs);
+        double spread = backoff * jitter;
+        if (spread > 0) {
+            backoff += ThreadLocalRandom.current().nextDouble(-spread, spread);
+        }
+        return Math.max(0, (long) backoff);
+    }
+    
+    /**
+     * Default policy: 0.5s initial backoff doubling up to 30s, 20% jitter, unlimited attempts,
+     * reconnecting on UNAVAILABLE (which includes keepalive timeouts) and ABORTED
+     * @return default policy
+     */
+    public static ReconnectPolicy defaultPolicy() {
+        return newBuilder().build();
+    }
+    
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+    
+    public static class Builder {
+        private long initialBackoffMs = 500;
+        private long maxBackoffMs = 30000; // 30 seconds
+        private double backoffMultiplier = 2.0;
+        private double jitter = 0.2;
+        private int maxAttempts = -1; // unlimited
+        private Set<Status.Code> retryableCodes = EnumSet.of(Status.Code.UNAVAILABLE, Status.Code.ABORTED);
+        
+        public Builder setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+            return this;
+        }
+        
+        public Builder setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+            return this;
+        }
+        
+        public Builder setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+        
+        /**
+         * Fraction of the backoff randomly added or removed, e.g. 0.2 for +/-20%
+         */
+        public Builder setJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+        
+        /**
+         * Maximum consecutive reconnect attempts without receiving an insight, -1 for unlimited
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+        
+        public Builder setRetryableCodes(Set<Status.Code> retryableCodes) {
+            this.retryableCodes = EnumSet.noneOf(Status.Code.class);
+            this.retryableCodes.addAll(retryableCodes);
+            return this;
+        }
+        
+        public ReconnectPolicy build() {
+            if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+                throw new IllegalArgumentException("Invalid backoff range");
+            }
+            if (backoffMultiplier < 1.0 || jitter < 0 || jitter >= 1.0) {
+                throw new IllegalArgumentException("Invalid backoff multiplier or jitter");
+            }
+            return new ReconnectPolicy(this);
+        }
+    }
+}
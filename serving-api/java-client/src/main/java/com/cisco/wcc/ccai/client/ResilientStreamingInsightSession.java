@@ -0,0 +1,372 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Streaming insights session that reconnects when the stream fails with a retryable status.
+ * <p>
+ * Reconnects resubscribe with the historical flags enabled for every insight kind the original
+ * request asked for, so nothing published while disconnected is lost. Items that were already
+ * delivered are dropped using an {@link UtteranceDeduplicator}, and history older than the original
+ * subscription is dropped for insight kinds whose history was not requested in the first place.
+ */
+public class ResilientStreamingInsightSession implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientStreamingInsightSession.class);
+
+    private final StreamingInsightClient client;
+    private final ScheduledExecutorService scheduler;
+    private final InsightServingRequest initialRequest;
+    private final InsightServingRequest resumeRequest;
+    private final ReconnectPolicy policy;
+    private final Consumer<StreamingInsightServingResponse> responseHandler;
+    private final Consumer<Throwable> errorHandler;
+    private final UtteranceDeduplicator deduplicator;
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+    private final AtomicInteger reconnectCount = new AtomicInteger();
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private SessionState state = SessionState.OPENING;
+    private StreamingInsightClient.StreamingInsightSession current;
+    private ScheduledFuture<?> pendingReconnect;
+    private int consecutiveFailures;
+
+    // Publish time before which replayed items were never requested, only touched from stream callbacks
+    private volatile long replayFloorTimestamp;
+    // Set when the session continues one of an earlier process, the floor is then known up front
+    private volatile boolean resumed;
+    // Runs once when the session ends, told whether it completed (or was cancelled) rather than failed
+    private volatile Consumer<Boolean> finishHandler;
+
+    ResilientStreamingInsightSession(StreamingInsightClient client,
+                                     ScheduledExecutorService scheduler,
+                                     InsightServingRequest request,
+                                     ReconnectPolicy policy,
+                                     Consumer<StreamingInsightServingResponse> responseHandler,
+                                     Consumer<Throwable> errorHandler) {
+        this(client, scheduler, request, policy, responseHandler, errorHandler, new UtteranceDeduplicator());
+    }
+
+    ResilientStreamingInsightSession(StreamingInsightClient client,
+                                     ScheduledExecutorService scheduler,
+                                     InsightServingRequest request,
+                                     ReconnectPolicy policy,
+                                     Consumer<StreamingInsightServingResponse> responseHandler,
+                                     Consumer<Throwable> errorHandler,
+                                     UtteranceDeduplicator deduplicator) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.initialRequest = request;
+        this.resumeRequest = resumeRequestFor(request);
+        this.policy = policy;
+        this.responseHandler = responseHandler;
+        this.errorHandler = errorHandler;
+        this.deduplicator = deduplicator;
+        this.replayFloorTimestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Build the request that resubscribes with history for every insight kind the request asked for
+     */
+    static InsightServingRequest resumeRequestFor(InsightServingRequest request) {
+        return request.toBuilder()
+            .setHistoricalTranscripts(request.getRealTimeTranscripts() || request.getHistoricalTranscripts())
+            .setHistoricalAgentAssist(request.getRealtimeAgentAssist() || request.getHistoricalAgentAssist())
+            .setHistoricalMessage(request.getRealTimeMessage() || request.getHistoricalMessage())
+            .build();
+    }
+
+    /**
+     * Set what runs once the session ends. It receives true if the stream completed normally or
+     * the session was cancelled, false if it failed. Must be set before the session starts and
+     * must not block.
+     */
+    void setFinishHandler(Consumer<Boolean> finishHandler) {
+        this.finishHandler = finishHandler;
+    }
+
+    void start() {
+        client.retainIndexedConversation(initialRequest.getConversationId());
+        connect(initialRequest);
+    }
+
+    /**
+     * Start by resubscribing with history, continuing a session of an earlier process
+     * @param replayFloorTimestamp Publish time the original session started at; older history of
+     *                             kinds it did not ask history for is dropped
+     */
+    void resume(long replayFloorTimestamp) {
+        this.replayFloorTimestamp = replayFloorTimestamp;
+        this.resumed = true;
+        client.retainIndexedConversation(initialRequest.getConversationId());
+        connect(resumeRequest);
+    }
+
+    private void connect(InsightServingRequest request) {
+        synchronized (lock) {
+            pendingReconnect = null;
+            if (!state.isLive()) {
+                return;
+            }
+            StreamAttempt attempt = new StreamAttempt();
+            RuntimeException startFailure = null;
+            try {
+                current = client.startStreamingInsights(request, null, this::deliver, attempt::onError, attempt::onTerminated);
+            } catch (RuntimeException e) {
+                logger.warn("Could not open stream for conversation {}", request.getConversationId(), e);
+                startFailure = e;
+            }
+            attempt.opened(startFailure);
+        }
+    }
+
+    private void deliver(StreamingInsightServingResponse response) {
+        synchronized (lock) {
+            if (!state.isLive()) {
+                return;
+            }
+            state = SessionState.ACTIVE;
+            consecutiveFailures = 0;
+        }
+        InsightServingResponse insight = response.getInsightServingResponse();
+        if (!resumed && reconnectCount.get() == 0 && insight.getPublishTimestamp() > 0) {
+            // Server and local clocks may disagree, anchor the floor on what the server actually sent
+            replayFloorTimestamp = Math.min(replayFloorTimestamp, insight.getPublishTimestamp());
+        } else if (insight.getPublishTimestamp() > 0 && insight.getPublishTimestamp() < replayFloorTimestamp
+                && !historyRequested(insight)) {
+            return;
+        }
+        // Insights without a publish time cannot be placed against the floor, only the deduplicator drops them
+        if (deduplicator.shouldDeliver(response)) {
+            responseHandler.accept(response);
+        }
+    }
+
+    private boolean historyRequested(InsightServingResponse insight) {
+        switch (insight.getInsightType()) {
+            case TRANSCRIPTION:
+            case DEFAULT_TRANSCRIPTION:
+                return initialRequest.getHistoricalTranscripts();
+            case AGENT_ANSWERS:
+                return initialRequest.getHistoricalAgentAssist();
+            case MESSAGE:
+                return initialRequest.getHistoricalMessage();
+            case VIRTUAL_AGENT:
+                return initialRequest.getHistoricalVirtualAgent();
+            default:
+                return true;
+        }
+    }
+
+    private void onStreamTerminated(Throwable error) {
+        Throwable fatal = null;
+        synchronized (lock) {
+            current = null;
+            if (!state.isLive()) {
+                finish(true);
+                finishedLatch.countDown();
+                return;
+            }
+            if (error == null) {
+                logger.info("Resilient stream for conversation {} completed", initialRequest.getConversationId());
+                finish(true);
+                finishedLatch.countDown();
+                return;
+            }
+            consecutiveFailures++;
+            boolean attemptsLeft = policy.getMaxAttempts() < 0 || consecutiveFailures <= policy.getMaxAttempts();
+            if (policy.isRetryable(error) && attemptsLeft) {
+                long delayMs = policy.computeBackoffMs(consecutiveFailures);
+                logger.warn("Stream for conversation {} failed ({}), reconnecting in {} ms (attempt {})",
+                    initialRequest.getConversationId(), error.getMessage(), delayMs, consecutiveFailures);
+                try {
+                    reconnectCount.incrementAndGet();
+                    pendingReconnect = scheduler.schedule(() -> connect(resumeRequest), delayMs, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    logger.info("Client is shutting down, not reconnecting conversation {}", 
+                        initialRequest.getConversationId());
+                }
+            }
+            fatal = error;
+            finish(false);
+        }
+        if (errorHandler != null) {
+            try {
+                errorHandler.accept(fatal);
+            } catch (Exception e) {
+                logger.error("Error in error handler", e);
+            }
+        }
+        finishedLatch.countDown();
+    }
+
+    // Must hold lock. The caller counts down finishedLatch once its handlers have run,
+    // so awaitCompletion() never returns before the error handler saw a fatal error
+    private void finish(boolean completed) {
+        if (state == SessionState.CLOSED) {
+            return;
+        }
+        state = SessionState.CLOSED;
+        // Held across reconnects so the indexed transcript survives them
+        client.releaseIndexedConversation(initialRequest.getConversationId());
+        Consumer<Boolean> handler = finishHandler;
+        if (handler != null) {
+            try {
+                handler.accept(completed);
+            } catch (RuntimeException e) {
+                logger.error("Error in finish handler", e);
+            }
+        }
+    }
+
+    /**
+     * Check if the session is still delivering insights (including while reconnecting)
+     * @return true if active, false otherwise
+     */
+    public boolean isActive() {
+        synchronized (lock) {
+            return state.isLive();
+        }
+    }
+
+    /**
+     * Get the lifecycle state of this session
+     * @return current state
+     */
+    public SessionState getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    /**
+     * Check whether the session is waiting to reconnect
+     * @return true while a reconnect is scheduled
+     */
+    public boolean isReconnecting() {
+        synchronized (lock) {
+            return pendingReconnect != null;
+        }
+    }
+
+    /**
+     * Get the number of reconnects performed so far
+     * @return reconnect count
+     */
+    public int getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    /**
+     * Get the conversation ID for this session
+     * @return conversation ID
+     */
+    public String getConversationId() {
+        return initialRequest.getConversationId();
+    }
+
+    /**
+     * Cancel the session, including any pending reconnect
+     */
+    public void cancel() {
+        StreamingInsightClient.StreamingInsightSession toCancel;
+        synchronized (lock) {
+            if (!state.isLive()) {
+                return;
+            }
+            state = SessionState.DRAINING;
+            toCancel = current;
+            if (pendingReconnect != null) {
+                pendingReconnect.cancel(false);
+                pendingReconnect = null;
+            }
+            if (toCancel == null) {
+                finish(true);
+                finishedLatch.countDown();
+            }
+        }
+        if (toCancel != null) {
+            toCancel.close();
+        }
+    }
+
+    /**
+     * Wait for the session to complete
+     * @param timeout Maximum time to wait
+     * @param unit Time unit for timeout
+     * @return true if completed within timeout, false otherwise
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return finishedLatch.await(timeout, unit);
+    }
+
+    /**
+     * Wait indefinitely for the session to complete
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitCompletion() throws InterruptedException {
+        finishedLatch.await();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    /**
+     * Outcome of one underlying stream
+     */
+    private final class StreamAttempt {
+        private volatile Throwable error;
+        private boolean opening = true; // guarded by this
+        private boolean terminated; // guarded by this
+
+        void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        void onTerminated() {
+            synchronized (this) {
+                terminated = true;
+                if (opening) {
+                    // Reported by opened() once the start call has returned
+                    return;
+                }
+            }
+            onStreamTerminated(error);
+        }
+
+        void opened(Throwable startFailure) {
+            boolean fire;
+            synchronized (this) {
+                opening = false;
+                if (startFailure != null) {
+                    if (error == null) {
+                        error = startFailure;
+                    }
+                    terminated = true;
+                }
+                fire = terminated;
+            }
+            if (fire) {
+                onStreamTerminated(error);
+            }
+        }
+    }
+}
@@ -8,65 +8,58 @@ import com.cisco.wcc.ccai.v1.Suggestions.AgentAnswer;
 import com.cisco.wcc.ccai.v1.Suggestions.Answer;
 import com.cisco.wcc.ccai.v1.Virtualagent.NLU;
 import com.cisco.wcc.ccai.v1.Virtualagent.Entity;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Utility class for handling streaming insight responses
  */
 public class ResponseHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(ResponseHandler.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper()
-            .enable(SerializationFeature.INDENT_OUTPUT);
     
     /**
      * Create a simple console response handler that logs all responses
      * @return Consumer that logs responses to console
      */
     public static java.util.function.Consumer<StreamingInsightServingResponse> createConsoleHandler() {
-        return response -> {
-            try {
-                InsightServingResponse insight = response.getInsightServingResponse();
-                
-                System.out.printf("%n=== New Insight Received ===%n");
-                System.out.printf("Conversation ID: %s%n", insight.getConversationId());
-                System.out.printf("Role: %s%n", insight.getRole());
-                System.out.printf("Insight Type: %s%n", insight.getInsightType());
-                System.out.printf("Provider: %s%n", insight.getInsightProvider());
-                System.out.printf("Is Final: %s%n", insight.getIsFinal());
-                System.out.printf("Publish Timestamp: %d%n", insight.getPublishTimestamp());
-                
-                if (insight.hasResponseContent()) {
-                    handleResponseContent(insight.getResponseContent());
-                }
-                
-                System.out.println("===============================");
-                
-            } catch (Exception e) {
-                logger.error("Error processing response", e);
-            }
-        };
+        return createConsoleHandler(getConsoleSink());
+    }
+    
+    /**
+     * Create a console response handler writing through the given sink
+     * @param sink Output sink
+     * @return Consumer that logs responses to the sink
+     */
+    public static java.util.function.Consumer<StreamingInsightServingResponse> createConsoleHandler(AsyncOutputSink sink) {
+        InsightRouter router = new InsightRouter();
+        router.subscribe(InsightRouter.Route.any().interimOnly(),
+            response -> sink.submit(response, true, ResponseHandler::formatInsight));
+        router.subscribe(InsightRouter.Route.any().finalOnly(),
+            response -> sink.submit(response, false, ResponseHandler::formatInsight));
+        return router;
     }
     
     /**
-     * Create a JSON response handler that outputs responses as JSON
+     * Create a JSON response handler that outputs one JSON object per line (NDJSON) to stdout
      * @return Consumer that outputs JSON to console
      */
     public static java.util.function.Consumer<StreamingInsightServingResponse> createJsonHandler() {
-        return response -> {
-            try {
-                // Convert protobuf to JSON for pretty printing
-                String jsonOutput = convertToJsonString(response);
-                System.out.println("Received insight:");
-                System.out.println(jsonOutput);
-                System.out.println("---");
-            } catch (Exception e) {
-                logger.error("Error converting response to JSON", e);
-            }
-        };
+        return StdoutSinkHolder.SINK;
+    }
+    
+    /**
+     * Create a JSON response handler appending one JSON object per line (NDJSON) to a file.
+     * Close the returned sink to flush the remaining lines.
+     * @param path File to append to
+     * @return NDJSON sink
+     * @throws IOException if the file cannot be opened
+     */
+    public static NdjsonSink createNdjsonFileHandler(Path path) throws IOException {
+        return NdjsonSink.toFile(path);
     }
     
     /**
@@ -74,109 +67,210 @@ public class ResponseHandler {
      * @return Consumer for transcript responses
      */
     public static java.util.function.Consumer<StreamingInsightServingResponse> createTranscriptHandler() {
-        return response -> {
-            try {
-                InsightServingResponse insight = response.getInsightServingResponse();
-                
-                if (insight.getInsightType() == InsightServingResponse.ServiceType.TRANSCRIPTION) {
-                    System.out.printf("%n[TRANSCRIPT] %s: ", insight.getRole());
-                    
-                    if (insight.hasResponseContent() && 
-                        insight.getResponseContent().hasRecognitionResult()) {
-                        
-                        StreamingRecognitionResult result = insight.getResponseContent().getRecognitionResult();
-                        if (!result.getAlternativesList().isEmpty()) {
-                            String transcript = result.getAlternatives(0).getTranscript();
-                            String finalStatus = result.getIsFinal() ? "[FINAL]" : "[INTERIM]";
-                            System.out.printf("%s %s%n", transcript, finalStatus);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error processing transcript", e);
+        return createTranscriptHandler(getConsoleSink());
+    }
+    
+    /**
+     * Create a transcript handler writing through the given sink
+     * @param sink Output sink
+     * @return Consumer for transcript responses
+     */
+    public static java.util.function.Consumer<StreamingInsightServingResponse> createTranscriptHandler(AsyncOutputSink sink) {
+        InsightRouter.Route transcripts = InsightRouter.Route.any().insightType(InsightServingResponse.ServiceType.TRANSCRIPTION);
+        InsightRouter router = new InsightRouter();
+        router.subscribe(transcripts.interimOnly(),
+            response -> sink.submit(response, true, ResponseHandler::formatTranscript));
+        router.subscribe(transcripts.finalOnly(),
+            response -> sink.submit(response, false, ResponseHandler::formatTranscript));
+        return router;
+    }
+    
+    /**
+     * Create a transcript handler that prints only what changed between interim results
+     * and the complete transcript once the utterance is final
+     * @return Consumer for transcript responses
+     */
+    public static java.util.function.Consumer<StreamingInsightServingResponse> createDeltaTranscriptHandler() {
+        AsyncOutputSink sink = getConsoleSink();
+        return new UtteranceAssembler(delta -> sink.submit(delta, !delta.isFinal(), ResponseHandler::formatDelta));
+    }
+    
+    /**
+     * Get the sink shared by the console handlers. It writes to stdout from its own thread and
+     * drops interim results rather than slowing down the stream when output falls behind.
+     * @return console sink
+     */
+    public static AsyncOutputSink getConsoleSink() {
+        return ConsoleSinkHolder.SINK;
+    }
+    
+    /**
+     * Check whether an insight is final, either flagged as such or carrying a final recognition result
+     */
+    static boolean isFinal(InsightServingResponse insight) {
+        return insight.getIsFinal() 
+            || (insight.getResponseContent().hasRecognitionResult() 
+                && insight.getResponseContent().getRecognitionResult().getIsFinal());
+    }
+    
+    static void formatInsight(StreamingInsightServingResponse response, StringBuilder out) {
+        InsightServingResponse insight = response.getInsightServingResponse();
+        
+        out.append("\n=== New Insight Received ===\n");
+        out.append("Conversation ID: ").append(insight.getConversationId()).append('\n');
+        out.append("Role: ").append(insight.getRole()).append('\n');
+        out.append("Insight Type: ").append(insight.getInsightType()).append('\n');
+        out.append("Provider: ").append(insight.getInsightProvider()).append('\n');
+        out.append("Is Final: ").append(insight.getIsFinal()).append('\n');
+        out.append("Publish Timestamp: ").append(insight.getPublishTimestamp()).append('\n');
+        
+        if (insight.hasResponseContent()) {
+            formatResponseContent(insight.getResponseContent(), out);
+        }
+        
+        out.append("===============================\n");
+    }
+    
+    static void formatTranscript(StreamingInsightServingResponse response, StringBuilder out) {
+        InsightServingResponse insight = response.getInsightServingResponse();
+        out.append("\n[TRANSCRIPT] ").append(insight.getRole()).append(": ");
+        
+        if (insight.hasResponseContent() && 
+            insight.getResponseContent().hasRecognitionResult()) {
+            
+            StreamingRecognitionResult result = insight.getResponseContent().getRecognitionResult();
+            if (!result.getAlternativesList().isEmpty()) {
+                out.append(result.getAlternatives(0).getTranscript())
+                    .append(result.getIsFinal() ? " [FINAL]\n" : " [INTERIM]\n");
             }
-        };
+        }
     }
     
-    private static void handleResponseContent(ResponseContent content) {
+    private static void formatDelta(TranscriptDelta delta, StringBuilder out) {
+        if (delta.isFinal()) {
+            out.append("\n[TRANSCRIPT] ").append(delta.getRole()).append(": ")
+                .append(delta.getTranscript()).append(" [FINAL]\n");
+        } else {
+            out.append("[DELTA] ").append(delta.getRole()).append(' ').append(delta.getUtteranceId())
+                .append(": @").append(delta.getRetainedLength()).append(" +").append(delta.getAppendedText()).append('\n');
+        }
+    }
+    
+    private static void formatResponseContent(ResponseContent content, StringBuilder out) {
         switch (content.getStreamResponseContentCase()) {
             case RECOGNITIONRESULT:
-                handleTranscriptionResult(content.getRecognitionResult());
+                formatTranscriptionResult(content.getRecognitionResult(), out);
                 break;
             case AGENTANSWERRESULT:
-                handleAgentAnswerResult(content.getAgentAnswerResult());
+                formatAgentAnswerResult(content.getAgentAnswerResult(), out);
                 break;
             case MESSAGERESULT:
-                handleMessageResult(content.getMessageResult());
+                formatMessageResult(content.getMessageResult(), out);
                 break;
             case VIRTUALAGENTRESULT:
-                handleVirtualAgentResult(content.getVirtualAgentResult());
+                formatVirtualAgentResult(content.getVirtualAgentResult(), out);
                 break;
             case RAWCONTENT:
-                System.out.printf("Raw Content: %s%n", content.getRawContent());
+                out.append("Raw Content: ").append(content.getRawContent()).append('\n');
                 break;
             default:
-                System.out.println("Unknown response content type");
+                out.append("Unknown response content type\n");
         }
     }
     
-    private static void handleTranscriptionResult(StreamingRecognitionResult result) {
-        System.out.printf("Transcription Result:%n");
-        System.out.printf("  Is Final: %s%n", result.getIsFinal());
-        System.out.printf("  Language: %s%n", result.getLanguageCode());
+    private static void formatTranscriptionResult(StreamingRecognitionResult result, StringBuilder out) {
+        out.append("Transcription Result:\n");
+        out.append("  Is Final: ").append(result.getIsFinal()).append('\n');
+        out.append("  Language: ").append(result.getLanguageCode()).append('\n');
         
         if (!result.getAlternativesList().isEmpty()) {
             SpeechRecognitionAlternative alt = result.getAlternatives(0);
-            System.out.printf("  Transcript: %s%n", alt.getTranscript());
-            System.out.printf("  Confidence: %.2f%n", alt.getConfidence());
+            out.append("  Transcript: ").append(alt.getTranscript()).append('\n');
+            appendFixed2(out.append("  Confidence: "), alt.getConfidence()).append('\n');
         }
     }
     
-    private static void handleAgentAnswerResult(AgentAnswer agentAnswer) {
-        System.out.printf("Agent Answer Result:%n");
-        System.out.printf("  Number of answers: %d%n", agentAnswer.getAnswersCount());
+    private static void formatAgentAnswerResult(AgentAnswer agentAnswer, StringBuilder out) {
+        out.append("Agent Answer Result:\n");
+        out.append("  Number of answers: ").append(agentAnswer.getAnswersCount()).append('\n');
         
         for (int i = 0; i < agentAnswer.getAnswersCount(); i++) {
             Answer answer = agentAnswer.getAnswers(i);
-            System.out.printf("  Answer %d:%n", i + 1);
-            System.out.printf("    Title: %s%n", answer.getTitle());
-            System.out.printf("    Description: %s%n", answer.getDescription());
-            System.out.printf("    Confidence: %.2f%n", answer.getConfidence());
+            out.append("  Answer ").append(i + 1).append(":\n");
+            out.append("    Title: ").append(answer.getTitle()).append('\n');
+            out.append("    Description: ").append(answer.getDescription()).append('\n');
+            appendFixed2(out.append("    Confidence: "), answer.getConfidence()).append('\n');
         }
     }
     
-    private static void handleMessageResult(Message message) {
-        System.out.printf("Message Result:%n");
-        System.out.printf("  ID: %s%n", message.getId());
-        System.out.printf("  Content: %s%n", message.getContent());
-        System.out.printf("  Sender: %s%n", message.getSenderName());
-        System.out.printf("  Type: %s%n", message.getType());
+    private static void formatMessageResult(Message message, StringBuilder out) {
+        out.append("Message Result:\n");
+        out.append("  ID: ").append(message.getId()).append('\n');
+        out.append("  Content: ").append(message.getContent()).append('\n');
+        out.append("  Sender: ").append(message.getSenderName()).append('\n');
+        out.append("  Type: ").append(message.getType()).append('\n');
     }
     
-    private static void handleVirtualAgentResult(NLU nlu) {
-        System.out.printf("Virtual Agent Result:%n");
-        System.out.printf("  Intent: %s%n", nlu.getIntent());
-        System.out.printf("  Confidence: %.2f%n", nlu.getConfidence());
-        System.out.printf("  Query: %s%n", nlu.getQueryText());
-        System.out.printf("  Fulfillment: %s%n", nlu.getFulfillmentText());
+    private static void formatVirtualAgentResult(NLU nlu, StringBuilder out) {
+        out.append("Virtual Agent Result:\n");
+        out.append("  Intent: ").append(nlu.getIntent()).append('\n');
+        appendFixed2(out.append("  Confidence: "), nlu.getConfidence()).append('\n');
+        out.append("  Query: ").append(nlu.getQueryText()).append('\n');
+        out.append("  Fulfillment: ").append(nlu.getFulfillmentText()).append('\n');
         
         if (!nlu.getEntitiesList().isEmpty()) {
-            System.out.println("  Entities:");
+            out.append("  Entities:\n");
             for (Entity entity : nlu.getEntitiesList()) {
-                System.out.printf("    %s: %s (%.2f)%n", 
-                    entity.getType(), entity.getValue(), entity.getConfidence());
+                out.append("    ").append(entity.getType()).append(": ").append(entity.getValue()).append(" (");
+                appendFixed2(out, entity.getConfidence()).append(")\n");
             }
         }
     }
     
-    private static String convertToJsonString(Object object) {
-        try {
-            // This is a simplified JSON conversion
-            // In practice, you might want to use protobuf-util for better JSON conversion
-            return object.toString(); // Fallback to toString for protobuf objects
-        } catch (Exception e) {
-            logger.warn("Could not convert to JSON, using toString", e);
-            return object.toString();
+    /**
+     * Append a value with two decimals, like %.2f but without a Formatter
+     */
+    private static StringBuilder appendFixed2(StringBuilder out, float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return out.append(value);
+        }
+        long hundredths = Math.round(Math.abs((double) value) * 100);
+        if (value < 0 && hundredths != 0) {
+            out.append('-');
+        }
+        out.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+    
+    /**
+     * Console sink shared by all console handlers, created on first use
+     */
+    private static final class ConsoleSinkHolder {
+        static final AsyncOutputSink SINK = AsyncOutputSink.stdout(AsyncOutputSink.OverflowPolicy.DROP_INTERIM);
+        
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(SINK::close, "console-sink-flush"));
+        }
+    }
+    
+    /**
+     * Stdout sink shared by all JSON handlers, created on first use
+     */
+    private static final class StdoutSinkHolder {
+        static final NdjsonSink SINK = NdjsonSink.toStdout();
+        
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    SINK.flush();
+                } catch (IOException e) {
+                    logger.warn("Could not flush JSON output", e);
+                }
+            }, "ndjson-stdout-flush"));
         }
     }
     
@@ -0,0 +1,23 @@
+package com.cisco.wcc.ccai.client;
+
+/**
+ * Lifecycle of a streaming insights session
+ */
+public enum SessionState {
+    /** The call has been started but no insight has been received yet */
+    OPENING,
+    /** Insights are being received */
+    ACTIVE,
+    /** Cancellation was requested and the call is being torn down */
+    DRAINING,
+    /** The call has ended and all its resources are released */
+    CLOSED;
+
+    /**
+     * Check whether insights are still delivered in this state
+     * @return true for OPENING and ACTIVE
+     */
+    public boolean isLive() {
+        return this == OPENING || this == ACTIVE;
+    }
+}
@@ -0,0 +1,149 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Upstream streaming calls shared between local subscribers.
+ * <p>
+ * Subscribers asking for the same conversation, organization and insight flags share one
+ * {@code streamingInsightServing} call. The call is opened with the first subscriber's request
+ * and cancelled once its last subscriber closes; a subscriber joining later receives insights
+ * from the moment it joined. When the call ends, every subscriber still attached gets its
+ * buffered insights and then the error, if any.
+ */
+class SharedInsightStreams {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedInsightStreams.class);
+
+    private final StreamingInsightClient client;
+    private final Executor dispatchExecutor;
+    private final int subscriberBufferSize;
+    private final ConcurrentMap<InsightServingRequest, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    SharedInsightStreams(StreamingInsightClient client, Executor dispatchExecutor, int subscriberBufferSize) {
+        this.client = client;
+        this.dispatchExecutor = dispatchExecutor;
+        this.subscriberBufferSize = subscriberBufferSize;
+    }
+
+    InsightSubscription subscribe(InsightServingRequest request,
+                                  Consumer<StreamingInsightServingResponse> responseHandler,
+                                  Consumer<Throwable> errorHandler) {
+        InsightServingRequest key = keyOf(request);
+        while (true) {
+            Upstream upstream = upstreams.computeIfAbsent(key, k -> new Upstream(k, request));
+            InsightSubscription subscription = new InsightSubscription(
+                upstream, responseHandler, errorHandler, dispatchExecutor, subscriberBufferSize);
+            if (upstream.add(subscription)) {
+                return subscription;
+            }
+            // Lost a race with the last subscriber leaving, the next lookup creates a fresh upstream
+            upstreams.remove(key, upstream);
+        }
+    }
+
+    int getUpstreamCount() {
+        return upstreams.size();
+    }
+
+    /**
+     * Requests differing only in who asks or in the message id are served by the same stream
+     */
+    private static InsightServingRequest keyOf(InsightServingRequest request) {
+        return request.toBuilder().clearAgentDetails().clearMessageId().build();
+    }
+
+    /**
+     * One upstream call and the subscribers it fans out to
+     */
+    final class Upstream {
+        private final InsightServingRequest key;
+        private final InsightServingRequest request;
+        private final List<InsightSubscription> subscribers = new CopyOnWriteArrayList<>();
+
+        // Guarded by this
+        private StreamingInsightClient.StreamingInsightSession session;
+        private boolean closed;
+        private volatile Throwable error;
+
+        private Upstream(InsightServingRequest key, InsightServingRequest request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        synchronized boolean add(InsightSubscription subscription) {
+            if (closed) {
+                return false;
+            }
+            subscribers.add(subscription);
+            if (session == null) {
+                logger.info("Opening shared stream for conversation {}", request.getConversationId());
+                try {
+                    session = client.startStreamingInsights(request, null, this::fanOut, this::fail, this::terminated);
+                } catch (RuntimeException e) {
+                    closed = true;
+                    subscribers.clear();
+                    upstreams.remove(key, this);
+                    throw e;
+                }
+            }
+            return true;
+        }
+
+        void remove(InsightSubscription subscription) {
+            StreamingInsightClient.StreamingInsightSession toClose;
+            synchronized (this) {
+                if (!subscribers.remove(subscription) || !subscribers.isEmpty() || closed) {
+                    return;
+                }
+                closed = true;
+                toClose = session;
+            }
+            upstreams.remove(key, this);
+            logger.info("Last subscriber left, closing shared stream for conversation {}", request.getConversationId());
+            if (toClose != null) {
+                toClose.close();
+            }
+        }
+
+        String getConversationId() {
+            return request.getConversationId();
+        }
+
+        int getSubscriberCount() {
+            return subscribers.size();
+        }
+
+        private void fanOut(StreamingInsightServingResponse response) {
+            for (InsightSubscription subscriber : subscribers) {
+                subscriber.offer(response);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            error = throwable;
+        }
+
+        private void terminated() {
+            synchronized (this) {
+                closed = true;
+            }
+            upstreams.remove(key, this);
+            Throwable cause = error;
+            for (InsightSubscription subscriber : subscribers) {
+                subscriber.end(cause);
+            }
+            subscribers.clear();
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * State of one streamingInsightServing call. Kept separate from the public
+ * {@link StreamingInsightClient.StreamingInsightSession} handle so that gRPC only
+ * references this object and an abandoned handle can be detected once it becomes unreachable.
+ * <p>
+ * With a buffer capacity above zero the call uses manual inbound flow control: at most
+ * {@code bufferCapacity} messages are requested from the server, received messages are queued and
+ * handed to the response handler on the dispatch executor, and new messages are only requested
+ * as the handler drains the queue.
+ */
+class StreamingInsightCall implements ClientResponseObserver<StreamingInsightServingRequest, StreamingInsightServingResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingInsightCall.class);
+
+    private final String conversationId;
+    private final Consumer<StreamingInsightServingResponse> responseHandler;
+    private final Consumer<Throwable> errorHandler;
+    private final ChannelPool.ChannelLease lease;
+    private final Context.CancellableContext context;
+    private final Consumer<StreamingInsightCall> onClosed;
+    private final AtomicReference<SessionState> state = new AtomicReference<>(SessionState.OPENING);
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+    private final AtomicBoolean awaitedOrClosed = new AtomicBoolean(false);
+    private volatile ClientCallStreamObserver<StreamingInsightServingRequest> requestStream;
+    
+    // Flow control, only used when bufferCapacity > 0
+    private final int bufferCapacity;
+    private final int refillThreshold;
+    private final Executor dispatchExecutor;
+    private final BlockingQueue<Received> queue;
+    private final AtomicInteger outstandingCredits = new AtomicInteger();
+    private final AtomicInteger drainWip = new AtomicInteger();
+    private final AtomicReference<Runnable> pendingTermination = new AtomicReference<>();
+    private int consumedSinceRequest; // only touched by the drain loop
+    private final AtomicLong filteredCount = new AtomicLong();
+    private final InsightLatencyStats latencyStats;
+    private final WireSizeStats wireSizeStats;
+
+    StreamingInsightCall(String conversationId,
+                         Consumer<StreamingInsightServingResponse> responseHandler,
+                         Consumer<Throwable> errorHandler,
+                         ChannelPool.ChannelLease lease,
+                         int bufferCapacity,
+                         Executor dispatchExecutor,
+                         InsightLatencyStats latencyStats,
+                         WireSizeStats wireSizeStats,
+                         Consumer<StreamingInsightCall> onClosed) {
+        this.conversationId = conversationId;
+        this.bufferCapacity = bufferCapacity;
+        this.refillThreshold = Math.max(1, bufferCapacity / 4);
+        this.dispatchExecutor = dispatchExecutor;
+        this.queue = bufferCapacity > 0 ? new ArrayBlockingQueue<>(bufferCapacity) : null;
+        this.responseHandler = responseHandler;
+        this.errorHandler = errorHandler;
+        this.lease = lease;
+        this.latencyStats = latencyStats;
+        this.wireSizeStats = wireSizeStats;
+        this.onClosed = onClosed;
+        this.context = Context.current().withCancellation();
+    }
+
+    /**
+     * Start the call inside this session's cancellable context
+     * @param starter Action issuing the gRPC call with this object as observer
+     */
+    void start(Runnable starter) {
+        try {
+            context.run(starter);
+        } catch (RuntimeException e) {
+            if (state.getAndSet(SessionState.CLOSED) != SessionState.CLOSED) {
+                releaseResources();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<StreamingInsightServingRequest> requestStream) {
+        this.requestStream = requestStream;
+        if (isFlowControlled()) {
+            outstandingCredits.set(bufferCapacity);
+            requestStream.disableAutoRequestWithInitial(bufferCapacity);
+        }
+    }
+
+    @Override
+    public void onNext(StreamingInsightServingResponse response) {
+        long receivedAtMillis = latencyStats != null ? System.currentTimeMillis() : 0;
+        long receivedNanos = latencyStats != null ? System.nanoTime() : 0;
+        if (!isFlowControlled()) {
+            deliver(response, receivedAtMillis, receivedNanos);
+            return;
+        }
+        outstandingCredits.decrementAndGet();
+        if (!queue.offer(new Received(response, receivedAtMillis, receivedNanos))) {
+            // Cannot happen unless the server ignores flow control
+            logger.warn("Insight buffer full for conversation {}, dropping message", conversationId);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Observer for the lazily decoded variant of the call: evaluates the filter on the header
+     * fields and only fully parses the messages that pass it
+     * @param filter Header filter
+     * @return observer to start the call with
+     */
+    ClientResponseObserver<StreamingInsightServingRequest, LazyInsightResponse> filtering(Predicate<LazyInsightResponse> filter) {
+        return new ClientResponseObserver<>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<StreamingInsightServingRequest> requestStream) {
+                StreamingInsightCall.this.beforeStart(requestStream);
+            }
+
+            @Override
+            public void onNext(LazyInsightResponse lazy) {
+                boolean accepted;
+                try {
+                    accepted = filter.test(lazy);
+                } catch (RuntimeException e) {
+                    logger.error("Error in insight filter", e);
+                    accepted = false;
+                }
+                if (accepted) {
+                    try {
+                        StreamingInsightCall.this.onNext(lazy.toResponse());
+                        return;
+                    } catch (InvalidProtocolBufferException e) {
+                        logger.warn("Dropping malformed insight for conversation {}", conversationId, e);
+                    }
+                }
+                filteredCount.incrementAndGet();
+                if (isFlowControlled()) {
+                    // The dropped message used up a credit without reaching the queue, replace it
+                    requestStream.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                StreamingInsightCall.this.onError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                StreamingInsightCall.this.onCompleted();
+            }
+        };
+    }
+
+    private void deliver(StreamingInsightServingResponse response, long receivedAtMillis, long receivedNanos) {
+        if (!state.get().isLive()) {
+            return;
+        }
+        state.compareAndSet(SessionState.OPENING, SessionState.ACTIVE);
+        try {
+            responseHandler.accept(response);
+        } catch (Exception e) {
+            logger.error("Error in response handler", e);
+        }
+        if (latencyStats != null) {
+            latencyStats.record(response.getInsightServingResponse(), receivedAtMillis, receivedNanos, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        terminate(() -> handleError(throwable));
+    }
+
+    @Override
+    public void onCompleted() {
+        terminate(this::handleCompleted);
+    }
+
+    private void terminate(Runnable termination) {
+        if (!isFlowControlled()) {
+            termination.run();
+            return;
+        }
+        // Queued insights are delivered before the session is closed
+        pendingTermination.set(termination);
+        scheduleDrain();
+    }
+
+    private void handleError(Throwable throwable) {
+        SessionState previous = state.getAndSet(SessionState.CLOSED);
+        if (previous == SessionState.CLOSED) {
+            return;
+        }
+        if (previous == SessionState.DRAINING && Status.fromThrowable(throwable).getCode() == Status.Code.CANCELLED) {
+            logger.info("Streaming insights cancelled for conversation {}", conversationId);
+        } else {
+            logger.error("Streaming insights error for conversation {}", conversationId, throwable);
+            if (errorHandler != null) {
+                try {
+                    errorHandler.accept(throwable);
+                } catch (Exception e) {
+                    logger.error("Error in error handler", e);
+                }
+            }
+        }
+        releaseResources();
+    }
+
+    private void handleCompleted() {
+        if (state.getAndSet(SessionState.CLOSED) == SessionState.CLOSED) {
+            return;
+        }
+        logger.info("Streaming insights completed for conversation {}", conversationId);
+        releaseResources();
+    }
+
+    /**
+     * Cancel the call on the server and stop delivering insights
+     * @param reason Message attached to the CANCELLED status
+     */
+    void cancel(String reason) {
+        SessionState current = state.get();
+        while (current.isLive()) {
+            if (state.compareAndSet(current, SessionState.DRAINING)) {
+                ClientCallStreamObserver<StreamingInsightServingRequest> stream = requestStream;
+                if (stream != null) {
+                    stream.cancel(reason, null);
+                } else {
+                    // Not started yet, cancelling the context prevents the call from going out
+                    context.cancel(null);
+                }
+                return;
+            }
+            current = state.get();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainWip.getAndIncrement() == 0) {
+            try {
+                dispatchExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Executor is shutting down, drain on the calling thread so the session still closes
+                logger.debug("Dispatch executor rejected insights for conversation {}", conversationId);
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        while (true) {
+            Received received;
+            while ((received = queue.poll()) != null) {
+                deliver(received.response, received.receivedAtMillis, received.receivedNanos);
+                if (++consumedSinceRequest >= refillThreshold || queue.isEmpty()) {
+                    requestMore();
+                }
+            }
+            Runnable termination = pendingTermination.getAndSet(null);
+            if (termination != null) {
+                termination.run();
+            }
+            missed = drainWip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void requestMore() {
+        int credits = consumedSinceRequest;
+        consumedSinceRequest = 0;
+        ClientCallStreamObserver<StreamingInsightServingRequest> stream = requestStream;
+        if (credits > 0 && stream != null && state.get() != SessionState.CLOSED) {
+            outstandingCredits.addAndGet(credits);
+            stream.request(credits);
+        }
+    }
+
+    private boolean isFlowControlled() {
+        return bufferCapacity > 0;
+    }
+
+    private void releaseResources() {
+        // A CancellableContext must always be cancelled to detach it from its parent
+        context.cancel(null);
+        lease.release();
+        finishedLatch.countDown();
+        onClosed.accept(this);
+    }
+
+    /**
+     * Called once the public session handle became unreachable
+     * @param creationSite Stack trace captured when the session was created, may be null
+     */
+    void onHandleUnreachable(Throwable creationSite) {
+        if (!state.get().isLive()) {
+            return;
+        }
+        if (awaitedOrClosed.get()) {
+            logger.warn("Streaming session for conversation {} became unreachable while still open, cancelling it",
+                conversationId, creationSite);
+        } else {
+            logger.warn("LEAK: streaming session for conversation {} was never awaited or closed, cancelling it",
+                conversationId, creationSite);
+        }
+        cancel("Session handle was garbage collected");
+    }
+
+    void markAwaitedOrClosed() {
+        awaitedOrClosed.set(true);
+    }
+
+    String getConversationId() {
+        return conversationId;
+    }
+
+    SessionState getState() {
+        return state.get();
+    }
+
+    CountDownLatch getFinishedLatch() {
+        return finishedLatch;
+    }
+
+    int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    int getOutstandingCredits() {
+        return outstandingCredits.get();
+    }
+
+    long getFilteredCount() {
+        return filteredCount.get();
+    }
+
+    InsightLatencyStats getLatencyStats() {
+        return latencyStats;
+    }
+
+    WireSizeStats getWireSizeStats() {
+        return wireSizeStats;
+    }
+
+    /**
+     * Queued insight with its time of receipt
+     */
+    private static final class Received {
+        final StreamingInsightServingResponse response;
+        final long receivedAtMillis;
+        final long receivedNanos;
+
+        Received(StreamingInsightServingResponse response, long receivedAtMillis, long receivedNanos) {
+            this.response = response;
+            this.receivedAtMillis = receivedAtMillis;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
@@ -4,20 +4,59 @@ import com.cisco.wcc.ccai.v1.AiInsightGrpc;
 import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
 import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
 import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
 import com.cisco.wcc.ccai.v1.AgentDetails;
 import com.cisco.wcc.ccai.v1.InsightsServingRequest;
 import com.cisco.wcc.ccai.v1.InsightsServingResponse;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.*;
+import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
-import io.grpc.stub.StreamObserver;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.WriteBufferWaterMark;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import io.grpc.stub.AbstractStub;
+import io.grpc.stub.ClientCalls;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * gRPC client for streaming AI insights from Webex Contact Center
@@ -27,9 +66,30 @@ public class StreamingInsightClient implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(StreamingInsightClient.class);
     
     private final StreamingInsightClientConfig config;
-    private final ManagedChannel channel;
-    private final AiInsightGrpc.AiInsightStub asyncStub;
+    private final ChannelPool channelPool;
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    private final Set<StreamingInsightCall> openCalls = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final Executor callbackExecutor;
+    private final Executor dispatchExecutor;
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+    private final TokenCallCredentials callCredentials;
+    private final InsightCache insightCache;
+    private final TranscriptIndex transcriptIndex;
+    private final InsightLatencyStats latencyStats;
+    private final WireSizeStats wireSizeStats;
+    private final CompressorRegistry compressorRegistry;
+    private final DecompressorRegistry decompressorRegistry;
+    private final EventLoopGroup eventLoopGroup;
+    private final Class<? extends io.grpc.netty.shaded.io.netty.channel.Channel> channelType;
+    private final EventLoopGroup ownedEventLoopGroup;
+    private final SharedInsightStreams sharedStreams;
+    private final AtomicReference<CompletableFuture<Void>> readiness = new AtomicReference<>();
+    private final UnaryAttemptStats unaryAttemptStats = new UnaryAttemptStats();
+    // Hedging delay in the service config of channels built from now on
+    private volatile long hedgingDelayMs;
+    // First-attempt latency when the hedging delay was last derived, touched by the scheduler only
+    private LatencyHistogram.Snapshot hedgingWindowStart = LatencyHistogram.Snapshot.empty();
     
     /**
      * Create a new StreamingInsightClient
@@ -37,20 +97,284 @@ public class StreamingInsightClient implements AutoCloseable {
      */
     public StreamingInsightClient(StreamingInsightClientConfig config) {
         this.config = config;
-        this.channel = createChannel();
-        this.asyncStub = AiInsightGrpc.newStub(channel);
+        this.callbackExecutor = createCallbackExecutor();
+        if (callbackExecutor != null) {
+            this.dispatchExecutor = callbackExecutor;
+        } else {
+            this.dispatchExecutor = own(Executors.newCachedThreadPool(
+                ClientExecutors.daemonThreadFactory("streaming-insight-dispatch")));
+        }
+        this.compressorRegistry = createCompressorRegistry();
+        this.decompressorRegistry = createDecompressorRegistry();
+        if (config.getEventLoopGroup() != null) {
+            this.eventLoopGroup = config.getEventLoopGroup();
+            this.channelType = config.getChannelType();
+            this.ownedEventLoopGroup = null;
+        } else if (config.getInProcessServerName() == null
+                && (config.getEventLoopThreads() > 0 || config.isNativeTransportPreferred())) {
+            boolean epoll = config.isNativeTransportPreferred() && Epoll.isAvailable();
+            if (config.isNativeTransportPreferred() && !epoll) {
+                logger.info("Native transport unavailable, using NIO: {}", String.valueOf(Epoll.unavailabilityCause()));
+            }
+            DefaultThreadFactory threadFactory = new DefaultThreadFactory("streaming-insight-netty", true);
+            this.eventLoopGroup = epoll
+                ? new EpollEventLoopGroup(config.getEventLoopThreads(), threadFactory)
+                : new NioEventLoopGroup(config.getEventLoopThreads(), threadFactory);
+            this.channelType = epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+            this.ownedEventLoopGroup = eventLoopGroup;
+        } else {
+            this.eventLoopGroup = null;
+            this.channelType = null;
+            this.ownedEventLoopGroup = null;
+        }
+        this.hedgingDelayMs = config.getUnaryCallPolicy().hedgingDelayMs(null);
+        this.channelPool = new ChannelPool(
+            config.getChannelPoolSize(),
+            config.getMaxStreamsPerChannel(),
+            config.getChannelSelectionPolicy(),
+            config.getChannelEvictAfterMs(),
+            this::createChannel);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "streaming-insight-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.getUnaryCallPolicy().getMode() == UnaryCallPolicy.Mode.HEDGE) {
+            long refreshMs = config.getUnaryCallPolicy().getHedgingDelayRefreshMs();
+            scheduler.scheduleWithFixedDelay(this::refreshHedgingDelay, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        }
+        this.callCredentials = createCallCredentials();
+        this.latencyStats = config.isLatencyTrackingEnabled() ? new InsightLatencyStats() : null;
+        this.wireSizeStats = config.isWireSizeTrackingEnabled() ? new WireSizeStats() : null;
+        this.insightCache = config.getInsightCacheMaxBytes() > 0
+            ? new InsightCache(config.getInsightCacheMaxBytes(), config.getInsightCacheTtlMs())
+            : null;
+        this.transcriptIndex = config.getTranscriptIndexMaxConversations() > 0
+            ? new TranscriptIndex(config.getTranscriptIndexMaxConversations())
+            : null;
+        this.sharedStreams = new SharedInsightStreams(this, dispatchExecutor, config.getSubscriberBufferSize());
+        
+        logger.info("StreamingInsightClient initialized with server {} ({} channel(s), {} execution, {} transport)", 
+            config.getInProcessServerName() != null
+                ? "in-process:" + config.getInProcessServerName()
+                : config.getServerHost() + ":" + config.getServerPort(),
+            config.getChannelPoolSize(),
+            config.getExecutor() != null ? "custom" : config.getExecutionModel(),
+            channelType != null ? channelType.getSimpleName() : "default");
+        
+        if (config.isEagerConnect()) {
+            connect();
+        }
+    }
+    
+    /**
+     * Connect every pooled channel now rather than on its first call, and send a warm-up call on
+     * each when enabled. Safe to call more than once; later calls return the same future while it
+     * is pending or succeeded, and start a new attempt once it failed.
+     * Traffic can be gated on the result, e.g. by a readiness probe.
+     * @return future completed once all channels are READY (and warmed up), or exceptionally when
+     *         that takes longer than the connect timeout or the warm-up call is rejected
+     */
+    public CompletableFuture<Void> connect() {
+        CompletableFuture<Void> existing = readiness.get();
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!readiness.compareAndSet(null, result)) {
+            return readiness.get();
+        }
+        if (isShutdown.get()) {
+            result.completeExceptionally(new IllegalStateException("Client is shutdown"));
+            return result;
+        }
         
-        logger.info("StreamingInsightClient initialized with server {}:{}", 
-            config.getServerHost(), config.getServerPort());
+        long startNanos = System.nanoTime();
+        long timeoutMs = config.getConnectTimeoutMs();
+        CompletableFuture<Void> ready;
+        try {
+            ready = channelPool.connect(scheduler, timeoutMs);
+        } catch (RuntimeException e) {
+            ready = CompletableFuture.failedFuture(e);
+        }
+        if (config.isWarmUpEnabled()) {
+            ready = ready.thenCompose(ignored -> warmUp(
+                Math.max(1, timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))));
+        }
+        ready.whenComplete((ignored, error) -> {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (error != null) {
+                logger.warn("Client not ready after {} ms", elapsedMs, error);
+                // Cleared first so a caller reacting to the failure can retry
+                readiness.compareAndSet(result, null);
+                result.completeExceptionally(error);
+            } else {
+                logger.info("Client ready after {} ms ({} channel(s))", elapsedMs, channelPool.size());
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Check whether {@link #connect()} has completed successfully
+     * @return true once all channels were connected (and warmed up)
+     */
+    public boolean isReady() {
+        CompletableFuture<Void> future = readiness.get();
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+    
+    /**
+     * Send one insightServing call on every channel. The call asks for a conversation that does
+     * not exist, so any answer from the server counts; only failures showing the server is
+     * unreachable or rejects our credentials fail the warm-up.
+     */
+    private CompletableFuture<Void> warmUp(long deadlineMs) {
+        InsightsServingRequest request = InsightsServingRequest.newBuilder()
+            .setConversationId("warm-up")
+            .setOrgId(config.getOrgId() == null ? "" : config.getOrgId())
+            .setInsightType(InsightsServingRequest.InsightType.TRANSCRIPTION)
+            .build();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[channelPool.size()];
+        for (int i = 0; i < calls.length; i++) {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            AiInsightGrpc.AiInsightFutureStub futureStub =
+                prepare(AiInsightGrpc.newFutureStub(channelPool.getChannel(i)), request.getOrgId(), null)
+                    .withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS);
+            Futures.addCallback(futureStub.insightServing(request), new FutureCallback<InsightsServingResponse>() {
+                @Override
+                public void onSuccess(InsightsServingResponse response) {
+                    call.complete(null);
+                }
+                
+                @Override
+                public void onFailure(Throwable t) {
+                    switch (Status.fromThrowable(t).getCode()) {
+                        case UNAVAILABLE:
+                        case DEADLINE_EXCEEDED:
+                        case UNAUTHENTICATED:
+                        case PERMISSION_DENIED:
+                            call.completeExceptionally(t);
+                            break;
+                        default:
+                            logger.debug("Warm-up call answered with {}", Status.fromThrowable(t).getCode());
+                            call.complete(null);
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+            calls[i] = call;
+        }
+        return CompletableFuture.allOf(calls);
+    }
+    
+    private CompressorRegistry createCompressorRegistry() {
+        // The default registry is process-wide, so extra codecs go into a registry of our own
+        CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        registry.register(new Codec.Gzip());
+        registry.register(Codec.Identity.NONE);
+        for (Codec codec : config.getCodecs()) {
+            registry.register(codec);
+        }
+        if (config.getCompression() != null && registry.lookupCompressor(config.getCompression()) == null) {
+            throw new IllegalArgumentException("Unknown compression codec: " + config.getCompression());
+        }
+        return registry;
+    }
+    
+    private DecompressorRegistry createDecompressorRegistry() {
+        DecompressorRegistry registry = DecompressorRegistry.getDefaultInstance();
+        for (Codec codec : config.getCodecs()) {
+            registry = registry.with(codec, true);
+        }
+        return registry;
+    }
+    
+    private TokenCallCredentials createCallCredentials() {
+        TokenProvider tokenProvider = config.getTokenProvider();
+        if (tokenProvider == null && config.getAccessToken() != null && !config.getAccessToken().isEmpty()) {
+            tokenProvider = TokenProvider.fixed(config.getAccessToken());
+        }
+        if (tokenProvider == null) {
+            return null;
+        }
+        // Providers may block, so they never run on the dispatch executor, which is the
+        // transport thread under DIRECT execution, nor on the scheduler
+        Executor fetchExecutor = own(Executors.newCachedThreadPool(
+            ClientExecutors.daemonThreadFactory("streaming-insight-token")));
+        return new TokenCallCredentials(tokenProvider, fetchExecutor, scheduler, config.getTokenRefreshSkewMs());
+    }
+    
+    /**
+     * Get the call credentials shared by all calls, e.g. to invalidate a rejected token
+     * @return call credentials, or null when no token is configured
+     */
+    public TokenCallCredentials getCallCredentials() {
+        return callCredentials;
+    }
+    
+    private Executor createCallbackExecutor() {
+        if (config.getExecutor() != null) {
+            return config.getExecutor();
+        }
+        switch (config.getExecutionModel()) {
+            case VIRTUAL_THREADS:
+                return own(ClientExecutors.newVirtualThreadPerTaskExecutor("streaming-insight-callback"));
+            case BOUNDED_POOL:
+                return own(Executors.newFixedThreadPool(config.getBoundedPoolSize(),
+                    ClientExecutors.daemonThreadFactory("streaming-insight-callback")));
+            case DIRECT:
+                return Runnable::run;
+            case DEFAULT:
+            default:
+                return null;
+        }
+    }
+    
+    private ExecutorService own(ExecutorService executor) {
+        ownedExecutors.add(executor);
+        return executor;
     }
     
-    private ManagedChannel createChannel() {
-        NettyChannelBuilder channelBuilder = NettyChannelBuilder
-            .forAddress(config.getServerHost(), config.getServerPort())
+    private ManagedChannel createChannel(int poolIndex) {
+        if (config.getInProcessServerName() != null) {
+            return createInProcessChannel();
+        }
+        NettyChannelBuilder channelBuilder = createChannelBuilder(poolIndex)
             .maxInboundMessageSize((int) config.getMaxInboundMessageSize())
             .keepAliveTime(config.getKeepAliveIntervalMs(), TimeUnit.MILLISECONDS)
             .keepAliveTimeout(config.getKeepAliveTimeoutMs(), TimeUnit.MILLISECONDS)
-            .keepAliveWithoutCalls(true);
+            .keepAliveWithoutCalls(true)
+            .compressorRegistry(compressorRegistry)
+            .decompressorRegistry(decompressorRegistry);
+        applyServiceConfig(channelBuilder);
+            
+        if (config.getExecutor() == null && config.getExecutionModel() == StreamingInsightClientConfig.ExecutionModel.DIRECT) {
+            channelBuilder.directExecutor();
+        } else if (callbackExecutor != null) {
+            channelBuilder.executor(callbackExecutor);
+        }
+        if (config.getOffloadExecutor() != null) {
+            channelBuilder.offloadExecutor(config.getOffloadExecutor());
+        }
+        if (eventLoopGroup != null) {
+            channelBuilder.eventLoopGroup(eventLoopGroup)
+                .channelType(channelType);
+        }
+        if (config.getFlowControlWindow() > 0) {
+            if (config.isFlowControlAutoTuning()) {
+                channelBuilder.initialFlowControlWindow(config.getFlowControlWindow());
+            } else {
+                channelBuilder.flowControlWindow(config.getFlowControlWindow());
+            }
+        }
+        if (config.getMaxHeaderListSize() > 0) {
+            channelBuilder.maxInboundMetadataSize(config.getMaxHeaderListSize());
+        }
+        if (config.getWriteBufferHighWaterMark() > 0) {
+            channelBuilder.withOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()));
+        }
             
         if (config.isUseTls()) {
             channelBuilder.useTransportSecurity();
@@ -61,24 +385,104 @@ public class StreamingInsightClient implements AutoCloseable {
         return channelBuilder.build();
     }
     
-    private ClientInterceptor createAuthInterceptor() {
-        return new ClientInterceptor() {
-            @Override
-            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
-                    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
-                return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
-                        next.newCall(method, callOptions)) {
-                    @Override
-                    public void start(Listener<RespT> responseListener, Metadata headers) {
-                        if (config.getAccessToken() != null && !config.getAccessToken().isEmpty()) {
-                            headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), 
-                                "Bearer " + config.getAccessToken());
-                        }
-                        super.start(responseListener, headers);
-                    }
-                };
+    private ManagedChannel createInProcessChannel() {
+        InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(config.getInProcessServerName())
+            .maxInboundMessageSize((int) config.getMaxInboundMessageSize())
+            .compressorRegistry(compressorRegistry)
+            .decompressorRegistry(decompressorRegistry);
+        applyServiceConfig(channelBuilder);
+        if (config.getExecutor() == null && config.getExecutionModel() == StreamingInsightClientConfig.ExecutionModel.DIRECT) {
+            channelBuilder.directExecutor();
+        } else if (callbackExecutor != null) {
+            channelBuilder.executor(callbackExecutor);
+        }
+        return channelBuilder.build();
+    }
+    
+    /**
+     * Per-method deadline and retry or hedging policy, with the current hedging delay
+     */
+    private void applyServiceConfig(ManagedChannelBuilder<?> channelBuilder) {
+        UnaryCallPolicy policy = config.getUnaryCallPolicy();
+        long delayMs = hedgingDelayMs;
+        if (policy.getMode() == UnaryCallPolicy.Mode.HEDGE) {
+            logger.debug("Hedging insightServing calls after {} ms", delayMs);
+        }
+        channelBuilder.defaultServiceConfig(policy.toServiceConfig(config.getUnaryDeadlineMs(), delayMs));
+        if (policy.getMode() != UnaryCallPolicy.Mode.NONE) {
+            channelBuilder.enableRetry();
+        }
+    }
+    
+    /**
+     * Derive the hedging delay from the first attempts made since it was last derived. A
+     * channel's service config is fixed once built, so the pooled channels are replaced when
+     * the delay moved by more than a fifth; smaller changes are not worth new connections.
+     */
+    private void refreshHedgingDelay() {
+        try {
+            UnaryCallPolicy policy = config.getUnaryCallPolicy();
+            LatencyHistogram.Snapshot current = unaryAttemptStats.getFirstAttemptLatency();
+            LatencyHistogram.Snapshot window = current.since(hedgingWindowStart);
+            if (window.getCount() == 0 || window.getCount() < policy.getAdaptiveDelayMinSamples()) {
+                return;
             }
-        };
+            hedgingWindowStart = current;
+            long delayMs = policy.hedgingDelayMs(window);
+            long previousMs = hedgingDelayMs;
+            if (Math.abs(delayMs - previousMs) * 5 <= previousMs) {
+                return;
+            }
+            logger.info("Hedging delay moved from {} ms to {} ms, replacing pooled channels", previousMs, delayMs);
+            hedgingDelayMs = delayMs;
+            channelPool.replaceChannels();
+        } catch (RuntimeException e) {
+            // Keeps the periodic task scheduled
+            logger.warn("Could not refresh the hedging delay", e);
+        }
+    }
+    
+    private NettyChannelBuilder createChannelBuilder(int poolIndex) {
+        if (config.isSpreadAcrossResolvedAddresses()) {
+            try {
+                // Resolved on every (re)build so evicted channels pick up DNS changes
+                InetAddress[] addresses = InetAddress.getAllByName(config.getServerHost());
+                InetAddress address = addresses[poolIndex % addresses.length];
+                logger.debug("Pinning pooled channel {} to {}", poolIndex, address.getHostAddress());
+                return NettyChannelBuilder
+                    .forAddress(new InetSocketAddress(address, config.getServerPort()))
+                    .overrideAuthority(config.getServerHost() + ":" + config.getServerPort());
+            } catch (UnknownHostException e) {
+                logger.warn("Could not resolve {}, falling back to name-based channel", 
+                    config.getServerHost(), e);
+            }
+        }
+        return NettyChannelBuilder.forAddress(config.getServerHost(), config.getServerPort());
+    }
+    
+    /**
+     * Attach the shared call credentials and the organization they should authenticate for
+     */
+    private <S extends AbstractStub<S>> S withAuth(S stub, String orgId) {
+        if (callCredentials == null) {
+            return stub;
+        }
+        return stub.withCallCredentials(callCredentials)
+            .withOption(TokenCallCredentials.ORG_ID, orgId == null ? "" : orgId);
+    }
+    
+    /**
+     * Attach credentials, the configured compression and, when given, wire size accounting
+     */
+    private <S extends AbstractStub<S>> S prepare(S stub, String orgId, WireSizeStats stats) {
+        S prepared = withAuth(stub, orgId);
+        if (config.getCompression() != null) {
+            prepared = prepared.withCompression(config.getCompression());
+        }
+        if (stats != null) {
+            prepared = prepared.withInterceptors(stats.interceptor());
+        }
+        return prepared;
     }
     
     /**
@@ -143,62 +547,302 @@ public class StreamingInsightClient implements AutoCloseable {
             Consumer<StreamingInsightServingResponse> responseHandler,
             Consumer<Throwable> errorHandler) {
         
+        return startStreamingInsights(request, null, responseHandler, errorHandler, null);
+    }
+    
+    /**
+     * Start streaming insights, dropping unwanted messages before they are fully parsed.
+     * The filter sees the header fields (insight type, role, isFinal, utteranceId, publish timestamp)
+     * decoded by {@link LazyInsightMarshaller}; only messages it accepts are parsed and handed to
+     * the response handler. See {@link InsightFilters} for common filters.
+     * @param request Custom insight serving request
+     * @param filter Filter evaluated on the undecoded message
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for errors
+     * @return StreamingInsightSession for controlling the stream
+     */
+    public StreamingInsightSession startStreamingInsights(
+            InsightServingRequest request,
+            Predicate<LazyInsightResponse> filter,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) {
+        
+        return startStreamingInsights(request, filter, responseHandler, errorHandler, null);
+    }
+    
+    /**
+     * Subscribe to the insights of a conversation through a stream shared with other subscribers.
+     * Subscribers to the same conversation, organization and insight flags share one upstream
+     * call, which is cancelled when the last of them closes. A subscriber joining an open stream
+     * receives insights from then on, not the ones delivered before. Each subscriber has its own
+     * buffer of {@link StreamingInsightClientConfig#getSubscriberBufferSize()} insights, so a slow
+     * one drops interim results instead of delaying the others.
+     * @param conversationId The conversation ID to stream insights for
+     * @param orgId The organization ID
+     * @param agentId The agent ID initiating the request
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for the error ending the shared stream, called after buffered insights
+     * @return InsightSubscription, close it to unsubscribe
+     */
+    public InsightSubscription subscribeStreamingInsights(
+            String conversationId,
+            String orgId,
+            String agentId,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) {
+        
+        return subscribeStreamingInsights(
+            createDefaultInsightRequest(conversationId, orgId, agentId),
+            responseHandler,
+            errorHandler
+        );
+    }
+    
+    /**
+     * Subscribe to insights through a stream shared with other subscribers of an equal request.
+     * Requests differing only in agent details or message id are equal; the upstream call is
+     * opened with the first subscriber's request.
+     * @param request Custom insight serving request
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for the error ending the shared stream, called after buffered insights
+     * @return InsightSubscription, close it to unsubscribe
+     */
+    public InsightSubscription subscribeStreamingInsights(
+            InsightServingRequest request,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) {
+        
         if (isShutdown.get()) {
             throw new IllegalStateException("Client is shutdown");
         }
+        return sharedStreams.subscribe(request, responseHandler, errorHandler);
+    }
+    
+    /**
+     * Start streaming insights with a session that reconnects and resumes on retryable failures
+     * (UNAVAILABLE, keepalive timeouts). Insights already delivered are not delivered again after
+     * a reconnect.
+     * @param request Custom insight serving request
+     * @param reconnectPolicy Backoff and retry settings
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for non-retryable errors or when reconnect attempts are exhausted
+     * @return ResilientStreamingInsightSession for controlling the stream
+     */
+    public ResilientStreamingInsightSession startResilientStreamingInsights(
+            InsightServingRequest request,
+            ReconnectPolicy reconnectPolicy,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) {
         
-        StreamingInsightServingRequest streamingRequest = StreamingInsightServingRequest.newBuilder()
-            .setInsightServingRequest(request)
-            .build();
-            
-        CountDownLatch finishedLatch = new CountDownLatch(1);
-        AtomicBoolean isActive = new AtomicBoolean(true);
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
         
-        AiInsightGrpc.AiInsightStub stub = config.getAccessToken() != null ? 
-            asyncStub.withInterceptors(createAuthInterceptor()) : asyncStub;
-            
-        StreamObserver<StreamingInsightServingResponse> responseObserver = new StreamObserver<StreamingInsightServingResponse>() {
-            @Override
-            public void onNext(StreamingInsightServingResponse response) {
-                if (isActive.get()) {
-                    try {
-                        responseHandler.accept(response);
-                    } catch (Exception e) {
-                        logger.error("Error in response handler", e);
-                    }
+        ResilientStreamingInsightSession session = new ResilientStreamingInsightSession(
+            this, scheduler, request, reconnectPolicy, responseHandler, errorHandler);
+        session.start();
+        return session;
+    }
+    
+    /**
+     * Start a reconnecting session whose insights are written to a journal before they are
+     * handed to the response handler. If the process dies, {@link #recoverStreamingInsights}
+     * continues the session from the journal. The conversation is marked completed in the journal
+     * when the stream ends normally or the session is closed. When the session fails, the log is
+     * closed without the marker, so the conversation can be recovered or started again.
+     * @param request Custom insight serving request
+     * @param journal Journal to log the conversation to
+     * @param reconnectPolicy Backoff and retry settings
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for non-retryable errors or when reconnect attempts are exhausted
+     * @return ResilientStreamingInsightSession for controlling the stream
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public ResilientStreamingInsightSession startDurableStreamingInsights(
+            InsightServingRequest request,
+            InsightJournal journal,
+            ReconnectPolicy reconnectPolicy,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) {
+        
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
+        
+        InsightJournal.ConversationLog log;
+        try {
+            log = journal.openConversation(request);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal for conversation " + request.getConversationId(), e);
+        }
+        ResilientStreamingInsightSession session = new ResilientStreamingInsightSession(
+            this, scheduler, request, reconnectPolicy, journaled(log, responseHandler), errorHandler);
+        session.setFinishHandler(completed -> finishLog(log, completed));
+        session.start();
+        return session;
+    }
+    
+    /**
+     * Continue the sessions a journal holds for conversations that did not complete, typically
+     * after a crash. For each one, the insights logged after its last checkpoint are handed to
+     * the response handler first; they may have been delivered before the crash, so delivery is
+     * at least once. The session then resubscribes with history, and everything already in the
+     * journal is dropped from the replay.
+     * @param journal Journal written by {@link #startDurableStreamingInsights}
+     * @param reconnectPolicy Backoff and retry settings
+     * @param responseHandler Handler for streaming responses
+     * @param errorHandler Handler for non-retryable errors or when reconnect attempts are exhausted
+     * @return the resumed sessions
+     * @throws IOException if the journal cannot be read or written
+     */
+    public List<ResilientStreamingInsightSession> recoverStreamingInsights(
+            InsightJournal journal,
+            ReconnectPolicy reconnectPolicy,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler) throws IOException {
+        
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
+        
+        List<ResilientStreamingInsightSession> sessions = new ArrayList<>();
+        for (InsightJournal.RecoveredConversation recovered : journal.recover()) {
+            UtteranceDeduplicator deduplicator = new UtteranceDeduplicator();
+            long replayFloorTimestamp = recovered.getOpenedAtMillis();
+            for (InsightJournal.LogRecord record : recovered.getRecords()) {
+                deduplicator.shouldDeliver(wrap(record.getInsight()));
+                long published = record.getInsight().getPublishTimestamp();
+                if (published > 0) {
+                    replayFloorTimestamp = Math.min(replayFloorTimestamp, published);
                 }
             }
             
-            @Override
-            public void onError(Throwable throwable) {
-                logger.error("Streaming insights error for conversation {}", 
-                    request.getConversationId(), throwable);
-                isActive.set(false);
-                if (errorHandler != null) {
-                    try {
-                        errorHandler.accept(throwable);
-                    } catch (Exception e) {
-                        logger.error("Error in error handler", e);
-                    }
+            InsightJournal.ConversationLog log = journal.openConversation(recovered.getRequest());
+            List<InsightJournal.LogRecord> undelivered = recovered.getUndelivered();
+            logger.info("Recovering conversation {}: {} logged insights, {} past the checkpoint",
+                recovered.getConversationId(), recovered.getRecords().size(), undelivered.size());
+            for (InsightJournal.LogRecord record : undelivered) {
+                try {
+                    responseHandler.accept(wrap(record.getInsight()));
+                    log.markDelivered(record.getSequence(), record.getInsight());
+                } catch (Exception e) {
+                    logger.error("Error in response handler", e);
                 }
-                finishedLatch.countDown();
             }
             
-            @Override
-            public void onCompleted() {
-                logger.info("Streaming insights completed for conversation {}", 
-                    request.getConversationId());
-                isActive.set(false);
-                finishedLatch.countDown();
+            ResilientStreamingInsightSession session = new ResilientStreamingInsightSession(
+                this, scheduler, recovered.getRequest(), reconnectPolicy,
+                journaled(log, responseHandler), errorHandler, deduplicator);
+            session.setFinishHandler(completed -> finishLog(log, completed));
+            session.resume(replayFloorTimestamp);
+            sessions.add(session);
+        }
+        return sessions;
+    }
+    
+    /**
+     * Wrap a response handler so every insight is appended to the log before it is handled, and
+     * checkpointed once the handler returned
+     */
+    private static Consumer<StreamingInsightServingResponse> journaled(
+            InsightJournal.ConversationLog log,
+            Consumer<StreamingInsightServingResponse> responseHandler) {
+        return response -> {
+            InsightServingResponse insight = response.getInsightServingResponse();
+            // -1 if the journal was closed underneath a live session, which keeps delivering
+            long sequence = log.append(insight);
+            responseHandler.accept(response);
+            if (sequence > 0) {
+                log.markDelivered(sequence, insight);
             }
         };
+    }
+    
+    /**
+     * Keep a conversation in the transcript index while a session of it is between streams
+     */
+    void retainIndexedConversation(String conversationId) {
+        if (transcriptIndex != null) {
+            transcriptIndex.retainConversation(conversationId);
+        }
+    }
+    
+    void releaseIndexedConversation(String conversationId) {
+        if (transcriptIndex != null) {
+            transcriptIndex.releaseConversation(conversationId);
+        }
+    }
+    
+    /**
+     * Close the log of a session that ended. Only a completed or cancelled session marks the
+     * conversation completed; the log of a failed one stays recoverable.
+     */
+    private static void finishLog(InsightJournal.ConversationLog log, boolean completed) {
+        if (completed) {
+            log.complete();
+        } else {
+            log.release();
+        }
+    }
+    
+    private static StreamingInsightServingResponse wrap(InsightServingResponse insight) {
+        return StreamingInsightServingResponse.newBuilder().setInsightServingResponse(insight).build();
+    }
+    
+    StreamingInsightSession startStreamingInsights(
+            InsightServingRequest request,
+            Predicate<LazyInsightResponse> filter,
+            Consumer<StreamingInsightServingResponse> responseHandler,
+            Consumer<Throwable> errorHandler,
+            Runnable terminationHandler) {
+        
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
+        
+        StreamingInsightServingRequest streamingRequest = StreamingInsightServingRequest.newBuilder()
+            .setInsightServingRequest(request)
+            .build();
+            
+        ChannelPool.ChannelLease lease = channelPool.acquire();
+        WireSizeStats sessionWireSizeStats = wireSizeStats != null ? new WireSizeStats(wireSizeStats) : null;
+        AiInsightGrpc.AiInsightStub stub =
+            prepare(AiInsightGrpc.newStub(lease.getChannel()), request.getOrgId(), sessionWireSizeStats);
+        
+        if (transcriptIndex != null) {
+            transcriptIndex.retainConversation(request.getConversationId());
+        }
+        StreamingInsightCall call = new StreamingInsightCall(
+            request.getConversationId(),
+            transcriptIndex != null ? transcriptIndex.andThen(responseHandler) : responseHandler,
+            errorHandler, lease,
+            config.getMaxBufferedMessages(), dispatchExecutor,
+            latencyStats != null ? new InsightLatencyStats(latencyStats) : null,
+            sessionWireSizeStats,
+            closedCall -> {
+                openCalls.remove(closedCall);
+                if (transcriptIndex != null) {
+                    transcriptIndex.releaseConversation(request.getConversationId());
+                }
+                if (terminationHandler != null) {
+                    terminationHandler.run();
+                }
+            });
+        openCalls.add(call);
         
         logger.info("Starting streaming insights for conversation {} in org {}", 
             request.getConversationId(), request.getOrgId());
             
-        stub.streamingInsightServing(streamingRequest, responseObserver);
+        if (filter == null) {
+            call.start(() -> stub.streamingInsightServing(streamingRequest, call));
+        } else {
+            call.start(() -> ClientCalls.asyncServerStreamingCall(
+                stub.getChannel().newCall(LazyInsightMarshaller.STREAMING_INSIGHT_SERVING_METHOD, stub.getCallOptions()),
+                streamingRequest,
+                call.filtering(filter)));
+        }
         
-        return new StreamingInsightSession(isActive, finishedLatch, request.getConversationId());
+        return new StreamingInsightSession(call, config.isSessionLeakDetectionEnabled());
     }
     
     /**
@@ -220,15 +864,13 @@ public class StreamingInsightClient implements AutoCloseable {
             .setInsightType(insightType)
             .build();
             
-        AiInsightGrpc.AiInsightBlockingStub blockingStub = AiInsightGrpc.newBlockingStub(channel);
-        if (config.getAccessToken() != null) {
-            blockingStub = blockingStub.withInterceptors(createAuthInterceptor());
-        }
-        
         logger.info("Getting insights for conversation {} in org {} with type {}", 
             conversationId, orgId, insightType);
-            
-        return blockingStub.insightServing(request);
+        
+        if (insightCache != null) {
+            return awaitUnary(getInsightsAsync(InsightKey.of(conversationId, orgId, insightType)));
+        }
+        return callInsightServing(request);
     }
     
     /**
@@ -253,15 +895,294 @@ public class StreamingInsightClient implements AutoCloseable {
             .setInsightType(insightType)
             .build();
             
-        AiInsightGrpc.AiInsightBlockingStub blockingStub = AiInsightGrpc.newBlockingStub(channel);
-        if (config.getAccessToken() != null) {
-            blockingStub = blockingStub.withInterceptors(createAuthInterceptor());
-        }
-        
         logger.info("Getting insights for conversation {} with interaction ID {} in org {} with type {}", 
             conversationId, interactionId, orgId, insightType);
+        
+        if (insightCache != null) {
+            return awaitUnary(getInsightsAsync(InsightKey.ofInteraction(conversationId, interactionId, orgId, insightType)));
+        }
+        return callInsightServing(request);
+    }
+    
+    private InsightsServingResponse callInsightServing(InsightsServingRequest request) {
+        ChannelPool.ChannelLease lease = channelPool.acquire();
+        try {
+            AiInsightGrpc.AiInsightBlockingStub blockingStub = 
+                prepare(AiInsightGrpc.newBlockingStub(lease.getChannel()), request.getOrgId(), wireSizeStats)
+                    .withInterceptors(unaryAttemptStats.interceptor());
+            if (config.getUnaryDeadlineMs() > 0) {
+                blockingStub = blockingStub.withDeadlineAfter(config.getUnaryDeadlineMs(), TimeUnit.MILLISECONDS);
+            }
+            long startNanos = System.nanoTime();
+            InsightsServingResponse response = blockingStub.insightServing(request);
+            unaryAttemptStats.recordCallLatency((System.nanoTime() - startNanos) / 1000);
+            return response;
+        } finally {
+            lease.release();
+        }
+    }
+    
+    /**
+     * Get insights without blocking the caller
+     * @param conversationId Conversation ID
+     * @param orgId Organization ID
+     * @param insightType Type of insight to retrieve
+     * @return future completed with the response, or exceptionally with a StatusRuntimeException
+     */
+    public CompletableFuture<InsightsServingResponse> getInsightsAsync(String conversationId, String orgId,
+                                                                      InsightsServingRequest.InsightType insightType) {
+        return getInsightsAsync(InsightKey.of(conversationId, orgId, insightType));
+    }
+    
+    /**
+     * Get insights without blocking the caller, using the configured unary deadline
+     * @param key Insights to retrieve
+     * @return future completed with the response, or exceptionally with a StatusRuntimeException
+     */
+    public CompletableFuture<InsightsServingResponse> getInsightsAsync(InsightKey key) {
+        return getInsightsAsync(key, config.getUnaryDeadlineMs());
+    }
+    
+    /**
+     * Get insights without blocking the caller, answered from the insight cache when enabled
+     * @param key Insights to retrieve
+     * @param deadlineMs Deadline of the call in milliseconds, 0 for none
+     * @return future completed with the response, or exceptionally with a StatusRuntimeException.
+     *         Cancelling the future cancels the call, through the cache only once every caller
+     *         sharing the call cancelled.
+     */
+    public CompletableFuture<InsightsServingResponse> getInsightsAsync(InsightKey key, long deadlineMs) {
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
+        if (insightCache != null) {
+            return insightCache.get(key, k -> callInsightServingAsync(k, deadlineMs));
+        }
+        return callInsightServingAsync(key, deadlineMs);
+    }
+    
+    private CompletableFuture<InsightsServingResponse> callInsightServingAsync(InsightKey key, long deadlineMs) {
+        logger.debug("Getting insights asynchronously for {}", key);
+        
+        InsightsServingRequest request = key.toRequest();
+        ChannelPool.ChannelLease lease = channelPool.acquire();
+        CompletableFuture<InsightsServingResponse> result = new CompletableFuture<>();
+        ListenableFuture<InsightsServingResponse> call;
+        long startNanos = System.nanoTime();
+        try {
+            AiInsightGrpc.AiInsightFutureStub futureStub =
+                prepare(AiInsightGrpc.newFutureStub(lease.getChannel()), request.getOrgId(), wireSizeStats)
+                    .withInterceptors(unaryAttemptStats.interceptor());
+            if (deadlineMs > 0) {
+                futureStub = futureStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS);
+            }
+            call = futureStub.insightServing(request);
+        } catch (RuntimeException e) {
+            lease.release();
+            throw e;
+        }
+        
+        Futures.addCallback(call, new FutureCallback<InsightsServingResponse>() {
+            @Override
+            public void onSuccess(InsightsServingResponse response) {
+                lease.release();
+                unaryAttemptStats.recordCallLatency((System.nanoTime() - startNanos) / 1000);
+                result.complete(response);
+            }
             
-        return blockingStub.insightServing(request);
+            @Override
+            public void onFailure(Throwable t) {
+                lease.release();
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Get insights for many keys, limiting the number of calls in flight.
+     * Uses the configured batch concurrency and unary deadline.
+     * @param keys Insights to retrieve; duplicates are fetched once
+     * @return future per key, in iteration order of the given keys
+     */
+    public Map<InsightKey, CompletableFuture<InsightsServingResponse>> getInsightsBatch(Collection<InsightKey> keys) {
+        return getInsightsBatch(keys, config.getBatchConcurrency(), config.getUnaryDeadlineMs());
+    }
+    
+    /**
+     * Get insights for many keys, limiting the number of calls in flight.
+     * Calls are issued as earlier ones complete, so the caller never blocks.
+     * @param keys Insights to retrieve; duplicates are fetched once
+     * @param maxConcurrency Maximum number of calls in flight
+     * @param deadlineMs Deadline of each call in milliseconds, 0 for none
+     * @return future per key, in iteration order of the given keys
+     */
+    public Map<InsightKey, CompletableFuture<InsightsServingResponse>> getInsightsBatch(Collection<InsightKey> keys,
+                                                                                      int maxConcurrency,
+                                                                                      long deadlineMs) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        if (isShutdown.get()) {
+            throw new IllegalStateException("Client is shutdown");
+        }
+        
+        Map<InsightKey, CompletableFuture<InsightsServingResponse>> results = new LinkedHashMap<>();
+        for (InsightKey key : keys) {
+            results.putIfAbsent(key, new CompletableFuture<>());
+        }
+        Queue<Map.Entry<InsightKey, CompletableFuture<InsightsServingResponse>>> pending =
+            new ConcurrentLinkedQueue<>(results.entrySet());
+        
+        logger.info("Fetching insights for {} keys with concurrency {}", results.size(), maxConcurrency);
+        
+        int lanes = Math.min(maxConcurrency, results.size());
+        for (int i = 0; i < lanes; i++) {
+            runBatchLane(pending, deadlineMs);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+    
+    /**
+     * Issue pending calls one after another until one has to be waited for,
+     * then continue from its completion. Loops instead of recursing so calls
+     * failing synchronously do not grow the stack.
+     */
+    private void runBatchLane(Queue<Map.Entry<InsightKey, CompletableFuture<InsightsServingResponse>>> pending,
+                              long deadlineMs) {
+        Map.Entry<InsightKey, CompletableFuture<InsightsServingResponse>> next;
+        while ((next = pending.poll()) != null) {
+            CompletableFuture<InsightsServingResponse> target = next.getValue();
+            if (target.isDone()) {
+                // Cancelled by the caller before it was issued
+                continue;
+            }
+            CompletableFuture<InsightsServingResponse> call;
+            try {
+                call = getInsightsAsync(next.getKey(), deadlineMs);
+            } catch (RuntimeException e) {
+                target.completeExceptionally(e);
+                continue;
+            }
+            target.whenComplete((response, error) -> {
+                if (target.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            if (!call.isDone()) {
+                call.whenComplete((response, error) -> {
+                    complete(target, response, error);
+                    runBatchLane(pending, deadlineMs);
+                });
+                return;
+            }
+            call.whenComplete((response, error) -> complete(target, response, error));
+        }
+    }
+    
+    /**
+     * Wait for a one-time insights call, surfacing its failure like the blocking stub does
+     */
+    private static InsightsServingResponse awaitUnary(CompletableFuture<InsightsServingResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw Status.CANCELLED.withDescription("Interrupted while waiting for insights").withCause(e).asRuntimeException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw Status.fromThrowable(cause).asRuntimeException();
+        }
+    }
+    
+    /**
+     * Get the latency of the insights received by all sessions of this client
+     * @return client-wide latency stats, or null when latency tracking is disabled
+     */
+    public InsightLatencyStats getLatencyStats() {
+        return latencyStats;
+    }
+    
+    /**
+     * Get the attempts made by one-time insight calls, including retries and hedges
+     * @return attempt stats
+     */
+    public UnaryAttemptStats getUnaryAttemptStats() {
+        return unaryAttemptStats;
+    }
+    
+    /**
+     * Get the hedging delay in the service config of the pooled channels
+     * @return delay in milliseconds, only used when the unary call policy hedges
+     */
+    public long getHedgingDelayMs() {
+        return hedgingDelayMs;
+    }
+    
+    /**
+     * Get the message bytes sent and received by all calls of this client
+     * @return client-wide wire size stats, or null when wire size tracking is disabled
+     */
+    public WireSizeStats getWireSizeStats() {
+        return wireSizeStats;
+    }
+    
+    /**
+     * Get the cache of one-time insight responses
+     * @return insight cache, or null when caching is disabled
+     */
+    public InsightCache getInsightCache() {
+        return insightCache;
+    }
+    
+    /**
+     * Get the index of final transcripts received by the streaming sessions of this client.
+     * A conversation is dropped from it when its stream ends.
+     * @return transcript index, or null when disabled
+     */
+    public TranscriptIndex getTranscriptIndex() {
+        return transcriptIndex;
+    }
+    
+    private static <T> void complete(CompletableFuture<T> target, T value, Throwable error) {
+        if (error != null) {
+            target.completeExceptionally(error);
+        } else {
+            target.complete(value);
+        }
+    }
+    
+    /**
+     * Get the number of streaming sessions whose call has not ended yet
+     * @return open session count
+     */
+    public int getOpenSessionCount() {
+        return openCalls.size();
+    }
+    
+    /**
+     * Get the number of upstream calls currently shared by subscribers
+     * @return shared stream count
+     */
+    public int getSharedStreamCount() {
+        return sharedStreams.getUpstreamCount();
+    }
+    
+    /**
+     * Get the channel pool backing this client
+     * @return channel pool
+     */
+    public ChannelPool getChannelPool() {
+        return channelPool;
     }
     
     private InsightServingRequest createDefaultInsightRequest(String conversationId, 
@@ -298,37 +1219,64 @@ public class StreamingInsightClient implements AutoCloseable {
             .build();
     }
     
+    /**
+     * Cancel open sessions and shut down the channels and owned executors. If interrupted, the
+     * shutdown is forced and the interrupt flag is kept.
+     */
     @Override
-    public void close() throws Exception {
+    public void close() {
         if (isShutdown.compareAndSet(false, true)) {
             logger.info("Shutting down StreamingInsightClient...");
-            try {
-                channel.shutdown();
-                if (!channel.awaitTermination(30, TimeUnit.SECONDS)) {
-                    logger.warn("Channel did not terminate gracefully, forcing shutdown");
-                    channel.shutdownNow();
+            scheduler.shutdownNow();
+            if (!openCalls.isEmpty()) {
+                logger.info("Cancelling {} open streaming session(s)", openCalls.size());
+                for (StreamingInsightCall call : openCalls) {
+                    call.cancel("Client is shutting down");
+                }
+            }
+            channelPool.close();
+            if (Thread.currentThread().isInterrupted()) {
+                logger.warn("Interrupted while shutting down channels");
+                if (ownedEventLoopGroup != null) {
+                    ownedEventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+                }
+                for (ExecutorService executor : ownedExecutors) {
+                    executor.shutdownNow();
+                }
+            } else {
+                if (ownedEventLoopGroup != null) {
+                    ownedEventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+                }
+                for (ExecutorService executor : ownedExecutors) {
+                    executor.shutdown();
                 }
                 logger.info("StreamingInsightClient shutdown complete");
-            } catch (InterruptedException e) {
-                logger.warn("Interrupted while shutting down channel", e);
-                channel.shutdownNow();
-                Thread.currentThread().interrupt();
             }
         }
     }
     
     /**
-     * Session representing an active streaming insights connection
+     * Session representing an active streaming insights connection.
+     * Sessions should be closed (or awaited until completion) so the underlying call is released.
+     * With session leak detection enabled, a session that is garbage collected while its call is
+     * still open is reported as a leak and cancelled.
      */
-    public static class StreamingInsightSession {
-        private final AtomicBoolean isActive;
-        private final CountDownLatch finishedLatch;
-        private final String conversationId;
+    public static class StreamingInsightSession implements AutoCloseable {
+        private static final Cleaner LEAK_DETECTOR = Cleaner.create();
+        
+        private final StreamingInsightCall call;
+        private final Cleaner.Cleanable cleanable;
         
-        StreamingInsightSession(AtomicBoolean isActive, CountDownLatch finishedLatch, String conversationId) {
-            this.isActive = isActive;
-            this.finishedLatch = finishedLatch;
-            this.conversationId = conversationId;
+        StreamingInsightSession(StreamingInsightCall call, boolean leakDetection) {
+            this.call = call;
+            if (leakDetection) {
+                // Only capture the creation site when someone will actually look at it
+                Throwable creationSite = logger.isDebugEnabled() 
+                    ? new Throwable("Streaming session created here") : null;
+                this.cleanable = LEAK_DETECTOR.register(this, () -> call.onHandleUnreachable(creationSite));
+            } else {
+                this.cleanable = null;
+            }
         }
         
         /**
@@ -336,7 +1284,15 @@ public class StreamingInsightClient implements AutoCloseable {
          * @return true if active, false otherwise
          */
         public boolean isActive() {
-            return isActive.get();
+            return call.getState().isLive();
+        }
+        
+        /**
+         * Get the lifecycle state of this session
+         * @return current state
+         */
+        public SessionState getState() {
+            return call.getState();
         }
         
         /**
@@ -344,14 +1300,57 @@ public class StreamingInsightClient implements AutoCloseable {
          * @return conversation ID
          */
         public String getConversationId() {
-            return conversationId;
+            return call.getConversationId();
         }
         
         /**
-         * Cancel the streaming session
+         * Get the number of insights received but not yet handed to the response handler.
+         * Always 0 unless flow control is enabled with {@code setMaxBufferedMessages}.
+         * @return queued message count
+         */
+        public int getQueueDepth() {
+            return call.getQueueDepth();
+        }
+        
+        /**
+         * Get the number of messages requested from the server but not received yet.
+         * Always 0 unless flow control is enabled with {@code setMaxBufferedMessages}.
+         * @return outstanding credits
+         */
+        public int getOutstandingCredits() {
+            return call.getOutstandingCredits();
+        }
+        
+        /**
+         * Get the number of insights dropped by the session's filter before being fully parsed
+         * @return filtered message count
+         */
+        public long getFilteredCount() {
+            return call.getFilteredCount();
+        }
+        
+        /**
+         * Get the latency of the insights received by this session
+         * @return latency stats, or null when latency tracking is disabled
+         */
+        public InsightLatencyStats getLatencyStats() {
+            return call.getLatencyStats();
+        }
+        
+        /**
+         * Get the message bytes received by this session, compressed and uncompressed
+         * @return wire size stats, or null when wire size tracking is disabled
+         */
+        public WireSizeStats getWireSizeStats() {
+            return call.getWireSizeStats();
+        }
+        
+        /**
+         * Cancel the streaming session. The gRPC call is cancelled so the server stops
+         * sending insights and the HTTP/2 stream is released.
          */
         public void cancel() {
-            isActive.set(false);
+            call.cancel("Session cancelled by client");
         }
         
         /**
@@ -362,7 +1361,8 @@ public class StreamingInsightClient implements AutoCloseable {
          * @throws InterruptedException if interrupted while waiting
          */
         public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
-            return finishedLatch.await(timeout, unit);
+            call.markAwaitedOrClosed();
+            return call.getFinishedLatch().await(timeout, unit);
         }
         
         /**
@@ -370,7 +1370,20 @@ public class StreamingInsightClient implements AutoCloseable {
          * @throws InterruptedException if interrupted while waiting
          */
         public void awaitCompletion() throws InterruptedException {
-            finishedLatch.await();
+            call.markAwaitedOrClosed();
+            call.getFinishedLatch().await();
+        }
+        
+        /**
+         * Cancel the session if it is still open and release its resources
+         */
+        @Override
+        public void close() {
+            call.markAwaitedOrClosed();
+            call.cancel("Session closed by client");
+            if (cleanable != null) {
+                cleanable.clean();
+            }
         }
     }
 }
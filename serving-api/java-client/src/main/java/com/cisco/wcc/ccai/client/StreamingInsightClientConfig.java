@@ -1,10 +1,44 @@
 package com.cisco.wcc.ccai.client;
 
+import io.grpc.Codec;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 /**
  * Configuration class for the Streaming Insight Client
  */
 public class StreamingInsightClientConfig {
     
+    /**
+     * Threading model used for gRPC callbacks and response handlers
+     */
+    public enum ExecutionModel {
+        /** grpc-java's shared cached thread pool */
+        DEFAULT,
+        /** A new virtual thread per callback, for handlers doing blocking I/O (Java 21+) */
+        VIRTUAL_THREADS,
+        /** A fixed pool of platform threads, see {@link Builder#setBoundedPoolSize} */
+        BOUNDED_POOL,
+        /** Run callbacks on the transport thread, only for handlers that never block */
+        DIRECT
+    }
+    
+    /**
+     * Starting points for the transport settings, individual setters called afterwards still apply
+     */
+    public enum TransportPreset {
+        /** gRPC's defaults: NIO, shared event loops, 1 MiB window tuned by BDP probing */
+        DEFAULT,
+        /** Thousands of streams per process: epoll when available, an event loop per core,
+         *  a larger starting window and write buffer */
+        MANY_STREAMS
+    }
+    
     private final String serverHost;
     private final int serverPort;
     private final boolean useTls;
@@ -13,6 +47,43 @@ public class StreamingInsightClientConfig {
     private final long maxInboundMessageSize;
     private final long keepAliveTimeoutMs;
     private final long keepAliveIntervalMs;
+    private final int channelPoolSize;
+    private final int maxStreamsPerChannel;
+    private final ChannelPool.SelectionPolicy channelSelectionPolicy;
+    private final boolean spreadAcrossResolvedAddresses;
+    private final long channelEvictAfterMs;
+    private final boolean sessionLeakDetectionEnabled;
+    private final int maxBufferedMessages;
+    private final int subscriberBufferSize;
+    private final boolean eagerConnect;
+    private final long connectTimeoutMs;
+    private final boolean warmUpEnabled;
+    private final ExecutionModel executionModel;
+    private final TokenProvider tokenProvider;
+    private final long unaryDeadlineMs;
+    private final UnaryCallPolicy unaryCallPolicy;
+    private final int batchConcurrency;
+    private final long insightCacheMaxBytes;
+    private final long insightCacheTtlMs;
+    private final int transcriptIndexMaxConversations;
+    private final boolean latencyTrackingEnabled;
+    private final boolean wireSizeTrackingEnabled;
+    private final String compression;
+    private final List<Codec> codecs;
+    private final long tokenRefreshSkewMs;
+    private final int boundedPoolSize;
+    private final Executor executor;
+    private final Executor offloadExecutor;
+    private final EventLoopGroup eventLoopGroup;
+    private final Class<? extends Channel> channelType;
+    private final int eventLoopThreads;
+    private final boolean nativeTransportPreferred;
+    private final int flowControlWindow;
+    private final boolean flowControlAutoTuning;
+    private final int maxHeaderListSize;
+    private final int writeBufferLowWaterMark;
+    private final int writeBufferHighWaterMark;
+    private final String inProcessServerName;
     
     private StreamingInsightClientConfig(Builder builder) {
         this.serverHost = builder.serverHost;
@@ -23,6 +94,43 @@ public class StreamingInsightClientConfig {
         this.maxInboundMessageSize = builder.maxInboundMessageSize;
         this.keepAliveTimeoutMs = builder.keepAliveTimeoutMs;
         this.keepAliveIntervalMs = builder.keepAliveIntervalMs;
+        this.channelPoolSize = builder.channelPoolSize;
+        this.maxStreamsPerChannel = builder.maxStreamsPerChannel;
+        this.channelSelectionPolicy = builder.channelSelectionPolicy;
+        this.spreadAcrossResolvedAddresses = builder.spreadAcrossResolvedAddresses;
+        this.channelEvictAfterMs = builder.channelEvictAfterMs;
+        this.sessionLeakDetectionEnabled = builder.sessionLeakDetectionEnabled;
+        this.maxBufferedMessages = builder.maxBufferedMessages;
+        this.subscriberBufferSize = builder.subscriberBufferSize;
+        this.eagerConnect = builder.eagerConnect;
+        this.connectTimeoutMs = builder.connectTimeoutMs;
+        this.warmUpEnabled = builder.warmUpEnabled;
+        this.executionModel = builder.executionModel;
+        this.tokenProvider = builder.tokenProvider;
+        this.unaryDeadlineMs = builder.unaryDeadlineMs;
+        this.unaryCallPolicy = builder.unaryCallPolicy;
+        this.batchConcurrency = builder.batchConcurrency;
+        this.insightCacheMaxBytes = builder.insightCacheMaxBytes;
+        this.insightCacheTtlMs = builder.insightCacheTtlMs;
+        this.transcriptIndexMaxConversations = builder.transcriptIndexMaxConversations;
+        this.latencyTrackingEnabled = builder.latencyTrackingEnabled;
+        this.wireSizeTrackingEnabled = builder.wireSizeTrackingEnabled;
+        this.compression = builder.compression;
+        this.codecs = Collections.unmodifiableList(new ArrayList<>(builder.codecs));
+        this.tokenRefreshSkewMs = builder.tokenRefreshSkewMs;
+        this.boundedPoolSize = builder.boundedPoolSize;
+        this.executor = builder.executor;
+        this.offloadExecutor = builder.offloadExecutor;
+        this.eventLoopGroup = builder.eventLoopGroup;
+        this.channelType = builder.channelType;
+        this.eventLoopThreads = builder.eventLoopThreads;
+        this.nativeTransportPreferred = builder.nativeTransportPreferred;
+        this.flowControlWindow = builder.flowControlWindow;
+        this.flowControlAutoTuning = builder.flowControlAutoTuning;
+        this.maxHeaderListSize = builder.maxHeaderListSize;
+        this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+        this.inProcessServerName = builder.inProcessServerName;
     }
     
     public String getServerHost() { return serverHost; }
@@ -33,6 +141,43 @@ public class StreamingInsightClientConfig {
     public long getMaxInboundMessageSize() { return maxInboundMessageSize; }
     public long getKeepAliveTimeoutMs() { return keepAliveTimeoutMs; }
     public long getKeepAliveIntervalMs() { return keepAliveIntervalMs; }
+    public int getChannelPoolSize() { return channelPoolSize; }
+    public int getMaxStreamsPerChannel() { return maxStreamsPerChannel; }
+    public ChannelPool.SelectionPolicy getChannelSelectionPolicy() { return channelSelectionPolicy; }
+    public boolean isSpreadAcrossResolvedAddresses() { return spreadAcrossResolvedAddresses; }
+    public long getChannelEvictAfterMs() { return channelEvictAfterMs; }
+    public boolean isSessionLeakDetectionEnabled() { return sessionLeakDetectionEnabled; }
+    public int getMaxBufferedMessages() { return maxBufferedMessages; }
+    public int getSubscriberBufferSize() { return subscriberBufferSize; }
+    public boolean isEagerConnect() { return eagerConnect; }
+    public long getConnectTimeoutMs() { return connectTimeoutMs; }
+    public boolean isWarmUpEnabled() { return warmUpEnabled; }
+    public ExecutionModel getExecutionModel() { return executionModel; }
+    public TokenProvider getTokenProvider() { return tokenProvider; }
+    public long getUnaryDeadlineMs() { return unaryDeadlineMs; }
+    public UnaryCallPolicy getUnaryCallPolicy() { return unaryCallPolicy; }
+    public int getBatchConcurrency() { return batchConcurrency; }
+    public long getInsightCacheMaxBytes() { return insightCacheMaxBytes; }
+    public long getInsightCacheTtlMs() { return insightCacheTtlMs; }
+    public int getTranscriptIndexMaxConversations() { return transcriptIndexMaxConversations; }
+    public boolean isLatencyTrackingEnabled() { return latencyTrackingEnabled; }
+    public boolean isWireSizeTrackingEnabled() { return wireSizeTrackingEnabled; }
+    public String getCompression() { return compression; }
+    public List<Codec> getCodecs() { return codecs; }
+    public long getTokenRefreshSkewMs() { return tokenRefreshSkewMs; }
+    public int getBoundedPoolSize() { return boundedPoolSize; }
+    public Executor getExecutor() { return executor; }
+    public Executor getOffloadExecutor() { return offloadExecutor; }
+    public EventLoopGroup getEventLoopGroup() { return eventLoopGroup; }
+    public Class<? extends Channel> getChannelType() { return channelType; }
+    public int getEventLoopThreads() { return eventLoopThreads; }
+    public boolean isNativeTransportPreferred() { return nativeTransportPreferred; }
+    public int getFlowControlWindow() { return flowControlWindow; }
+    public boolean isFlowControlAutoTuning() { return flowControlAutoTuning; }
+    public int getMaxHeaderListSize() { return maxHeaderListSize; }
+    public int getWriteBufferLowWaterMark() { return writeBufferLowWaterMark; }
+    public int getWriteBufferHighWaterMark() { return writeBufferHighWaterMark; }
+    public String getInProcessServerName() { return inProcessServerName; }
     
     public static Builder newBuilder() {
         return new Builder();
@@ -47,6 +192,43 @@ public class StreamingInsightClientConfig {
         private long maxInboundMessageSize = 4 * 1024 * 1024; // 4MB
         private long keepAliveTimeoutMs = 30000; // 30 seconds
         private long keepAliveIntervalMs = 10000; // 10 seconds
+        private int channelPoolSize = 1; // single connection, as before pooling
+        private int maxStreamsPerChannel = 100; // typical server MAX_CONCURRENT_STREAMS
+        private ChannelPool.SelectionPolicy channelSelectionPolicy = ChannelPool.SelectionPolicy.LEAST_LOADED;
+        private boolean spreadAcrossResolvedAddresses = false;
+        private long channelEvictAfterMs = 5000; // 5 seconds
+        private boolean sessionLeakDetectionEnabled = false;
+        private int maxBufferedMessages = 0; // 0 = automatic flow control, handler runs inline
+        private int subscriberBufferSize = 256;
+        private boolean eagerConnect = false;
+        private long connectTimeoutMs = 10000; // 10 seconds
+        private boolean warmUpEnabled = false;
+        private ExecutionModel executionModel = ExecutionModel.DEFAULT;
+        private TokenProvider tokenProvider;
+        private long unaryDeadlineMs = 30000; // 30 seconds
+        private UnaryCallPolicy unaryCallPolicy = UnaryCallPolicy.defaultPolicy();
+        private int batchConcurrency = 16;
+        private long insightCacheMaxBytes = 0; // 0 = no caching
+        private long insightCacheTtlMs = 300000; // 5 minutes
+        private int transcriptIndexMaxConversations = 0; // 0 = no transcript index
+        private boolean latencyTrackingEnabled = false; // off: histograms cost memory per session
+        private boolean wireSizeTrackingEnabled = true;
+        private String compression; // null = uncompressed requests
+        private final List<Codec> codecs = new ArrayList<>();
+        private long tokenRefreshSkewMs = 60000; // refresh 1 minute before expiry
+        private int boundedPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+        private Executor executor;
+        private Executor offloadExecutor;
+        private EventLoopGroup eventLoopGroup;
+        private Class<? extends Channel> channelType;
+        private int eventLoopThreads = 0; // 0 = gRPC's shared event loop group
+        private boolean nativeTransportPreferred = false;
+        private int flowControlWindow = 0; // 0 = gRPC default (1 MiB)
+        private boolean flowControlAutoTuning = true;
+        private int maxHeaderListSize = 0; // 0 = gRPC default (8 KiB)
+        private int writeBufferLowWaterMark = 0; // 0 = Netty defaults (32 KiB / 64 KiB)
+        private int writeBufferHighWaterMark = 0;
+        private String inProcessServerName;
         
         public Builder setServerHost(String serverHost) {
             this.serverHost = serverHost;
@@ -88,6 +270,326 @@ public class StreamingInsightClientConfig {
             return this;
         }
         
+        /**
+         * Number of channels (HTTP/2 connections) sessions are spread across
+         */
+        public Builder setChannelPoolSize(int channelPoolSize) {
+            this.channelPoolSize = channelPoolSize;
+            return this;
+        }
+        
+        /**
+         * Soft limit of concurrent streams per channel before another channel is preferred
+         */
+        public Builder setMaxStreamsPerChannel(int maxStreamsPerChannel) {
+            this.maxStreamsPerChannel = maxStreamsPerChannel;
+            return this;
+        }
+        
+        public Builder setChannelSelectionPolicy(ChannelPool.SelectionPolicy channelSelectionPolicy) {
+            this.channelSelectionPolicy = channelSelectionPolicy;
+            return this;
+        }
+        
+        /**
+         * Pin each pooled channel to one of the addresses the server host resolves to,
+         * so connections land on different backends
+         */
+        public Builder setSpreadAcrossResolvedAddresses(boolean spreadAcrossResolvedAddresses) {
+            this.spreadAcrossResolvedAddresses = spreadAcrossResolvedAddresses;
+            return this;
+        }
+        
+        /**
+         * How long a pooled channel may stay in TRANSIENT_FAILURE before it is rebuilt
+         */
+        public Builder setChannelEvictAfterMs(long channelEvictAfterMs) {
+            this.channelEvictAfterMs = channelEvictAfterMs;
+            return this;
+        }
+        
+        /**
+         * Report and cancel sessions that are garbage collected without being awaited or closed.
+         * Off by default, since callers may start a session and drop its handle on purpose.
+         */
+        public Builder setSessionLeakDetectionEnabled(boolean sessionLeakDetectionEnabled) {
+            this.sessionLeakDetectionEnabled = sessionLeakDetectionEnabled;
+            return this;
+        }
+        
+        /**
+         * Enable demand-driven flow control: each session buffers at most this many insights and
+         * only requests more from the server as its handler drains them. 0 keeps gRPC's automatic
+         * flow control with the handler running inline on the callback thread.
+         */
+        public Builder setMaxBufferedMessages(int maxBufferedMessages) {
+            this.maxBufferedMessages = maxBufferedMessages;
+            return this;
+        }
+        
+        /**
+         * Number of insights each subscriber of a shared stream may have waiting before it starts
+         * dropping interim results
+         */
+        public Builder setSubscriberBufferSize(int subscriberBufferSize) {
+            this.subscriberBufferSize = subscriberBufferSize;
+            return this;
+        }
+        
+        /**
+         * Connect every pooled channel when the client is created instead of on the first call,
+         * see {@link StreamingInsightClient#connect()}
+         */
+        public Builder setEagerConnect(boolean eagerConnect) {
+            this.eagerConnect = eagerConnect;
+            return this;
+        }
+        
+        /**
+         * How long connecting, including the warm-up call, may take before readiness fails
+         */
+        public Builder setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            return this;
+        }
+        
+        /**
+         * Send one insightServing call per channel once connected, so authentication, class
+         * loading and the JIT are done before the first real call
+         */
+        public Builder setWarmUpEnabled(boolean warmUpEnabled) {
+            this.warmUpEnabled = warmUpEnabled;
+            return this;
+        }
+        
+        /**
+         * Provider of per-org tokens, takes precedence over the static access token
+         */
+        public Builder setTokenProvider(TokenProvider tokenProvider) {
+            this.tokenProvider = tokenProvider;
+            return this;
+        }
+        
+        /**
+         * How long before expiry tokens from the token provider are refreshed in the background
+         */
+        public Builder setTokenRefreshSkewMs(long tokenRefreshSkewMs) {
+            this.tokenRefreshSkewMs = tokenRefreshSkewMs;
+            return this;
+        }
+        
+        /**
+         * Deadline of one-time insight calls, 0 for none. Also set as the insightServing timeout
+         * in the channels' service config, so it bounds all retried or hedged attempts together.
+         */
+        public Builder setUnaryDeadlineMs(long unaryDeadlineMs) {
+            this.unaryDeadlineMs = unaryDeadlineMs;
+            return this;
+        }
+        
+        /**
+         * Retry or hedging policy of one-time insight calls
+         */
+        public Builder setUnaryCallPolicy(UnaryCallPolicy unaryCallPolicy) {
+            this.unaryCallPolicy = unaryCallPolicy;
+            return this;
+        }
+        
+        /**
+         * Maximum number of one-time insight calls in flight during a batch fetch
+         */
+        public Builder setBatchConcurrency(int batchConcurrency) {
+            this.batchConcurrency = batchConcurrency;
+            return this;
+        }
+        
+        /**
+         * Memory budget of the one-time insights cache, 0 disables caching
+         */
+        public Builder setInsightCacheMaxBytes(long insightCacheMaxBytes) {
+            this.insightCacheMaxBytes = insightCacheMaxBytes;
+            return this;
+        }
+        
+        /**
+         * How long a cached one-time insights response is served
+         */
+        public Builder setInsightCacheTtlMs(long insightCacheTtlMs) {
+            this.insightCacheTtlMs = insightCacheTtlMs;
+            return this;
+        }
+        
+        /**
+         * Index the final transcripts of streaming sessions for search, keeping up to this many
+         * conversations; 0 disables the index
+         */
+        public Builder setTranscriptIndexMaxConversations(int transcriptIndexMaxConversations) {
+            this.transcriptIndexMaxConversations = transcriptIndexMaxConversations;
+            return this;
+        }
+        
+        /**
+         * Record per-session and client-wide insight latency histograms. Each session allocates
+         * a few KB per stage and kind of insight it receives, so this is off by default.
+         */
+        public Builder setLatencyTrackingEnabled(boolean latencyTrackingEnabled) {
+            this.latencyTrackingEnabled = latencyTrackingEnabled;
+            return this;
+        }
+        
+        /**
+         * Count compressed and uncompressed message bytes per session and client-wide
+         */
+        public Builder setWireSizeTrackingEnabled(boolean wireSizeTrackingEnabled) {
+            this.wireSizeTrackingEnabled = wireSizeTrackingEnabled;
+            return this;
+        }
+        
+        /**
+         * Compress requests with this codec, e.g. "gzip". Responses are compressed at the server's
+         * choice among the codecs this client advertises, which include every registered codec.
+         * @param compression Codec name, null to send requests uncompressed
+         */
+        public Builder setCompression(String compression) {
+            this.compression = compression;
+            return this;
+        }
+        
+        /**
+         * Register an additional codec for compressing requests and decompressing responses,
+         * on top of the built-in gzip and identity codecs
+         */
+        public Builder addCodec(Codec codec) {
+            this.codecs.add(codec);
+            return this;
+        }
+        
+        public Builder setExecutionModel(ExecutionModel executionModel) {
+            this.executionModel = executionModel;
+            return this;
+        }
+        
+        /**
+         * Number of threads used by {@link ExecutionModel#BOUNDED_POOL}
+         */
+        public Builder setBoundedPoolSize(int boundedPoolSize) {
+            this.boundedPoolSize = boundedPoolSize;
+            return this;
+        }
+        
+        /**
+         * Custom executor for callbacks and handlers, overrides the execution model.
+         * The caller keeps ownership and must shut it down.
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Executor for gRPC's potentially blocking work such as name resolution and TLS key loading
+         */
+        public Builder setOffloadExecutor(Executor offloadExecutor) {
+            this.offloadExecutor = offloadExecutor;
+            return this;
+        }
+        
+        /**
+         * Netty event loop group and matching channel type shared by all pooled channels.
+         * The caller keeps ownership and must shut the group down.
+         */
+        public Builder setEventLoopGroup(EventLoopGroup eventLoopGroup, Class<? extends Channel> channelType) {
+            this.eventLoopGroup = eventLoopGroup;
+            this.channelType = channelType;
+            return this;
+        }
+        
+        /**
+         * Number of Netty event loop threads of a group owned by this client. Ignored when an
+         * event loop group is set.
+         * @param eventLoopThreads Thread count, 0 to share gRPC's default group
+         */
+        public Builder setEventLoopThreads(int eventLoopThreads) {
+            this.eventLoopThreads = eventLoopThreads;
+            return this;
+        }
+        
+        /**
+         * Use the epoll transport when its native library loads (Linux), NIO otherwise.
+         * Gives the client its own event loop group. Ignored when an event loop group is set.
+         */
+        public Builder setNativeTransportPreferred(boolean nativeTransportPreferred) {
+            this.nativeTransportPreferred = nativeTransportPreferred;
+            return this;
+        }
+        
+        /**
+         * HTTP/2 flow-control window per stream and connection
+         * @param flowControlWindow Window in bytes, 0 for the gRPC default
+         * @param autoTuning true to start from this window and let BDP probing grow it,
+         *                   false to keep it fixed
+         */
+        public Builder setFlowControlWindow(int flowControlWindow, boolean autoTuning) {
+            this.flowControlWindow = flowControlWindow;
+            this.flowControlAutoTuning = autoTuning;
+            return this;
+        }
+        
+        /**
+         * Largest header list accepted from the server, in bytes, 0 for the gRPC default
+         */
+        public Builder setMaxHeaderListSize(int maxHeaderListSize) {
+            this.maxHeaderListSize = maxHeaderListSize;
+            return this;
+        }
+        
+        /**
+         * Netty write buffer watermarks; a channel above the high mark reports itself not
+         * writable until it drains below the low mark
+         * @param low Low watermark in bytes
+         * @param high High watermark in bytes, 0 for Netty's defaults
+         */
+        public Builder setWriteBufferWaterMark(int low, int high) {
+            if (high > 0 && low > high) {
+                throw new IllegalArgumentException("low watermark must not exceed high watermark");
+            }
+            this.writeBufferLowWaterMark = low;
+            this.writeBufferHighWaterMark = high;
+            return this;
+        }
+        
+        /**
+         * Set the transport settings of a preset at once
+         */
+        public Builder setTransportPreset(TransportPreset preset) {
+            if (preset == TransportPreset.MANY_STREAMS) {
+                this.eventLoopThreads = Runtime.getRuntime().availableProcessors();
+                this.nativeTransportPreferred = true;
+                this.flowControlWindow = 4 * 1024 * 1024;
+                this.flowControlAutoTuning = true;
+                this.writeBufferLowWaterMark = 256 * 1024;
+                this.writeBufferHighWaterMark = 1024 * 1024;
+            } else {
+                this.eventLoopThreads = 0;
+                this.nativeTransportPreferred = false;
+                this.flowControlWindow = 0;
+                this.flowControlAutoTuning = true;
+                this.maxHeaderListSize = 0;
+                this.writeBufferLowWaterMark = 0;
+                this.writeBufferHighWaterMark = 0;
+            }
+            return this;
+        }
+        
+        /**
+         * Connect to an in-process server of this name instead of host and port,
+         * e.g. a {@link FakeAiInsightServer} started in the same JVM
+         */
+        public Builder setInProcessServerName(String inProcessServerName) {
+            this.inProcessServerName = inProcessServerName;
+            return this;
+        }
+        
         public StreamingInsightClientConfig build() {
             return new StreamingInsightClientConfig(this);
         }
@@ -1,11 +1,26 @@
 package com.cisco.wcc.ccai.client;
 
 import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main class demonstrating usage of the StreamingInsightClient
@@ -15,6 +30,10 @@ public class StreamingInsightClientMain {
     private static final Logger logger = LoggerFactory.getLogger(StreamingInsightClientMain.class);
     
     public static void main(String[] args) {
+        // Flags select the non-interactive batch and load modes, the remaining arguments are positional
+        Map<String, String> flags = new HashMap<>();
+        args = extractFlags(args, flags);
+        
         // Parse command line arguments or use defaults
         // token  orgId  server  port
         String accessToken = getArgOrDefault(args, 0, null);
@@ -29,23 +48,70 @@ public class StreamingInsightClientMain {
         System.out.printf("Organization ID: %s%n", orgId);
         
         // Create client configuration
-        StreamingInsightClientConfig config = StreamingInsightClientConfig.newBuilder()
+        StreamingInsightClientConfig.Builder configBuilder = StreamingInsightClientConfig.newBuilder()
                 .setServerHost(serverHost)
                 .setServerPort(serverPort)
                 .setUseTls(serverPort == 443) // Use TLS for standard HTTPS port
                 .setAccessToken(accessToken)
-                .setOrgId(orgId)
-                .build();
+                .setOrgId(orgId);
+        if (flags.containsKey("channels")) {
+            configBuilder.setChannelPoolSize(Integer.parseInt(flags.get("channels")));
+        }
+        if (flags.containsKey("compression")) {
+            configBuilder.setCompression(flags.get("compression"));
+        }
+        if (flags.containsKey("load")) {
+            // Load reports include publish to receipt latency percentiles
+            configBuilder.setLatencyTrackingEnabled(true);
+        }
+        if (flags.containsKey("unary-policy")) {
+            configBuilder.setUnaryCallPolicy(UnaryCallPolicy.newBuilder()
+                .setMode(UnaryCallPolicy.Mode.valueOf(flags.get("unary-policy").toUpperCase()))
+                .build());
+        }
         
-        try (StreamingInsightClient client = new StreamingInsightClient(config)) {
+        FakeAiInsightServer fakeServer = null;
+        boolean succeeded = true;
+        try {
+            if (flags.containsKey("fake-server")) {
+                // Serve synthetic insights from this JVM instead of connecting to the server
+                fakeServer = FakeAiInsightServer.newBuilder()
+                    .setMessagesPerSecond(Double.parseDouble(flags.get("fake-server")))
+                    .setResponseCompression(flags.get("compression"))
+                    .build();
+                String serverName = "fake-insights-" + System.nanoTime();
+                fakeServer.startInProcess(serverName);
+                configBuilder.setInProcessServerName(serverName);
+                System.out.printf("Using in-process fake server (%s insights/s per stream)%n", flags.get("fake-server"));
+            }
+            StreamingInsightClientConfig config = configBuilder.build();
             
-            // Run interactive demo
-            runInteractiveDemo(client, config);
+            try (StreamingInsightClient client = new StreamingInsightClient(config)) {
+                
+                if (flags.containsKey("batch-input")) {
+                    succeeded = runBatch(client, config, flags);
+                    return;
+                }
+                if (flags.containsKey("load")) {
+                    succeeded = runLoad(client, config, flags);
+                    return;
+                }
+                
+                // Run interactive demo
+                runInteractiveDemo(client, config);
+            }
             
         } catch (Exception e) {
             logger.error("Error running client", e);
             System.err.println("Error: " + e.getMessage());
             System.exit(1);
+        } finally {
+            if (fakeServer != null) {
+                fakeServer.close();
+            }
+            if (!succeeded) {
+                System.exit(2);
+            }
         }
     }
     
@@ -141,7 +207,8 @@ public class StreamingInsightClientMain {
         System.out.println("1. Console handler (detailed output)");
         System.out.println("2. Transcript handler (transcripts only)");
         System.out.println("3. JSON handler (raw JSON output)");
-        System.out.print("Select handler (1-3): ");
+        System.out.println("4. Delta transcript handler (interim changes only)");
+        System.out.print("Select handler (1-4): ");
         
         String handlerChoice = scanner.nextLine().trim();
         java.util.function.Consumer<com.cisco.wcc.ccai.v1.StreamingInsightServingResponse> responseHandler;
@@ -156,6 +223,9 @@ public class StreamingInsightClientMain {
             case "3":
                 responseHandler = ResponseHandler.createJsonHandler();
                 break;
+            case "4":
+                responseHandler = ResponseHandler.createDeltaTranscriptHandler();
+                break;
             default:
                 System.out.println("Invalid choice, using console handler");
                 responseHandler = ResponseHandler.createConsoleHandler();
@@ -375,6 +445,124 @@ public class StreamingInsightClientMain {
         }
     }
     
+    /**
+     * Fetch insights for every conversation ID listed in the input file and write one file
+     * per conversation into the output directory, with many calls in flight at once
+     * @return true if every conversation was fetched and written
+     */
+    private static boolean runBatch(StreamingInsightClient client, StreamingInsightClientConfig config,
+                                    Map<String, String> flags) throws IOException, InterruptedException {
+        Path input = Paths.get(flags.get("batch-input"));
+        Path outputDir = Paths.get(flags.getOrDefault("batch-output", "insights-out"));
+        InsightsServingRequest.InsightType insightType = InsightsServingRequest.InsightType.valueOf(
+            flags.getOrDefault("insight-type", "TRANSCRIPTION").toUpperCase());
+        int concurrency = Integer.parseInt(flags.getOrDefault("concurrency", "32"));
+        long deadlineMs = Long.parseLong(flags.getOrDefault("deadline-ms", "30000"));
+        
+        String orgId = config.getOrgId();
+        if (orgId == null || orgId.isEmpty()) {
+            System.err.println("Batch mode requires an organization ID argument");
+            return false;
+        }
+        
+        List<InsightKey> keys = new ArrayList<>();
+        for (String line : Files.readAllLines(input, StandardCharsets.UTF_8)) {
+            String conversationId = line.trim();
+            if (!conversationId.isEmpty() && !conversationId.startsWith("#")) {
+                keys.add(InsightKey.of(conversationId, orgId, insightType));
+            }
+        }
+        Files.createDirectories(outputDir);
+        
+        System.out.printf("Fetching %s insights for %d conversations (concurrency %d) into %s%n",
+            insightType, keys.size(), concurrency, outputDir);
+        
+        long startNanos = System.nanoTime();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(concurrency, Runtime.getRuntime().availableProcessors())),
+            ClientExecutors.daemonThreadFactory("batch-writer"));
+        try {
+            Map<InsightKey, CompletableFuture<InsightsServingResponse>> results =
+                client.getInsightsBatch(keys, concurrency, deadlineMs);
+            
+            List<CompletableFuture<Void>> writes = new ArrayList<>(results.size());
+            for (Map.Entry<InsightKey, CompletableFuture<InsightsServingResponse>> entry : results.entrySet()) {
+                String conversationId = entry.getKey().getConversationId();
+                writes.add(entry.getValue()
+                    .thenAcceptAsync(response -> writeBatchResult(outputDir, conversationId, response), writers)
+                    .handle((ignored, error) -> {
+                        if (error != null) {
+                            failed.incrementAndGet();
+                            logger.warn("Failed to fetch insights for conversation {}: {}", 
+                                conversationId, error.getMessage());
+                        } else if (written.incrementAndGet() % 1000 == 0) {
+                            System.out.printf("  %d written%n", written.get());
+                        }
+                        return null;
+                    }));
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            writers.shutdown();
+            writers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.printf("Done in %d ms: %d written, %d failed%n", elapsedMs, written.get(), failed.get());
+        return failed.get() == 0;
+    }
+    
+    /**
+     * Hold many concurrent streaming sessions through ramp-up, hold and ramp-down phases,
+     * printing periodic reports and a summary
+     * @return true if no session, stream or one-time call failed
+     */
+    private static boolean runLoad(StreamingInsightClient client, StreamingInsightClientConfig config,
+                                   Map<String, String> flags) throws InterruptedException {
+        LoadGenerator.Builder load = LoadGenerator.newBuilder(client)
+            .setSessions(Integer.parseInt(flags.get("load")))
+            .setPhases(
+                TimeUnit.SECONDS.toMillis(Long.parseLong(flags.getOrDefault("ramp-up-s", "30"))),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(flags.getOrDefault("hold-s", "60"))),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(flags.getOrDefault("ramp-down-s", "10"))))
+            .setReportIntervalMs(TimeUnit.SECONDS.toMillis(Long.parseLong(flags.getOrDefault("report-s", "5"))))
+            .setUnaryCallsPerSecond(Double.parseDouble(flags.getOrDefault("unary-rate", "0")))
+            .setUnaryInsightType(InsightsServingRequest.InsightType.valueOf(
+                flags.getOrDefault("insight-type", "TRANSCRIPTION").toUpperCase()))
+            .setUnaryDeadlineMs(Long.parseLong(flags.getOrDefault("deadline-ms", "30000")));
+        if (config.getOrgId() != null && !config.getOrgId().isEmpty()) {
+            load.setOrgId(config.getOrgId());
+        }
+        if (flags.containsKey("conversation-prefix")) {
+            load.setConversationPrefix(flags.get("conversation-prefix"));
+        }
+        return load.build().run().isClean();
+    }
+    
+    private static void writeBatchResult(Path outputDir, String conversationId, InsightsServingResponse response) {
+        // Conversation IDs are UUIDs in practice, keep anything else from escaping the output directory
+        String fileName = conversationId.replaceAll("[^A-Za-z0-9._-]", "_") + ".txt";
+        try {
+            Files.write(outputDir.resolve(fileName), response.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    static String[] extractFlags(String[] args, Map<String, String> flags) {
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                flags.put(args[i].substring(2), args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        return positional.toArray(new String[0]);
+    }
+    
     private static String getArgOrDefault(String[] args, int index, String defaultValue) {
         return args.length > index ? args[index] : defaultValue;
     }
@@ -386,9 +574,31 @@ public class StreamingInsightClientMain {
         System.out.println("  host: Server hostname (default: serving-api-streaming.wxcc-us1.cisco.com)");
         System.out.println("  port: Server port (default: 443)");
         System.out.println();
+        System.out.println("Batch mode (non-interactive):");
+        System.out.println("  --batch-input <file>     Conversation IDs, one per line");
+        System.out.println("  --batch-output <dir>     Output directory, one file per conversation (default: insights-out)");
+        System.out.println("  --insight-type <type>    TRANSCRIPTION, AGENT_ANSWERS, VIRTUAL_AGENT or MESSAGE (default: TRANSCRIPTION)");
+        System.out.println("  --concurrency <n>        Calls in flight (default: 32)");
+        System.out.println("  --deadline-ms <ms>       Deadline per call (default: 30000)");
+        System.out.println("  --unary-policy <mode>    NONE, RETRY or HEDGE for one-time calls (default: NONE)");
+        System.out.println();
+        System.out.println("Load mode (non-interactive):");
+        System.out.println("  --load <sessions>        Concurrent streaming sessions to hold");
+        System.out.println("  --ramp-up-s <s>          Ramp-up phase (default: 30)");
+        System.out.println("  --hold-s <s>             Hold phase (default: 60)");
+        System.out.println("  --ramp-down-s <s>        Ramp-down phase (default: 10)");
+        System.out.println("  --report-s <s>           Report interval (default: 5)");
+        System.out.println("  --unary-rate <n>         One-time insight calls per second mixed in (default: 0)");
+        System.out.println("  --conversation-prefix <p> Prefix of generated conversation IDs");
+        System.out.println("  --channels <n>           Pooled connections (default: 1)");
+        System.out.println("  --compression <codec>    Compress calls, e.g. gzip (also used by --fake-server)");
+        System.out.println("  --fake-server <rate>     Use an in-process fake server sending <rate> insights/s per stream");
+        System.out.println();
         System.out.println("Examples:");
         System.out.println("  java -jar streaming-insight-client.jar your-token-here");
         System.out.println("  java -jar streaming-insight-client.jar your-token-here your-org-id");
         System.out.println("  java -jar streaming-insight-client.jar your-token-here your-org-id api.wxcc.ai 443");
+        System.out.println("  java -jar streaming-insight-client.jar your-token-here your-org-id --batch-input ids.txt --batch-output out");
+        System.out.println("  java -jar streaming-insight-client.jar your-token-here your-org-id --load 500 --channels 8 --unary-rate 20");
     }
 }
@@ -0,0 +1,199 @@
+package com.cisco.wcc.ccai.client;
+
+import io.grpc.CallCredentials;
+import io.grpc.CallOptions;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Call credentials adding a bearer token per organization.
+ * <p>
+ * The authorization header of each organization is encoded once into a {@link Metadata} instance
+ * that is reused for every call until the token is refreshed, so attaching credentials does not
+ * allocate on the call path. Tokens are refreshed in the background shortly before they expire,
+ * and concurrent calls for an organization whose token is missing share a single fetch.
+ * The organization is read from the {@link #ORG_ID} call option.
+ */
+public class TokenCallCredentials extends CallCredentials {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenCallCredentials.class);
+
+    /**
+     * Call option carrying the organization a call is made for
+     */
+    public static final CallOptions.Key<String> ORG_ID = CallOptions.Key.createWithDefault("wxcc-org-id", "");
+
+    private static final Metadata.Key<String> AUTHORIZATION_KEY =
+        Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final long MIN_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+
+    private final TokenProvider tokenProvider;
+    private final Executor fetchExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long refreshSkewMs;
+    private final ConcurrentHashMap<String, OrgToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Create credentials backed by a token provider
+     * @param tokenProvider Source of tokens
+     * @param fetchExecutor Executor running the (possibly blocking) provider; must not be a
+     *                      transport or direct executor
+     * @param scheduler Scheduler for background refreshes
+     * @param refreshSkewMs How long before expiry a token is refreshed
+     */
+    public TokenCallCredentials(TokenProvider tokenProvider, Executor fetchExecutor,
+                                ScheduledExecutorService scheduler, long refreshSkewMs) {
+        this.tokenProvider = tokenProvider;
+        this.fetchExecutor = fetchExecutor;
+        this.scheduler = scheduler;
+        this.refreshSkewMs = refreshSkewMs;
+    }
+
+    @Override
+    public void applyRequestMetadata(RequestInfo requestInfo, Executor appExecutor, MetadataApplier applier) {
+        String orgId = requestInfo.getCallOptions().getOption(ORG_ID);
+        OrgToken token = tokens.get(orgId);
+        if (token == null) {
+            token = tokens.computeIfAbsent(orgId, OrgToken::new);
+        }
+
+        Metadata headers = token.currentHeaders();
+        if (headers != null) {
+            applier.apply(headers);
+            return;
+        }
+        token.load().whenComplete((loaded, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                applier.fail(Status.UNAUTHENTICATED
+                    .withDescription("Could not obtain access token for org " + orgId)
+                    .withCause(cause));
+            } else {
+                applier.apply(loaded);
+            }
+        });
+    }
+
+    /**
+     * Drop the cached token of an organization, e.g. after the server rejected it
+     * @param orgId Organization ID
+     */
+    public void invalidate(String orgId) {
+        OrgToken token = tokens.get(orgId == null ? "" : orgId);
+        if (token != null) {
+            token.invalidate();
+        }
+    }
+
+    /**
+     * Cached token of one organization
+     */
+    private final class OrgToken {
+        private final String orgId;
+        private volatile Metadata headers;
+        private volatile long expiresAtMillis;
+        private CompletableFuture<Metadata> inFlight; // guarded by this
+        private ScheduledFuture<?> refresh; // guarded by this, the only pending refresh or retry
+
+        OrgToken(String orgId) {
+            this.orgId = orgId;
+        }
+
+        synchronized void invalidate() {
+            headers = null;
+            cancelRefresh();
+        }
+
+        Metadata currentHeaders() {
+            Metadata current = headers;
+            return current != null && System.currentTimeMillis() < expiresAtMillis ? current : null;
+        }
+
+        synchronized CompletableFuture<Metadata> load() {
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<Metadata> future;
+            try {
+                future = CompletableFuture.supplyAsync(this::fetch, fetchExecutor);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            inFlight = future;
+            future.whenComplete((loaded, error) -> {
+                synchronized (this) {
+                    if (inFlight == future) {
+                        inFlight = null;
+                    }
+                }
+                if (error != null) {
+                    logger.warn("Token refresh failed for org {}", orgId, error);
+                    scheduleRetry();
+                }
+            });
+            return future;
+        }
+
+        private Metadata fetch() {
+            AccessToken token;
+            try {
+                token = tokenProvider.getToken(orgId);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            Metadata encoded = new Metadata();
+            encoded.put(AUTHORIZATION_KEY, "Bearer " + token.getValue());
+            expiresAtMillis = token.getExpiresAtMillis();
+            headers = encoded;
+            scheduleRefresh(token.getExpiresAtMillis());
+            return encoded;
+        }
+
+        private void scheduleRefresh(long expiresAt) {
+            if (expiresAt == Long.MAX_VALUE) {
+                return;
+            }
+            long delayMs = Math.max(0, expiresAt - refreshSkewMs - System.currentTimeMillis());
+            schedule(delayMs);
+        }
+
+        private void scheduleRetry() {
+            long remaining = expiresAtMillis - System.currentTimeMillis();
+            if (headers == null || remaining <= 0) {
+                // Nothing valid to keep using, the next call triggers a fetch
+                return;
+            }
+            schedule(Math.max(MIN_RETRY_DELAY_MS, Math.min(MAX_RETRY_DELAY_MS, remaining / 2)));
+        }
+
+        private synchronized void schedule(long delayMs) {
+            // Replaces the pending refresh, so fetches triggered by calls never add a second chain
+            cancelRefresh();
+            try {
+                refresh = scheduler.schedule(this::load, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Not scheduling token refresh for org {}, client is shutting down", orgId);
+            }
+        }
+
+        // Must hold this
+        private void cancelRefresh() {
+            if (refresh != null) {
+                refresh.cancel(false);
+                refresh = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.cisco.wcc.ccai.client;
+
+/**
+ * Source of access tokens per organization. Implementations may block (e.g. call an OAuth
+ * endpoint); they are invoked off the gRPC transport threads and their results are cached
+ * and refreshed ahead of expiry by {@link TokenCallCredentials}.
+ */
+@FunctionalInterface
+public interface TokenProvider {
+    
+    /**
+     * Fetch a token for an organization
+     * @param orgId Organization ID the call is made for, empty if unknown
+     * @return token with its expiry time
+     * @throws Exception if no token could be obtained
+     */
+    AccessToken getToken(String orgId) throws Exception;
+    
+    /**
+     * Provider returning the same non-expiring token for every organization
+     * @param token Token value, without the "Bearer " prefix
+     * @return token provider
+     */
+    static TokenProvider fixed(String token) {
+        AccessToken accessToken = AccessToken.nonExpiring(token);
+        return orgId -> accessToken;
+    }
+}
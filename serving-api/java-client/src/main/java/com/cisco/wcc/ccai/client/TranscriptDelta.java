@@ -0,0 +1,52 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+
+/**
+ * Change of an utterance transcript relative to the previously emitted interim result.
+ * A consumer rebuilds the current text by keeping the first {@link #getRetainedLength()}
+ * characters of its previous text and appending {@link #getAppendedText()}.
+ */
+public final class TranscriptDelta {
+    
+    private final String conversationId;
+    private final String utteranceId;
+    private final InsightServingResponse.Role role;
+    private final int retainedLength;
+    private final String appendedText;
+    private final boolean isFinal;
+    private final String transcript;
+    private final long publishTimestamp;
+    
+    TranscriptDelta(String conversationId, String utteranceId, InsightServingResponse.Role role,
+                    int retainedLength, String appendedText, boolean isFinal, String transcript,
+                    long publishTimestamp) {
+        this.conversationId = conversationId;
+        this.utteranceId = utteranceId;
+        this.role = role;
+        this.retainedLength = retainedLength;
+        this.appendedText = appendedText;
+        this.isFinal = isFinal;
+        this.transcript = transcript;
+        this.publishTimestamp = publishTimestamp;
+    }
+    
+    public String getConversationId() { return conversationId; }
+    public String getUtteranceId() { return utteranceId; }
+    public InsightServingResponse.Role getRole() { return role; }
+    /** Number of characters of the previous interim text that are still valid */
+    public int getRetainedLength() { return retainedLength; }
+    /** Text to append after the retained characters */
+    public String getAppendedText() { return appendedText; }
+    public boolean isFinal() { return isFinal; }
+    /** Complete transcript of the utterance, only set on the final record */
+    public String getTranscript() { return transcript; }
+    public long getPublishTimestamp() { return publishTimestamp; }
+    
+    @Override
+    public String toString() {
+        return "TranscriptDelta{conversationId=" + conversationId + ", utteranceId=" + utteranceId 
+            + ", role=" + role + ", retainedLength=" + retainedLength + ", appendedText='" + appendedText 
+            + "', isFinal=" + isFinal + "}";
+    }
+}
@@ -0,0 +1,546 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over the final transcripts of live conversations, answering which
+ * conversations mention a word or phrase.
+ * <p>
+ * Every conversation is one document with an int id. Words are lower-cased and interned to int
+ * term ids; each term keeps the ids of the documents containing it in a sorted int array and, per
+ * document, the word positions in another. A phrase matches where its words sit at consecutive
+ * positions; positions skip one between utterances so a phrase never spans two of them. Interim
+ * results are ignored, and so is an utterance already indexed under the same utterance id, as
+ * when several streams of one conversation or a replay of its history feed the index. A
+ * conversation is dropped with {@link #removeConversation}, or the oldest one when more than the
+ * configured number are indexed; terms no conversation uses any more are released.
+ * <p>
+ * Feeding takes the write lock, searches share the read lock.
+ */
+public class TranscriptIndex implements Consumer<StreamingInsightServingResponse> {
+
+    private static final int DEFAULT_MAX_CONVERSATIONS = 10_000;
+
+    private final int maxConversations;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final LinkedHashMap<String, Document> documents = new LinkedHashMap<>();
+    private final HashMap<String, Integer> termIds = new HashMap<>();
+    private Postings[] postings = new Postings[1024];
+    private int[] freeTermIds = new int[16];
+    private int freeTermCount;
+    private int nextTermId;
+    private int nextDocId;
+    private Document[] documentsById = new Document[256];
+    // Streams feeding each conversation, which is dropped when the last one ends
+    private final HashMap<String, Integer> streamCounts = new HashMap<>();
+
+    private final LongAdder indexedUtterances = new LongAdder();
+    private final LongAdder indexedWords = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create an index of up to 10,000 conversations
+     */
+    public TranscriptIndex() {
+        this(DEFAULT_MAX_CONVERSATIONS);
+    }
+
+    /**
+     * Create an index
+     * @param maxConversations Conversations kept before the oldest is dropped
+     */
+    public TranscriptIndex(int maxConversations) {
+        if (maxConversations < 1) {
+            throw new IllegalArgumentException("maxConversations must be positive");
+        }
+        this.maxConversations = maxConversations;
+    }
+
+    /**
+     * Index the response if it is a final transcript
+     * @param response Response received from a stream
+     */
+    @Override
+    public void accept(StreamingInsightServingResponse response) {
+        InsightServingResponse insight = response.getInsightServingResponse();
+        if (!insight.hasResponseContent() || !insight.getResponseContent().hasRecognitionResult()) {
+            return;
+        }
+        StreamingRecognitionResult result = insight.getResponseContent().getRecognitionResult();
+        if (result.getAlternativesCount() == 0 || !ResponseHandler.isFinal(insight)) {
+            return;
+        }
+        String utteranceId = insight.getUtteranceId().isEmpty() ? null : insight.getUtteranceId();
+        addUtterance(insight.getConversationId(), utteranceId, result.getAlternatives(0).getTranscript());
+    }
+
+    /**
+     * Index the text of one utterance
+     * @param conversationId Conversation the utterance belongs to
+     * @param text Transcript of the utterance
+     */
+    public void addUtterance(String conversationId, String text) {
+        addUtterance(conversationId, null, text);
+    }
+
+    /**
+     * Index the text of one utterance unless it was indexed before
+     * @param conversationId Conversation the utterance belongs to
+     * @param utteranceId Identifier of the utterance, null to index the text regardless
+     * @param text Transcript of the utterance
+     */
+    public void addUtterance(String conversationId, String utteranceId, String text) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Document doc = documents.get(conversationId);
+            if (doc == null) {
+                doc = newDocument(conversationId);
+            }
+            if (utteranceId != null && !doc.utteranceIds.add(utteranceId)) {
+                return;
+            }
+            for (String word : words) {
+                int termId = intern(word);
+                Postings termPostings = postings[termId];
+                if (termPostings.add(doc.id, doc.nextPosition)) {
+                    doc.addTerm(termId);
+                }
+                doc.nextPosition++;
+            }
+            // Gap between utterances
+            doc.nextPosition++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        indexedUtterances.increment();
+        indexedWords.add(words.size());
+    }
+
+    /**
+     * Drop a conversation from the index, typically when its stream ended
+     * @param conversationId Conversation to drop
+     * @return true if it was indexed
+     */
+    public boolean removeConversation(String conversationId) {
+        lock.writeLock().lock();
+        try {
+            Document doc = documents.remove(conversationId);
+            if (doc == null) {
+                return false;
+            }
+            release(doc);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Count a stream feeding a conversation
+     * @param conversationId Conversation of the stream
+     */
+    void retainConversation(String conversationId) {
+        lock.writeLock().lock();
+        try {
+            streamCounts.merge(conversationId, 1, Integer::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Uncount a stream feeding a conversation, dropping the conversation once no stream is left
+     * @param conversationId Conversation of the stream
+     */
+    void releaseConversation(String conversationId) {
+        lock.writeLock().lock();
+        try {
+            Integer count = streamCounts.get(conversationId);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                streamCounts.put(conversationId, count - 1);
+                return;
+            }
+            streamCounts.remove(conversationId);
+            removeConversation(conversationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the conversations containing a word, or a phrase of consecutive words
+     * @param query Word or phrase, tokenized like the transcripts
+     * @return matching conversations, most matches first
+     */
+    public List<Hit> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] terms = new Postings[words.size()];
+            for (int i = 0; i < terms.length; i++) {
+                Integer termId = termIds.get(words.get(i));
+                if (termId == null) {
+                    return List.of();
+                }
+                terms[i] = postings[termId];
+            }
+            List<Hit> hits = terms.length == 1 ? termHits(terms[0]) : phraseHits(terms);
+            hits.sort((a, b) -> Integer.compare(b.matches, a.matches));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the conversations containing a word
+     * @param word Word to look up
+     * @return number of conversations
+     */
+    public int countConversations(String word) {
+        List<String> words = tokenize(word);
+        if (words.size() != 1) {
+            throw new IllegalArgumentException("Expected a single word: " + word);
+        }
+        lock.readLock().lock();
+        try {
+            Integer termId = termIds.get(words.get(0));
+            return termId == null ? 0 : postings[termId].size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getConversationCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getIndexedUtterances() { return indexedUtterances.sum(); }
+    public long getIndexedWords() { return indexedWords.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    // Must hold write lock
+    private Document newDocument(String conversationId) {
+        if (documents.size() >= maxConversations) {
+            Iterator<Document> oldest = documents.values().iterator();
+            Document evicted = oldest.next();
+            oldest.remove();
+            release(evicted);
+            evictions.increment();
+        }
+        if (nextDocId == documentsById.length) {
+            if (documents.size() <= documentsById.length / 2) {
+                // Ids of dropped conversations make up half the table, number the live ones afresh
+                renumber();
+            } else {
+                documentsById = Arrays.copyOf(documentsById, documentsById.length * 2);
+            }
+        }
+        Document doc = new Document(conversationId, nextDocId++);
+        documents.put(conversationId, doc);
+        documentsById[doc.id] = doc;
+        return doc;
+    }
+
+    // Must hold write lock
+    private void release(Document doc) {
+        documentsById[doc.id] = null;
+        for (int i = 0; i < doc.termCount; i++) {
+            int termId = doc.terms[i];
+            Postings termPostings = postings[termId];
+            termPostings.remove(doc.id);
+            if (termPostings.size == 0) {
+                termIds.remove(termPostings.term);
+                postings[termId] = null;
+                if (freeTermCount == freeTermIds.length) {
+                    freeTermIds = Arrays.copyOf(freeTermIds, freeTermCount * 2);
+                }
+                freeTermIds[freeTermCount++] = termId;
+            }
+        }
+    }
+
+    // Must hold write lock
+    private void renumber() {
+        int[] newIds = new int[documentsById.length];
+        int id = 0;
+        // Documents are kept in the order they were added, which is the order of their ids
+        for (Document doc : documents.values()) {
+            newIds[doc.id] = id;
+            documentsById[doc.id] = null;
+            doc.id = id++;
+        }
+        for (Document doc : documents.values()) {
+            documentsById[doc.id] = doc;
+        }
+        for (Postings termPostings : postings) {
+            if (termPostings != null) {
+                termPostings.renumber(newIds);
+            }
+        }
+        nextDocId = id;
+    }
+
+    // Must hold write lock
+    private int intern(String word) {
+        Integer existing = termIds.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        int termId = freeTermCount > 0 ? freeTermIds[--freeTermCount] : nextTermId++;
+        if (termId >= postings.length) {
+            postings = Arrays.copyOf(postings, postings.length * 2);
+        }
+        postings[termId] = new Postings(word);
+        termIds.put(word, termId);
+        return termId;
+    }
+
+    // Must hold read lock
+    private List<Hit> termHits(Postings term) {
+        List<Hit> hits = new ArrayList<>(term.size);
+        for (int i = 0; i < term.size; i++) {
+            hits.add(new Hit(documentsById[term.docs[i]].conversationId, term.positionCounts[i]));
+        }
+        return hits;
+    }
+
+    // Must hold read lock
+    private List<Hit> phraseHits(Postings[] terms) {
+        // Walk the documents of the rarest word, probing the others by binary search
+        int rarest = 0;
+        for (int i = 1; i < terms.length; i++) {
+            if (terms[i].size < terms[rarest].size) {
+                rarest = i;
+            }
+        }
+        List<Hit> hits = new ArrayList<>();
+        int[] slots = new int[terms.length];
+        Postings driver = terms[rarest];
+        for (int d = 0; d < driver.size; d++) {
+            int docId = driver.docs[d];
+            boolean all = true;
+            for (int i = 0; i < terms.length && all; i++) {
+                slots[i] = i == rarest ? d : Arrays.binarySearch(terms[i].docs, 0, terms[i].size, docId);
+                all = slots[i] >= 0;
+            }
+            if (!all) {
+                continue;
+            }
+            int matches = countPhrase(terms, slots, rarest);
+            if (matches > 0) {
+                hits.add(new Hit(documentsById[docId].conversationId, matches));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Count the start positions at which every word of the phrase follows the previous one
+     */
+    private static int countPhrase(Postings[] terms, int[] slots, int rarest) {
+        int[] anchor = terms[rarest].positions[slots[rarest]];
+        int anchorCount = terms[rarest].positionCounts[slots[rarest]];
+        int matches = 0;
+        for (int a = 0; a < anchorCount; a++) {
+            int start = anchor[a] - rarest;
+            boolean match = start >= 0;
+            for (int i = 0; i < terms.length && match; i++) {
+                if (i != rarest) {
+                    int[] positions = terms[i].positions[slots[i]];
+                    match = Arrays.binarySearch(positions, 0, terms[i].positionCounts[slots[i]], start + i) >= 0;
+                }
+            }
+            if (match) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Split text into lower-case words of letters, digits and inner apostrophes
+     * @param text Text to split
+     * @return words in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c)
+                || (c == '\'' && start >= 0 && i + 1 < length && Character.isLetterOrDigit(text.charAt(i + 1)));
+            if (wordChar) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * A conversation matching a search
+     */
+    public static final class Hit {
+        private final String conversationId;
+        private final int matches;
+
+        Hit(String conversationId, int matches) {
+            this.conversationId = conversationId;
+            this.matches = matches;
+        }
+
+        public String getConversationId() { return conversationId; }
+        /** Occurrences of the word or phrase in the conversation */
+        public int getMatches() { return matches; }
+
+        @Override
+        public String toString() {
+            return conversationId + " (" + matches + ")";
+        }
+    }
+
+    /**
+     * A conversation and the terms it contains, to find its postings when it is dropped
+     */
+    private static final class Document {
+        final String conversationId;
+        final HashSet<String> utteranceIds = new HashSet<>();
+        int id;
+        int nextPosition;
+        int[] terms = new int[32];
+        int termCount;
+
+        Document(String conversationId, int id) {
+            this.conversationId = conversationId;
+            this.id = id;
+        }
+
+        void addTerm(int termId) {
+            if (termCount == terms.length) {
+                terms = Arrays.copyOf(terms, termCount * 2);
+            }
+            terms[termCount++] = termId;
+        }
+    }
+
+    /**
+     * Documents containing one term, sorted by id, each with the sorted positions of the term
+     */
+    private static final class Postings {
+        final String term;
+        int[] docs = new int[4];
+        int[][] positions = new int[4][];
+        int[] positionCounts = new int[4];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        /**
+         * Record an occurrence
+         * @return true if this is the first occurrence in the document
+         */
+        boolean add(int docId, int position) {
+            // Occurrences mostly come from the most recent documents, check the end first
+            int slot = size > 0 && docs[size - 1] == docId ? size - 1 : Arrays.binarySearch(docs, 0, size, docId);
+            if (slot >= 0) {
+                int count = positionCounts[slot];
+                int[] docPositions = positions[slot];
+                if (count == docPositions.length) {
+                    docPositions = Arrays.copyOf(docPositions, count * 2);
+                    positions[slot] = docPositions;
+                }
+                docPositions[count] = position;
+                positionCounts[slot] = count + 1;
+                return false;
+            }
+            int insertAt = -slot - 1;
+            if (size == docs.length) {
+                int capacity = size * 2;
+                docs = Arrays.copyOf(docs, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                positionCounts = Arrays.copyOf(positionCounts, capacity);
+            }
+            System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+            System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+            System.arraycopy(positionCounts, insertAt, positionCounts, insertAt + 1, size - insertAt);
+            docs[insertAt] = docId;
+            positions[insertAt] = new int[] { position, 0 };
+            positionCounts[insertAt] = 1;
+            size++;
+            return true;
+        }
+
+        void remove(int docId) {
+            int slot = Arrays.binarySearch(docs, 0, size, docId);
+            if (slot < 0) {
+                return;
+            }
+            int tail = size - slot - 1;
+            System.arraycopy(docs, slot + 1, docs, slot, tail);
+            System.arraycopy(positions, slot + 1, positions, slot, tail);
+            System.arraycopy(positionCounts, slot + 1, positionCounts, slot, tail);
+            size--;
+            positions[size] = null;
+            if (size == 0) {
+                positions = new int[4][];
+                docs = new int[4];
+                positionCounts = new int[4];
+            }
+        }
+
+        void renumber(int[] newIds) {
+            // Renumbering keeps the relative order of documents, so the arrays stay sorted
+            for (int i = 0; i < size; i++) {
+                docs[i] = newIds[docs[i]];
+            }
+        }
+    }
+}
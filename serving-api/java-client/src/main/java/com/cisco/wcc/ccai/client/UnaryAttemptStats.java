@@ -0,0 +1,156 @@
+package com.cisco.wcc.ccai.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attempts made by one-time insight calls under a {@link UnaryCallPolicy}, the latency of the
+ * calls as a whole and that of their first attempts.
+ * <p>
+ * gRPC reports every attempt to a {@link ClientStreamTracer}, numbered by how many attempts of
+ * the same call came before it. An attempt after the first is a retry or a hedge; it wins when
+ * it is the one that completes the call successfully. Transparent retries, which gRPC makes on
+ * its own when a request never reached the server, are counted separately.
+ * <p>
+ * The hedging delay is derived from first-attempt latency rather than call latency: hedges cut
+ * the slow tail of the calls they win, so call latency would pull the delay down with every hedge.
+ */
+public class UnaryAttemptStats {
+
+    private static final ClientStreamTracer NOOP_TRACER = new ClientStreamTracer() {
+    };
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder callsWithExtraAttempts = new LongAdder();
+    private final LongAdder extraAttempts = new LongAdder();
+    private final LongAdder extraAttemptWins = new LongAdder();
+    private final LongAdder transparentRetries = new LongAdder();
+    private final LatencyHistogram callLatency = new LatencyHistogram();
+    private final LatencyHistogram firstAttemptLatency = new LatencyHistogram();
+    private final ClientStreamTracer extraAttemptTracer = new ClientStreamTracer() {
+        @Override
+        public void streamClosed(Status status) {
+            // Hedged attempts that lost are cancelled, so only the winner closes with OK
+            if (status.isOk()) {
+                extraAttemptWins.increment();
+            }
+        }
+    };
+
+    /**
+     * Interceptor attaching a tracer that counts the attempts of the calls it intercepts
+     * @return client interceptor
+     */
+    ClientInterceptor interceptor() {
+        return new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                       CallOptions callOptions, Channel next) {
+                return next.newCall(method, callOptions.withStreamTracerFactory(new CallTracerFactory()));
+            }
+        };
+    }
+
+    /**
+     * Record the latency of a successful call, across all its attempts
+     * @param micros Latency in microseconds
+     */
+    void recordCallLatency(long micros) {
+        callLatency.record(micros);
+    }
+
+    public long getCalls() { return calls.sum(); }
+    public long getAttempts() { return attempts.sum(); }
+    public long getCallsWithExtraAttempts() { return callsWithExtraAttempts.sum(); }
+    public long getExtraAttempts() { return extraAttempts.sum(); }
+    public long getExtraAttemptWins() { return extraAttemptWins.sum(); }
+    public long getTransparentRetries() { return transparentRetries.sum(); }
+
+    /**
+     * Get the latency of successful calls, from the first attempt to the answer
+     * @return snapshot in microseconds
+     */
+    public LatencyHistogram.Snapshot getCallLatency() {
+        return callLatency.snapshot();
+    }
+
+    /**
+     * Get the latency of first attempts, from their start to their answer. A first attempt that
+     * lost to a hedge counts with the time until it was cancelled, a lower bound of its latency.
+     * @return snapshot in microseconds
+     */
+    public LatencyHistogram.Snapshot getFirstAttemptLatency() {
+        return firstAttemptLatency.snapshot();
+    }
+
+    /**
+     * Get the average number of attempts per call, including transparent retries
+     * @return attempts per call, 0.0 before any call
+     */
+    public double getAttemptsPerCall() {
+        long callCount = calls.sum();
+        return callCount == 0 ? 0.0 : (double) attempts.sum() / callCount;
+    }
+
+    /**
+     * Get the share of calls with a second attempt in which a later attempt answered first.
+     * With hedging, this is how often a hedge beat the original attempt.
+     * @return win ratio between 0.0 and 1.0
+     */
+    public double getExtraAttemptWinRatio() {
+        long withExtra = callsWithExtraAttempts.sum();
+        return withExtra == 0 ? 0.0 : (double) extraAttemptWins.sum() / withExtra;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d attempts/call=%.3f extraAttempts=%d wins=%d (%.1f%%) transparentRetries=%d latency %s",
+            getCalls(), getAttemptsPerCall(), getExtraAttempts(), getExtraAttemptWins(),
+            getExtraAttemptWinRatio() * 100, getTransparentRetries(), callLatency.snapshot());
+    }
+
+    /**
+     * Tracer factory of one call, which times the call's first attempt
+     */
+    private final class CallTracerFactory extends ClientStreamTracer.Factory {
+        private final long startNanos = System.nanoTime();
+        private volatile boolean extraAttemptStarted;
+        private final ClientStreamTracer firstAttemptTracer = new ClientStreamTracer() {
+            @Override
+            public void streamClosed(Status status) {
+                if (status.isOk() || (extraAttemptStarted && status.getCode() == Status.Code.CANCELLED)) {
+                    firstAttemptLatency.record((System.nanoTime() - startNanos) / 1000);
+                }
+            }
+        };
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            attempts.increment();
+            int previousAttempts = info.getPreviousAttempts();
+            if (info.isTransparentRetry()) {
+                transparentRetries.increment();
+                return previousAttempts == 0 ? firstAttemptTracer : NOOP_TRACER;
+            }
+            if (previousAttempts == 0) {
+                calls.increment();
+                return firstAttemptTracer;
+            }
+            extraAttemptStarted = true;
+            if (previousAttempts == 1) {
+                callsWithExtraAttempts.increment();
+            }
+            extraAttempts.increment();
+            return extraAttemptTracer;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retry or hedging settings for one-time insightServing calls, applied through the gRPC service
+ * config of every pooled channel.
+ * <p>
+ * With {@link Mode#RETRY} a failed attempt with a retryable status is repeated after an
+ * exponential backoff. With {@link Mode#HEDGE} another attempt is started whenever the previous
+ * one has not answered within the hedging delay, and the first answer wins; a non-fatal status
+ * also starts the next attempt right away. Both are limited by gRPC's retry throttle: every
+ * failure costs a token, every success returns {@code tokenRatio} of one, and no further attempts
+ * are made while fewer than half of {@code maxTokens} are left.
+ */
+public class UnaryCallPolicy {
+
+    /**
+     * What to do when an attempt fails or is slow
+     */
+    public enum Mode {
+        /** One attempt per call */
+        NONE,
+        /** Repeat failed attempts after a backoff */
+        RETRY,
+        /** Start parallel attempts after the hedging delay */
+        HEDGE
+    }
+
+    private final Mode mode;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double backoffMultiplier;
+    private final long hedgingDelayMs;
+    private final double hedgingDelayPercentile;
+    private final long adaptiveDelayMinSamples;
+    private final long hedgingDelayRefreshMs;
+    private final Set<Status.Code> retryableCodes;
+    private final int throttleMaxTokens;
+    private final double throttleTokenRatio;
+
+    private UnaryCallPolicy(Builder builder) {
+        this.mode = builder.mode;
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMs = builder.initialBackoffMs;
+        this.maxBackoffMs = builder.maxBackoffMs;
+        this.backoffMultiplier = builder.backoffMultiplier;
+        this.hedgingDelayMs = builder.hedgingDelayMs;
+        this.hedgingDelayPercentile = builder.hedgingDelayPercentile;
+        this.adaptiveDelayMinSamples = builder.adaptiveDelayMinSamples;
+        this.hedgingDelayRefreshMs = builder.hedgingDelayRefreshMs;
+        this.retryableCodes = EnumSet.copyOf(builder.retryableCodes);
+        this.throttleMaxTokens = builder.throttleMaxTokens;
+        this.throttleTokenRatio = builder.throttleTokenRatio;
+    }
+
+    public Mode getMode() { return mode; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public long getInitialBackoffMs() { return initialBackoffMs; }
+    public long getMaxBackoffMs() { return maxBackoffMs; }
+    public double getBackoffMultiplier() { return backoffMultiplier; }
+    public long getHedgingDelayMs() { return hedgingDelayMs; }
+    public double getHedgingDelayPercentile() { return hedgingDelayPercentile; }
+    public long getAdaptiveDelayMinSamples() { return adaptiveDelayMinSamples; }
+    public long getHedgingDelayRefreshMs() { return hedgingDelayRefreshMs; }
+    public Set<Status.Code> getRetryableCodes() { return retryableCodes; }
+    public int getThrottleMaxTokens() { return throttleMaxTokens; }
+    public double getThrottleTokenRatio() { return throttleTokenRatio; }
+
+    /**
+     * Pick the hedging delay: the configured percentile of observed first-attempt latencies once
+     * enough attempts were seen, the configured delay before that
+     * @param firstAttemptLatency Latencies of first attempts
+     * @return delay in milliseconds, at least 1
+     */
+    long hedgingDelayMs(LatencyHistogram.Snapshot firstAttemptLatency) {
+        if (firstAttemptLatency == null || firstAttemptLatency.getCount() == 0
+                || firstAttemptLatency.getCount() < adaptiveDelayMinSamples) {
+            return Math.max(1, hedgingDelayMs);
+        }
+        return Math.max(1, firstAttemptLatency.getValueAtPercentile(hedgingDelayPercentile) / 1000);
+    }
+
+    /**
+     * Build the service config for a channel
+     * @param timeoutMs Deadline of insightServing calls, 0 for none
+     * @param hedgingDelayMs Hedging delay to use, see {@link #hedgingDelayMs(LatencyHistogram.Snapshot)}
+     * @return service config in the JSON-like form accepted by {@code defaultServiceConfig}
+     */
+    Map<String, Object> toServiceConfig(long timeoutMs, long hedgingDelayMs) {
+        Map<String, Object> name = new LinkedHashMap<>();
+        name.put("service", AiInsightGrpc.SERVICE_NAME);
+        name.put("method", AiInsightGrpc.getInsightServingMethod().getBareMethodName());
+
+        Map<String, Object> methodConfig = new LinkedHashMap<>();
+        methodConfig.put("name", List.of(name));
+        if (timeoutMs > 0) {
+            methodConfig.put("timeout", seconds(timeoutMs));
+        }
+        List<Object> codes = new ArrayList<>();
+        for (Status.Code code : retryableCodes) {
+            codes.add(code.name());
+        }
+        // Numbers must be doubles, as if parsed from JSON
+        if (mode == Mode.RETRY) {
+            Map<String, Object> retryPolicy = new LinkedHashMap<>();
+            retryPolicy.put("maxAttempts", (double) maxAttempts);
+            retryPolicy.put("initialBackoff", seconds(initialBackoffMs));
+            retryPolicy.put("maxBackoff", seconds(maxBackoffMs));
+            retryPolicy.put("backoffMultiplier", backoffMultiplier);
+            retryPolicy.put("retryableStatusCodes", codes);
+            methodConfig.put("retryPolicy", retryPolicy);
+        } else if (mode == Mode.HEDGE) {
+            Map<String, Object> hedgingPolicy = new LinkedHashMap<>();
+            hedgingPolicy.put("maxAttempts", (double) maxAttempts);
+            hedgingPolicy.put("hedgingDelay", seconds(hedgingDelayMs));
+            hedgingPolicy.put("nonFatalStatusCodes", codes);
+            methodConfig.put("hedgingPolicy", hedgingPolicy);
+        }
+
+        Map<String, Object> serviceConfig = new LinkedHashMap<>();
+        serviceConfig.put("methodConfig", List.of(methodConfig));
+        if (mode != Mode.NONE) {
+            Map<String, Object> throttling = new LinkedHashMap<>();
+            throttling.put("maxTokens", (double) throttleMaxTokens);
+            throttling.put("tokenRatio", throttleTokenRatio);
+            serviceConfig.put("retryThrottling", throttling);
+        }
+        return serviceConfig;
+    }
+
+    private static String seconds(long ms) {
+        return String.format(Locale.ROOT, "%.3fs", ms / 1000.0);
+    }
+
+    /**
+     * Default policy: no retries or hedging
+     * @return default policy
+     */
+    public static UnaryCallPolicy defaultPolicy() {
+        return newBuilder().build();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Mode mode = Mode.NONE;
+        private int maxAttempts = 3;
+        private long initialBackoffMs = 100;
+        private long maxBackoffMs = 2000; // 2 seconds
+        private double backoffMultiplier = 2.0;
+        private long hedgingDelayMs = 200;
+        private double hedgingDelayPercentile = 95.0;
+        private long adaptiveDelayMinSamples = 100;
+        private long hedgingDelayRefreshMs = 60000; // 1 minute
+        private Set<Status.Code> retryableCodes = EnumSet.of(Status.Code.UNAVAILABLE);
+        private int throttleMaxTokens = 10;
+        private double throttleTokenRatio = 0.1;
+
+        public Builder setMode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        /**
+         * Attempts per call including the first, at most 5 (gRPC's limit)
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+            return this;
+        }
+
+        public Builder setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+            return this;
+        }
+
+        public Builder setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        /**
+         * Hedging delay used until enough calls were observed to derive it from their latency
+         */
+        public Builder setHedgingDelayMs(long hedgingDelayMs) {
+            this.hedgingDelayMs = hedgingDelayMs;
+            return this;
+        }
+
+        /**
+         * Derive the hedging delay from this percentile of first-attempt latency, over the
+         * attempts made since the delay last changed, once {@code minSamples} were seen
+         */
+        public Builder setAdaptiveHedgingDelay(double percentile, long minSamples) {
+            this.hedgingDelayPercentile = percentile;
+            this.adaptiveDelayMinSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * How often the adaptive hedging delay is recomputed. The pooled channels are rebuilt
+         * when it moved by more than a fifth, since a channel's service config is fixed.
+         */
+        public Builder setHedgingDelayRefreshMs(long hedgingDelayRefreshMs) {
+            this.hedgingDelayRefreshMs = hedgingDelayRefreshMs;
+            return this;
+        }
+
+        /**
+         * Status codes that are retried, or that start the next hedged attempt immediately
+         */
+        public Builder setRetryableCodes(Set<Status.Code> retryableCodes) {
+            this.retryableCodes = EnumSet.noneOf(Status.Code.class);
+            this.retryableCodes.addAll(retryableCodes);
+            return this;
+        }
+
+        /**
+         * gRPC retry throttling shared by all calls of a channel
+         * @param maxTokens Token bucket size
+         * @param tokenRatio Tokens returned per successful call
+         */
+        public Builder setThrottle(int maxTokens, double tokenRatio) {
+            this.throttleMaxTokens = maxTokens;
+            this.throttleTokenRatio = tokenRatio;
+            return this;
+        }
+
+        public UnaryCallPolicy build() {
+            if (maxAttempts < 2 && mode != Mode.NONE) {
+                throw new IllegalArgumentException("maxAttempts must be at least 2 to retry or hedge");
+            }
+            if (maxAttempts > 5) {
+                throw new IllegalArgumentException("maxAttempts must not exceed 5");
+            }
+            if (initialBackoffMs <= 0 || maxBackoffMs < initialBackoffMs || backoffMultiplier <= 0) {
+                throw new IllegalArgumentException("Invalid backoff settings");
+            }
+            if (mode == Mode.RETRY && retryableCodes.isEmpty()) {
+                throw new IllegalArgumentException("Retrying needs at least one retryable status code");
+            }
+            if (hedgingDelayPercentile <= 0 || hedgingDelayPercentile > 100) {
+                throw new IllegalArgumentException("Invalid hedging delay percentile");
+            }
+            if (hedgingDelayRefreshMs <= 0) {
+                throw new IllegalArgumentException("hedgingDelayRefreshMs must be positive");
+            }
+            if (throttleMaxTokens < 1 || throttleTokenRatio <= 0) {
+                throw new IllegalArgumentException("Invalid throttle settings");
+            }
+            return new UnaryCallPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline stage folding interim transcription results into {@link TranscriptDelta}s.
+ * <p>
+ * Only the latest interim text of each open utterance (keyed by conversationId and utteranceId)
+ * is kept. Every new interim is diffed against it using the common prefix, so downstream only
+ * receives the characters that changed; the final result closes the utterance and is emitted as
+ * one record carrying the complete transcript. Responses that are not transcriptions are ignored.
+ */
+public class UtteranceAssembler implements Consumer<StreamingInsightServingResponse> {
+
+    private static final int DEFAULT_MAX_OPEN_UTTERANCES = 1024;
+
+    private final Consumer<TranscriptDelta> deltaHandler;
+    private final LinkedHashMap<String, String> openUtterances;
+
+    /**
+     * Create an assembler tracking up to 1024 open utterances
+     * @param deltaHandler Receiver of transcript deltas
+     */
+    public UtteranceAssembler(Consumer<TranscriptDelta> deltaHandler) {
+        this(deltaHandler, DEFAULT_MAX_OPEN_UTTERANCES);
+    }
+
+    /**
+     * Create an assembler
+     * @param deltaHandler Receiver of transcript deltas
+     * @param maxOpenUtterances Maximum number of utterances awaiting their final result. When exceeded
+     *                          the least recently updated one is forgotten and its next interim is sent in full.
+     */
+    public UtteranceAssembler(Consumer<TranscriptDelta> deltaHandler, int maxOpenUtterances) {
+        this.deltaHandler = deltaHandler;
+        this.openUtterances = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxOpenUtterances;
+            }
+        };
+    }
+
+    @Override
+    public void accept(StreamingInsightServingResponse response) {
+        InsightServingResponse insight = response.getInsightServingResponse();
+        if (!insight.hasResponseContent() || !insight.getResponseContent().hasRecognitionResult()) {
+            return;
+        }
+        StreamingRecognitionResult result = insight.getResponseContent().getRecognitionResult();
+        if (result.getAlternativesCount() == 0) {
+            return;
+        }
+        String text = result.getAlternatives(0).getTranscript();
+        boolean isFinal = result.getIsFinal() || insight.getIsFinal();
+        String key = keyOf(insight);
+
+        TranscriptDelta delta;
+        synchronized (openUtterances) {
+            String previous = isFinal ? openUtterances.remove(key) : openUtterances.put(key, text);
+            if (previous == null) {
+                previous = "";
+            }
+            int retained = commonPrefixLength(previous, text);
+            if (!isFinal && retained == previous.length() && retained == text.length()) {
+                // Interim repeated without change
+                return;
+            }
+            delta = new TranscriptDelta(
+                insight.getConversationId(),
+                insight.getUtteranceId(),
+                insight.getRole(),
+                retained,
+                text.substring(retained),
+                isFinal,
+                isFinal ? text : null,
+                insight.getPublishTimestamp());
+        }
+        deltaHandler.accept(delta);
+    }
+
+    /**
+     * Get the number of utterances still waiting for their final result
+     * @return open utterance count
+     */
+    public int getOpenUtteranceCount() {
+        synchronized (openUtterances) {
+            return openUtterances.size();
+        }
+    }
+
+    private static String keyOf(InsightServingResponse insight) {
+        // Fall back to the leg when the provider does not assign utterance IDs
+        String utterance = insight.getUtteranceId().isEmpty() ? "role:" + insight.getRoleId() : insight.getUtteranceId();
+        return insight.getConversationId() + '\u0000' + utterance;
+    }
+
+    static int commonPrefixLength(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        // Do not split a surrogate pair
+        if (i > 0 && i < max && Character.isHighSurrogate(a.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact index of the insights already delivered for one conversation, used to drop
+ * items the server replays after a resubscription with historical flags.
+ * <p>
+ * For every utterance only one byte is kept: a bit per {@link InsightServingResponse.ServiceType}
+ * telling whether the final result of that type was delivered. Interim transcripts are never
+ * recorded, they are dropped once the final for their utterance and type has been seen. Other
+ * insight types are recorded as soon as they are delivered, final or not, since a replay would
+ * only repeat them.
+ */
+public class UtteranceDeduplicator {
+
+    private static final int DEFAULT_MAX_UTTERANCES = 50_000;
+
+    private final LinkedHashMap<String, Byte> finalsDelivered;
+
+    /**
+     * Create a deduplicator remembering up to 50,000 utterances
+     */
+    public UtteranceDeduplicator() {
+        this(DEFAULT_MAX_UTTERANCES);
+    }
+
+    /**
+     * Create a deduplicator
+     * @param maxUtterances Maximum number of utterances remembered; the oldest are forgotten first
+     */
+    public UtteranceDeduplicator(int maxUtterances) {
+        this.finalsDelivered = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Byte> eldest) {
+                return size() > maxUtterances;
+            }
+        };
+    }
+
+    /**
+     * Decide whether a response should be delivered and record it if so
+     * @param response Response received from the stream
+     * @return true if the response has not been delivered before
+     */
+    public synchronized boolean shouldDeliver(StreamingInsightServingResponse response) {
+        InsightServingResponse insight = response.getInsightServingResponse();
+        String key = keyOf(insight);
+        if (key == null) {
+            // Nothing to deduplicate on
+            return true;
+        }
+
+        int bit = 1 << (insight.getInsightTypeValue() & 7);
+        Byte mask = finalsDelivered.get(key);
+        int delivered = mask == null ? 0 : mask;
+        if ((delivered & bit) != 0) {
+            // Final already delivered, this is either the replayed final or a stale interim
+            return false;
+        }
+        if (ResponseHandler.isFinal(insight) || !isTranscript(insight)) {
+            finalsDelivered.put(key, (byte) (delivered | bit));
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of utterances currently remembered
+     * @return index size
+     */
+    public synchronized int size() {
+        return finalsDelivered.size();
+    }
+
+    private static boolean isTranscript(InsightServingResponse insight) {
+        InsightServingResponse.ServiceType type = insight.getInsightType();
+        return type == InsightServingResponse.ServiceType.TRANSCRIPTION
+            || type == InsightServingResponse.ServiceType.DEFAULT_TRANSCRIPTION;
+    }
+
+    private static String keyOf(InsightServingResponse insight) {
+        if (!insight.getUtteranceId().isEmpty()) {
+            return insight.getUtteranceId();
+        }
+        if (!insight.getMessageId().isEmpty()) {
+            return insight.getMessageId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.cisco.wcc.ccai.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Message bytes sent and received, on the wire and after decompression.
+ * <p>
+ * Sizes are those of the gRPC messages as reported by a {@link ClientStreamTracer}: the wire size
+ * is the message as framed, compressed when a codec was negotiated, and the uncompressed size is
+ * the serialized protobuf. HTTP/2 and TLS framing and headers are not included. Without
+ * compression both sizes are equal. Stats of a session also feed those of its client.
+ */
+public class WireSizeStats {
+
+    private final WireSizeStats parent;
+    private final LongAdder inboundMessages = new LongAdder();
+    private final LongAdder inboundWireBytes = new LongAdder();
+    private final LongAdder inboundUncompressedBytes = new LongAdder();
+    private final LongAdder outboundMessages = new LongAdder();
+    private final LongAdder outboundWireBytes = new LongAdder();
+    private final LongAdder outboundUncompressedBytes = new LongAdder();
+    // Only touches the counters, so one instance serves every stream
+    private final ClientStreamTracer tracer = new ClientStreamTracer() {
+        @Override
+        public void inboundMessage(int seqNo) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.inboundMessages.add(1);
+            }
+        }
+
+        @Override
+        public void inboundWireSize(long bytes) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.inboundWireBytes.add(bytes);
+            }
+        }
+
+        @Override
+        public void inboundUncompressedSize(long bytes) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.inboundUncompressedBytes.add(bytes);
+            }
+        }
+
+        @Override
+        public void outboundMessage(int seqNo) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.outboundMessages.add(1);
+            }
+        }
+
+        @Override
+        public void outboundWireSize(long bytes) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.outboundWireBytes.add(bytes);
+            }
+        }
+
+        @Override
+        public void outboundUncompressedSize(long bytes) {
+            for (WireSizeStats stats = WireSizeStats.this; stats != null; stats = stats.parent) {
+                stats.outboundUncompressedBytes.add(bytes);
+            }
+        }
+    };
+    private final ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            return tracer;
+        }
+    };
+
+    /**
+     * Create stats not attached to a parent
+     */
+    public WireSizeStats() {
+        this(null);
+    }
+
+    /**
+     * Create stats that also record into a parent
+     * @param parent Stats receiving every recording as well, may be null
+     */
+    public WireSizeStats(WireSizeStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Interceptor attaching a tracer that records the calls it intercepts into these stats
+     * @return client interceptor
+     */
+    ClientInterceptor interceptor() {
+        return new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                       CallOptions callOptions, Channel next) {
+                return next.newCall(method, callOptions.withStreamTracerFactory(tracerFactory));
+            }
+        };
+    }
+
+    public long getInboundMessages() { return inboundMessages.sum(); }
+    public long getInboundWireBytes() { return inboundWireBytes.sum(); }
+    public long getInboundUncompressedBytes() { return inboundUncompressedBytes.sum(); }
+    public long getOutboundMessages() { return outboundMessages.sum(); }
+    public long getOutboundWireBytes() { return outboundWireBytes.sum(); }
+    public long getOutboundUncompressedBytes() { return outboundUncompressedBytes.sum(); }
+
+    /**
+     * Get the share of received bytes saved by compression
+     * @return 0.0 without compression or before anything was received, e.g. 0.75 when the wire
+     *         carried a quarter of the uncompressed size
+     */
+    public double getInboundSavings() {
+        long uncompressed = inboundUncompressedBytes.sum();
+        if (uncompressed == 0) {
+            return 0.0;
+        }
+        return 1.0 - (double) inboundWireBytes.sum() / uncompressed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("in=%d msgs %d wire/%d uncompressed bytes (%.1f%% saved), out=%d msgs %d wire/%d uncompressed bytes",
+            getInboundMessages(), getInboundWireBytes(), getInboundUncompressedBytes(), getInboundSavings() * 100,
+            getOutboundMessages(), getOutboundWireBytes(), getOutboundUncompressedBytes());
+    }
+}
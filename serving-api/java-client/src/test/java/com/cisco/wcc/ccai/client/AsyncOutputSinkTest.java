@@ -0,0 +1,97 @@
+package com.cisco.wcc.ccai.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncOutputSinkTest {
+
+    private final StringWriter out = new StringWriter();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    // Holds the writer thread on the first item so the ring fills up behind it
+    private final OutputFormatter<String> formatter = (item, text) -> {
+        if (item.equals("a")) {
+            writing.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        text.append(item);
+    };
+
+    @Test
+    void blockPolicyWaitsForRoom() throws Exception {
+        AsyncOutputSink sink = fillBehindStalledWriter(AsyncOutputSink.OverflowPolicy.BLOCK);
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> sink.submit("d", false, formatter));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+        assertEquals(2, sink.getQueueDepth());
+
+        gate.countDown();
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        sink.close();
+        assertEquals("abcd", out.toString());
+        assertEquals(0, sink.getDroppedCount());
+        assertEquals(4, sink.getWrittenCount());
+    }
+
+    @Test
+    void dropOldestPolicyMakesRoomImmediately() throws Exception {
+        AsyncOutputSink sink = fillBehindStalledWriter(AsyncOutputSink.OverflowPolicy.DROP_OLDEST);
+
+        assertTrue(sink.submit("d", false, formatter));
+        assertEquals(1, sink.getDroppedCount());
+
+        gate.countDown();
+        sink.close();
+        assertEquals("acd", out.toString());
+    }
+
+    @Test
+    void dropInterimPolicyKeepsFinals() throws Exception {
+        AsyncOutputSink sink = fillBehindStalledWriter(AsyncOutputSink.OverflowPolicy.DROP_INTERIM);
+
+        assertFalse(sink.submit("d", true, formatter));
+        // Replaces the queued interim "b"
+        assertTrue(sink.submit("e", false, formatter));
+        assertEquals(2, sink.getDroppedCount());
+
+        gate.countDown();
+        sink.close();
+        assertEquals("ace", out.toString());
+    }
+
+    @Test
+    void dropsItemsAfterClose() {
+        AsyncOutputSink sink = new AsyncOutputSink(out, 4, AsyncOutputSink.OverflowPolicy.BLOCK, "test-writer");
+        sink.close();
+
+        assertFalse(sink.submit("a", false, formatter));
+        assertEquals(1, sink.getDroppedCount());
+    }
+
+    /**
+     * Create a sink of two slots whose writer is stuck on "a" while interim "b" and final "c" are queued
+     */
+    private AsyncOutputSink fillBehindStalledWriter(AsyncOutputSink.OverflowPolicy policy) throws InterruptedException {
+        AsyncOutputSink sink = new AsyncOutputSink(out, 2, policy, "test-writer");
+        assertTrue(sink.submit("a", false, formatter));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTrue(sink.submit("b", true, formatter));
+        assertTrue(sink.submit("c", false, formatter));
+        assertEquals(2, sink.getQueueDepth());
+        return sink;
+    }
+}
@@ -0,0 +1,141 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InsightCacheTest {
+
+    private static final InsightKey KEY = InsightKey.of("c1", "o1", InsightsServingRequest.InsightType.TRANSCRIPTION);
+    private static final InsightKey OTHER_KEY = InsightKey.of("c2", "o1", InsightsServingRequest.InsightType.TRANSCRIPTION);
+    private static final InsightsServingResponse RESPONSE = InsightsServingResponse.newBuilder().setConversationId("c1").build();
+
+    private final InsightCache cache = new InsightCache(1024 * 1024, 60_000);
+    private final List<CompletableFuture<InsightsServingResponse>> calls = new ArrayList<>();
+    private final Function<InsightKey, CompletableFuture<InsightsServingResponse>> loader = key -> {
+        CompletableFuture<InsightsServingResponse> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    };
+
+    @Test
+    void coalescesConcurrentMissesIntoOneLoad() throws Exception {
+        CompletableFuture<InsightsServingResponse> first = cache.get(KEY, loader);
+        CompletableFuture<InsightsServingResponse> second = cache.get(KEY, loader);
+
+        assertEquals(1, calls.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+        assertFalse(first.isDone());
+
+        calls.get(0).complete(RESPONSE);
+
+        assertSame(RESPONSE, first.get());
+        assertSame(RESPONSE, second.get());
+        assertSame(RESPONSE, cache.get(KEY, loader).get());
+        assertEquals(1, calls.size());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void doesNotCacheFailedLoads() {
+        CompletableFuture<InsightsServingResponse> failed = cache.get(KEY, loader);
+        calls.get(0).completeExceptionally(new IllegalStateException("boom"));
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(1, cache.getLoadFailureCount());
+        assertNull(cache.getIfPresent(KEY));
+
+        cache.get(KEY, loader);
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    void keepsLoadWhileAnotherCallerWaits() throws Exception {
+        CompletableFuture<InsightsServingResponse> first = cache.get(KEY, loader);
+        CompletableFuture<InsightsServingResponse> second = cache.get(KEY, loader);
+
+        first.cancel(true);
+
+        assertFalse(calls.get(0).isCancelled());
+        calls.get(0).complete(RESPONSE);
+        assertSame(RESPONSE, second.get());
+    }
+
+    @Test
+    void cancelsLoadOnceEveryCallerCancelled() {
+        CompletableFuture<InsightsServingResponse> first = cache.get(KEY, loader);
+        CompletableFuture<InsightsServingResponse> second = cache.get(KEY, loader);
+
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(calls.get(0).isCancelled());
+        assertEquals(0, cache.getLoadFailureCount());
+
+        CompletableFuture<InsightsServingResponse> retry = cache.get(KEY, loader);
+        assertEquals(2, calls.size());
+        calls.get(1).complete(RESPONSE);
+        assertSame(RESPONSE, retry.join());
+    }
+
+    @Test
+    void cancelsLoadOfSoleCaller() {
+        cache.get(KEY, loader).cancel(true);
+
+        assertTrue(calls.get(0).isCancelled());
+    }
+
+    @Test
+    void invalidateDuringLoadDoesNotCacheItsResult() throws Exception {
+        CompletableFuture<InsightsServingResponse> stale = cache.get(KEY, loader);
+        cache.invalidate(KEY);
+
+        // Not coalesced onto the invalidated load
+        CompletableFuture<InsightsServingResponse> fresh = cache.get(KEY, loader);
+        assertEquals(2, calls.size());
+
+        calls.get(0).complete(RESPONSE);
+        assertSame(RESPONSE, stale.get());
+        assertNull(cache.getIfPresent(KEY));
+        assertFalse(fresh.isDone());
+
+        InsightsServingResponse current = InsightsServingResponse.newBuilder().setConversationId("c1-updated").build();
+        calls.get(1).complete(current);
+        assertSame(current, fresh.get());
+        assertSame(current, cache.getIfPresent(KEY));
+    }
+
+    @Test
+    void expiresEntriesAfterTimeToLive() throws Exception {
+        InsightCache shortLived = new InsightCache(1024 * 1024, 1);
+        shortLived.put(KEY, RESPONSE);
+        Thread.sleep(20);
+
+        assertNull(shortLived.getIfPresent(KEY));
+        assertEquals(1, shortLived.getExpirationCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() {
+        // Each entry weighs a little under 200 bytes
+        InsightCache small = new InsightCache(300, 60_000);
+        small.put(KEY, RESPONSE);
+        small.put(OTHER_KEY, RESPONSE);
+
+        assertNull(small.getIfPresent(KEY));
+        assertSame(RESPONSE, small.getIfPresent(OTHER_KEY));
+        assertEquals(1, small.getEvictionCount());
+    }
+}
@@ -0,0 +1,267 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InsightJournalTest {
+
+    private static final String CONVERSATION = "c1";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readStopsAtTruncatedTailRecord() throws Exception {
+        writeRecords("u1", "u2", "u3");
+        Path segment = conversationDir().resolve(InsightJournal.segmentName(1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        assertEquals(List.of("u1", "u2"), utteranceIds(InsightJournal.readRecords(conversationDir())));
+    }
+
+    @Test
+    void readStopsAtCorruptTailRecord() throws Exception {
+        writeRecords("u1", "u2", "u3");
+        Path segment = conversationDir().resolve(InsightJournal.segmentName(1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Flip a bit of the checksum of the last record
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 1));
+            last.rewind();
+            channel.write(last, channel.size() - 1);
+        }
+
+        List<InsightJournal.LogRecord> records = InsightJournal.readRecords(conversationDir());
+        assertEquals(List.of("u1", "u2"), utteranceIds(records));
+        assertEquals(2, records.get(1).getSequence());
+    }
+
+    @Test
+    void reopenContinuesSequenceNumbering() throws Exception {
+        writeRecords("u1", "u2");
+
+        try (InsightJournal journal = InsightJournal.open(directory)) {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            assertEquals(3, log.append(insight("u3")));
+        }
+
+        List<InsightJournal.LogRecord> records = InsightJournal.readRecords(conversationDir());
+        assertEquals(List.of("u1", "u2", "u3"), utteranceIds(records));
+        assertEquals(List.of(1L, 2L, 3L),
+            records.stream().map(InsightJournal.LogRecord::getSequence).collect(Collectors.toList()));
+        assertTrue(Files.exists(conversationDir().resolve(InsightJournal.segmentName(3))));
+    }
+
+    @Test
+    void reopenAfterTornTailReusesItsSequence() throws Exception {
+        writeRecords("u1", "u2", "u3");
+        Path segment = conversationDir().resolve(InsightJournal.segmentName(1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        try (InsightJournal journal = InsightJournal.open(directory)) {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            assertEquals(3, log.append(insight("u4")));
+        }
+
+        assertEquals(List.of("u1", "u2", "u4"), utteranceIds(InsightJournal.readRecords(conversationDir())));
+    }
+
+    @Test
+    void appendAfterCloseIsNotLogged() throws Exception {
+        InsightJournal journal = InsightJournal.open(directory);
+        InsightJournal.ConversationLog log =
+            journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+        assertEquals(1, log.append(insight("u1")));
+        journal.close();
+
+        assertEquals(-1, log.append(insight("u2")));
+        assertEquals(List.of("u1"), utteranceIds(InsightJournal.readRecords(conversationDir())));
+    }
+
+    @Test
+    void checkpointIsNotWrittenBeforeItsRecordIsSynced() throws Exception {
+        InsightJournal journal = InsightJournal.newBuilder(directory).setSyncIntervalMs(60_000).build();
+        try {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            InsightServingResponse u1 = insight("u1");
+            long sequence = log.append(u1);
+            log.markDelivered(sequence, u1);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (journal.getBytesWritten() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(journal.getBytesWritten() > 0);
+            Thread.sleep(100);
+
+            // Written but not forced: the checkpoint must wait for the sync
+            assertEquals(0, journal.getSyncCount());
+            assertEquals(0, journal.getCheckpointCount());
+            assertNull(InsightJournal.readCheckpoint(conversationDir()));
+        } finally {
+            journal.close();
+        }
+
+        InsightJournal.Checkpoint checkpoint = InsightJournal.readCheckpoint(conversationDir());
+        List<InsightJournal.LogRecord> records = InsightJournal.readRecords(conversationDir());
+        assertEquals(1, checkpoint.getSequence());
+        assertEquals("u1", checkpoint.getUtteranceId());
+        assertTrue(checkpoint.getSequence() <= records.get(records.size() - 1).getSequence());
+    }
+
+    @Test
+    void releasedConversationStaysRecoverableAndCanBeReopened() throws Exception {
+        try (InsightJournal journal = InsightJournal.open(directory)) {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            log.append(insight("u1"));
+            log.release();
+
+            // Waits for the released log to close instead of failing as already open
+            InsightJournal.ConversationLog reopened =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            assertEquals(2, reopened.append(insight("u2")));
+            reopened.release();
+            awaitNoOpenConversations(journal);
+
+            assertFalse(Files.exists(conversationDir().resolve(InsightJournal.COMPLETED_FILE)));
+            List<InsightJournal.RecoveredConversation> recovered = journal.recover();
+            assertEquals(1, recovered.size());
+            assertEquals(List.of("u1", "u2"), utteranceIds(recovered.get(0).getRecords()));
+        }
+    }
+
+    @Test
+    void failedSessionReleasesItsLog() throws Exception {
+        try (ScriptedInsightServer server = new ScriptedInsightServer();
+             StreamingInsightClient client = server.newClient();
+             InsightJournal journal = InsightJournal.open(directory)) {
+            List<StreamingInsightServingResponse> received = new CopyOnWriteArrayList<>();
+            long published = System.currentTimeMillis();
+            server.enqueue(observer -> {
+                observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, published));
+                observer.onError(Status.INVALID_ARGUMENT.asRuntimeException());
+            });
+            server.enqueue(observer -> observer.onCompleted());
+
+            ResilientStreamingInsightSession failed = client.startDurableStreamingInsights(
+                ScriptedInsightServer.transcriptRequest(CONVERSATION), journal, fastPolicy(), received::add, error -> { });
+            assertTrue(failed.awaitCompletion(5, TimeUnit.SECONDS));
+            awaitNoOpenConversations(journal);
+            assertFalse(Files.exists(conversationDir().resolve(InsightJournal.COMPLETED_FILE)));
+            assertEquals(1, journal.recover().size());
+
+            ResilientStreamingInsightSession restarted = client.startDurableStreamingInsights(
+                ScriptedInsightServer.transcriptRequest(CONVERSATION), journal, fastPolicy(), received::add, error -> { });
+            assertTrue(restarted.awaitCompletion(5, TimeUnit.SECONDS));
+            awaitNoOpenConversations(journal);
+            assertTrue(Files.exists(conversationDir().resolve(InsightJournal.COMPLETED_FILE)));
+            assertTrue(journal.recover().isEmpty());
+        }
+    }
+
+    @Test
+    void recoveryDropsReplayedInsightsAlreadyInTheJournal() throws Exception {
+        long published = System.currentTimeMillis();
+        try (InsightJournal journal = InsightJournal.open(directory)) {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            InsightServingResponse u1 = transcript("u1", published);
+            log.markDelivered(log.append(u1), u1);
+            // Logged but the process died before it was handled
+            log.append(transcript("u2", published));
+        }
+
+        try (ScriptedInsightServer server = new ScriptedInsightServer();
+             StreamingInsightClient client = server.newClient();
+             InsightJournal journal = InsightJournal.open(directory)) {
+            server.enqueue(observer -> {
+                observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, published));
+                observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u2", true, published));
+                observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u3", true, published));
+                observer.onCompleted();
+            });
+            List<StreamingInsightServingResponse> received = new CopyOnWriteArrayList<>();
+
+            List<ResilientStreamingInsightSession> sessions =
+                client.recoverStreamingInsights(journal, fastPolicy(), received::add, error -> { });
+
+            assertEquals(1, sessions.size());
+            assertTrue(sessions.get(0).awaitCompletion(5, TimeUnit.SECONDS));
+            // u2 is redelivered from the journal, the replayed u1 and u2 are dropped
+            assertEquals(List.of("u2", "u3"), received.stream()
+                .map(response -> response.getInsightServingResponse().getUtteranceId())
+                .collect(Collectors.toList()));
+            assertTrue(server.getRequests().get(0).getHistoricalTranscripts());
+            awaitNoOpenConversations(journal);
+            assertEquals(List.of("u1", "u2", "u3"), utteranceIds(InsightJournal.readRecords(conversationDir())));
+        }
+    }
+
+    private void writeRecords(String... utteranceIds) throws Exception {
+        try (InsightJournal journal = InsightJournal.open(directory)) {
+            InsightJournal.ConversationLog log =
+                journal.openConversation(ScriptedInsightServer.transcriptRequest(CONVERSATION));
+            for (String utteranceId : utteranceIds) {
+                log.append(insight(utteranceId));
+            }
+        }
+    }
+
+    private Path conversationDir() {
+        return directory.resolve(InsightJournal.directoryName(CONVERSATION));
+    }
+
+    private static void awaitNoOpenConversations(InsightJournal journal) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (journal.getOpenConversationCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, journal.getOpenConversationCount());
+    }
+
+    private static InsightServingResponse insight(String utteranceId) {
+        return transcript(utteranceId, System.currentTimeMillis());
+    }
+
+    private static InsightServingResponse transcript(String utteranceId, long publishTimestamp) {
+        return ScriptedInsightServer.transcript(CONVERSATION, utteranceId, true, publishTimestamp)
+            .getInsightServingResponse();
+    }
+
+    private static ReconnectPolicy fastPolicy() {
+        return ReconnectPolicy.newBuilder().setInitialBackoffMs(10).setMaxBackoffMs(10).setJitter(0).build();
+    }
+
+    private static List<String> utteranceIds(List<InsightJournal.LogRecord> records) {
+        return records.stream()
+            .map(record -> record.getInsight().getUtteranceId())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,147 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InsightRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void indexHoldsTheOffsetOfEveryRecord() throws Exception {
+        Path path = directory.resolve("insights.bin");
+        List<StreamingInsightServingResponse> responses = List.of(
+            response("u1", 10), response("u2", 300), response("u3", 100_000), response("u4", 1));
+        try (InsightRecorder recorder = InsightRecorder.open(path)) {
+            responses.forEach(recorder);
+        }
+
+        List<Long> expected = new ArrayList<>();
+        long offset = 0;
+        for (StreamingInsightServingResponse response : responses) {
+            expected.add(offset);
+            int size = response.getSerializedSize();
+            offset += CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+        }
+        assertEquals(offset, Files.size(path));
+        assertEquals(expected, indexOffsets(path));
+        try (InsightReplayer replayer = InsightReplayer.open(path)) {
+            assertEquals(List.of("u1", "u2", "u3", "u4"), utteranceIds(replayer.readAll()));
+        }
+    }
+
+    @Test
+    void failedWriteIsCutOffBeforeLaterRecords() throws Exception {
+        Path path = directory.resolve("insights.bin");
+        TearingChannel data = new TearingChannel(FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ));
+        FileChannel index = FileChannel.open(InsightRecorder.indexPath(path),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        InsightRecorder recorder = new InsightRecorder(data, index);
+
+        recorder.accept(response("u1", 10));
+        recorder.flush();
+        recorder.accept(response("u2", 20));
+        data.tearNextWrite = true;
+        assertThrows(IOException.class, recorder::flush);
+        recorder.accept(response("u3", 30));
+        recorder.close();
+
+        assertEquals(2, recorder.getRecordedCount());
+        assertEquals(1, recorder.getFailedCount());
+        try (InsightReplayer replayer = InsightReplayer.open(path)) {
+            assertEquals(List.of("u1", "u3"), utteranceIds(replayer.readAll()));
+        }
+        int first = response("u1", 10).getSerializedSize();
+        assertEquals(List.of(0L, (long) CodedOutputStream.computeUInt32SizeNoTag(first) + first), indexOffsets(path));
+    }
+
+    private static StreamingInsightServingResponse response(String utteranceId, int padding) {
+        return StreamingInsightServingResponse.newBuilder()
+            .setInsightServingResponse(InsightServingResponse.newBuilder()
+                .setConversationId("c1")
+                .setUtteranceId(utteranceId)
+                .setOrgId("x".repeat(padding)))
+            .build();
+    }
+
+    private static List<Long> indexOffsets(Path path) throws IOException {
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(InsightRecorder.indexPath(path)));
+        index.position(InsightRecorder.INDEX_HEADER_BYTES);
+        List<Long> offsets = new ArrayList<>();
+        while (index.remaining() >= InsightRecorder.INDEX_ENTRY_BYTES) {
+            offsets.add(index.getLong());
+            index.getLong();
+        }
+        assertEquals(0, index.remaining());
+        return offsets;
+    }
+
+    private static List<String> utteranceIds(List<StreamingInsightServingResponse> responses) {
+        return responses.stream()
+            .map(response -> response.getInsightServingResponse().getUtteranceId())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * File channel that can fail a write after writing a few of its bytes
+     */
+    private static final class TearingChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean tearNextWrite;
+
+        TearingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            if (tearNextWrite) {
+                tearNextWrite = false;
+                ByteBuffer part = src.duplicate();
+                part.limit(part.position() + Math.min(3, part.remaining()));
+                delegate.write(part, position);
+                throw new IOException("disk full");
+            }
+            return delegate.write(src, position);
+        }
+
+        @Override public int read(ByteBuffer dst) throws IOException { return delegate.read(dst); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return delegate.read(dsts, offset, length); }
+        @Override public int write(ByteBuffer src) throws IOException { return delegate.write(src); }
+        @Override public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { return delegate.write(srcs, offset, length); }
+        @Override public long position() throws IOException { return delegate.position(); }
+        @Override public FileChannel position(long newPosition) throws IOException { delegate.position(newPosition); return this; }
+        @Override public long size() throws IOException { return delegate.size(); }
+        @Override public FileChannel truncate(long size) throws IOException { delegate.truncate(size); return this; }
+        @Override public void force(boolean metaData) throws IOException { delegate.force(metaData); }
+        @Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return delegate.transferTo(position, count, target); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return delegate.transferFrom(src, position, count); }
+        @Override public int read(ByteBuffer dst, long position) throws IOException { return delegate.read(dst, position); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return delegate.map(mode, position, size); }
+        @Override public FileLock lock(long position, long size, boolean shared) throws IOException { return delegate.lock(position, size, shared); }
+        @Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return delegate.tryLock(position, size, shared); }
+        @Override protected void implCloseChannel() throws IOException { delegate.close(); }
+    }
+}
@@ -0,0 +1,162 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientStreamingInsightSessionTest {
+
+    private static final String CONVERSATION = "c1";
+
+    private ScriptedInsightServer server;
+    private StreamingInsightClient client;
+    private final List<StreamingInsightServingResponse> received = new CopyOnWriteArrayList<>();
+    private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new ScriptedInsightServer();
+        client = server.newClient();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void reconnectsWithHistoryAndSkipsDeliveredFinals() throws Exception {
+        long published = System.currentTimeMillis();
+        server.enqueue(observer -> {
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, published));
+            observer.onError(Status.UNAVAILABLE.asRuntimeException());
+        });
+        server.enqueue(observer -> {
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, published));
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u2", true, published));
+            observer.onCompleted();
+        });
+
+        ResilientStreamingInsightSession session = start(fastPolicy().build());
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(List.of("u1", "u2"), utteranceIds());
+        assertTrue(errors.isEmpty());
+        assertEquals(1, session.getReconnectCount());
+        assertEquals(SessionState.CLOSED, session.getState());
+        assertEquals(2, server.getRequests().size());
+        assertFalse(server.getRequests().get(0).getHistoricalTranscripts());
+        assertTrue(server.getRequests().get(1).getHistoricalTranscripts());
+    }
+
+    @Test
+    void dropsHistoryOlderThanTheSubscriptionAfterReconnect() throws Exception {
+        long published = System.currentTimeMillis();
+        server.enqueue(observer -> {
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u2", true, published));
+            observer.onError(Status.UNAVAILABLE.asRuntimeException());
+        });
+        server.enqueue(observer -> {
+            // Published before the session subscribed, history was not asked for
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, published - 60_000));
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u3", true, published));
+            observer.onCompleted();
+        });
+
+        ResilientStreamingInsightSession session = start(fastPolicy().build());
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(List.of("u2", "u3"), utteranceIds());
+    }
+
+    @Test
+    void keepsInsightsWithoutPublishTimeAfterReconnect() throws Exception {
+        server.enqueue(observer -> {
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, 0));
+            observer.onError(Status.UNAVAILABLE.asRuntimeException());
+        });
+        server.enqueue(observer -> {
+            // Replayed u1 is dropped by utterance id, new u2 has no publish time either
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, 0));
+            observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u2", true, 0));
+            observer.onCompleted();
+        });
+
+        ResilientStreamingInsightSession session = start(fastPolicy().build());
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(List.of("u1", "u2"), utteranceIds());
+    }
+
+    @Test
+    void reportsNonRetryableErrorWithoutReconnecting() throws Exception {
+        server.enqueue(observer -> observer.onError(Status.INVALID_ARGUMENT.asRuntimeException()));
+
+        ResilientStreamingInsightSession session = start(fastPolicy().build());
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(1, errors.size());
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(errors.get(0)).getCode());
+        assertEquals(0, session.getReconnectCount());
+        assertEquals(1, server.getRequests().size());
+        assertFalse(session.isActive());
+    }
+
+    @Test
+    void givesUpOnceAttemptsAreExhausted() throws Exception {
+        // No scripts: every call fails with UNAVAILABLE
+        ResilientStreamingInsightSession session = start(fastPolicy().setMaxAttempts(2).build());
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(3, server.getRequests().size());
+        assertEquals(2, session.getReconnectCount());
+        assertEquals(1, errors.size());
+        assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(errors.get(0)).getCode());
+    }
+
+    @Test
+    void cancelDuringBackoffStopsReconnecting() throws Exception {
+        ResilientStreamingInsightSession session = start(fastPolicy().setInitialBackoffMs(60_000).setMaxBackoffMs(60_000).build());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!session.isReconnecting() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(session.isReconnecting());
+
+        session.cancel();
+
+        assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+        assertFalse(session.isReconnecting());
+        assertEquals(SessionState.CLOSED, session.getState());
+        assertEquals(1, server.getRequests().size());
+        assertTrue(errors.isEmpty());
+    }
+
+    private ResilientStreamingInsightSession start(ReconnectPolicy policy) {
+        return client.startResilientStreamingInsights(
+            ScriptedInsightServer.transcriptRequest(CONVERSATION), policy, received::add, errors::add);
+    }
+
+    private static ReconnectPolicy.Builder fastPolicy() {
+        return ReconnectPolicy.newBuilder().setInitialBackoffMs(10).setMaxBackoffMs(10).setJitter(0);
+    }
+
+    private List<String> utteranceIds() {
+        return received.stream()
+            .map(response -> response.getInsightServingResponse().getUtteranceId())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import com.cisco.wcc.ccai.v1.InsightServingRequest;
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingRequest;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * In-process AiInsight server answering each streaming call with the next queued script, or
+ * failing it with UNAVAILABLE once the scripts ran out
+ */
+class ScriptedInsightServer extends AiInsightGrpc.AiInsightImplBase implements AutoCloseable {
+
+    private final String name = InProcessServerBuilder.generateName();
+    private final Server server;
+    private final List<InsightServingRequest> requests = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Consumer<StreamObserver<StreamingInsightServingResponse>>> scripts =
+        new LinkedBlockingQueue<>();
+
+    ScriptedInsightServer() throws IOException {
+        this.server = InProcessServerBuilder.forName(name).directExecutor().addService(this).build().start();
+    }
+
+    /**
+     * Queue the behaviour of the next streaming call
+     */
+    void enqueue(Consumer<StreamObserver<StreamingInsightServingResponse>> script) {
+        scripts.add(script);
+    }
+
+    /**
+     * Requests of the streaming calls received so far
+     */
+    List<InsightServingRequest> getRequests() {
+        return requests;
+    }
+
+    StreamingInsightClient newClient() {
+        return new StreamingInsightClient(clientConfig().build());
+    }
+
+    /**
+     * Client settings pointing at this server, for tests that change others
+     */
+    StreamingInsightClientConfig.Builder clientConfig() {
+        return StreamingInsightClientConfig.newBuilder()
+            .setInProcessServerName(name)
+            .setSessionLeakDetectionEnabled(false);
+    }
+
+    @Override
+    public void streamingInsightServing(StreamingInsightServingRequest request,
+                                        StreamObserver<StreamingInsightServingResponse> responseObserver) {
+        requests.add(request.getInsightServingRequest());
+        Consumer<StreamObserver<StreamingInsightServingResponse>> script = scripts.poll();
+        if (script == null) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription("No script left").asRuntimeException());
+        } else {
+            script.accept(responseObserver);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+
+    static InsightServingRequest transcriptRequest(String conversationId) {
+        return InsightServingRequest.newBuilder()
+            .setConversationId(conversationId)
+            .setOrgId("test-org")
+            .setRealTimeTranscripts(true)
+            .build();
+    }
+
+    static StreamingInsightServingResponse transcript(String conversationId, String utteranceId,
+                                                      boolean isFinal, long publishTimestamp) {
+        return StreamingInsightServingResponse.newBuilder()
+            .setInsightServingResponse(InsightServingResponse.newBuilder()
+                .setConversationId(conversationId)
+                .setUtteranceId(utteranceId)
+                .setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+                .setIsFinal(isFinal)
+                .setPublishTimestamp(publishTimestamp))
+            .build();
+    }
+}
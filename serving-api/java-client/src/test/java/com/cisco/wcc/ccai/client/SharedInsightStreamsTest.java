@@ -0,0 +1,130 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedInsightStreamsTest {
+
+    private static final String CONVERSATION = "c1";
+
+    private ScriptedInsightServer server;
+    private StreamingInsightClient client;
+    private final CompletableFuture<StreamObserver<StreamingInsightServingResponse>> upstream = new CompletableFuture<>();
+    private final CountDownLatch upstreamCancelled = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ScriptedInsightServer();
+        client = server.newClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void equalRequestsShareOneUpstreamCall() throws Exception {
+        server.enqueue(this::holdOpen);
+        List<StreamingInsightServingResponse> first = new CopyOnWriteArrayList<>();
+        List<StreamingInsightServingResponse> second = new CopyOnWriteArrayList<>();
+
+        InsightSubscription a = client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-1", first::add, error -> { });
+        // Differs only in the agent, so it joins the same call
+        InsightSubscription b = client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-2", second::add, error -> { });
+        StreamObserver<StreamingInsightServingResponse> observer = upstream.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, server.getRequests().size());
+        assertEquals(1, client.getSharedStreamCount());
+        assertEquals(2, a.getSharedWith());
+
+        observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, 1));
+        await(() -> first.size() == 1 && second.size() == 1);
+        assertEquals("u1", second.get(0).getInsightServingResponse().getUtteranceId());
+
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void closingTheLastSubscriberCancelsTheUpstreamCall() throws Exception {
+        server.enqueue(this::holdOpen);
+        List<StreamingInsightServingResponse> first = new CopyOnWriteArrayList<>();
+        List<StreamingInsightServingResponse> second = new CopyOnWriteArrayList<>();
+        InsightSubscription a = client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-1", first::add, error -> { });
+        InsightSubscription b = client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-2", second::add, error -> { });
+        StreamObserver<StreamingInsightServingResponse> observer = upstream.get(5, TimeUnit.SECONDS);
+
+        a.close();
+        assertFalse(a.isActive());
+        observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, 1));
+        await(() -> second.size() == 1);
+        assertTrue(first.isEmpty());
+        assertEquals(1, client.getSharedStreamCount());
+        assertEquals(1, upstreamCancelled.getCount());
+
+        b.close();
+        assertTrue(upstreamCancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, client.getSharedStreamCount());
+
+        // A later subscriber opens a fresh call
+        server.enqueue(this::holdOpen);
+        InsightSubscription c = client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-3", response -> { }, error -> { });
+        await(() -> server.getRequests().size() == 2);
+        c.close();
+    }
+
+    @Test
+    void upstreamErrorReachesEverySubscriberAfterItsInsights() throws Exception {
+        server.enqueue(this::holdOpen);
+        List<Object> first = new CopyOnWriteArrayList<>();
+        List<Object> second = new CopyOnWriteArrayList<>();
+        client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-1", first::add, first::add);
+        client.subscribeStreamingInsights(CONVERSATION, "test-org", "agent-2", second::add, second::add);
+        StreamObserver<StreamingInsightServingResponse> observer = upstream.get(5, TimeUnit.SECONDS);
+
+        observer.onNext(ScriptedInsightServer.transcript(CONVERSATION, "u1", true, 1));
+        observer.onError(Status.INTERNAL.asRuntimeException());
+
+        await(() -> first.size() == 2 && second.size() == 2);
+        for (List<Object> received : List.of(first, second)) {
+            assertInstanceOf(StreamingInsightServingResponse.class, received.get(0));
+            assertInstanceOf(StatusRuntimeException.class, received.get(1));
+        }
+        assertEquals(0, client.getSharedStreamCount());
+    }
+
+    private void holdOpen(StreamObserver<StreamingInsightServingResponse> observer) {
+        ((ServerCallStreamObserver<StreamingInsightServingResponse>) observer)
+            .setOnCancelHandler(upstreamCancelled::countDown);
+        upstream.complete(observer);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,63 @@
+package com.cisco.wcc.ccai.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingInsightClientConfigTest {
+
+    @Test
+    void manyStreamsPresetSetsTheTransport() {
+        StreamingInsightClientConfig config = StreamingInsightClientConfig.newBuilder()
+            .setTransportPreset(StreamingInsightClientConfig.TransportPreset.MANY_STREAMS)
+            .build();
+
+        assertEquals(Runtime.getRuntime().availableProcessors(), config.getEventLoopThreads());
+        assertTrue(config.isNativeTransportPreferred());
+        assertEquals(4 * 1024 * 1024, config.getFlowControlWindow());
+        assertTrue(config.isFlowControlAutoTuning());
+        assertEquals(256 * 1024, config.getWriteBufferLowWaterMark());
+        assertEquals(1024 * 1024, config.getWriteBufferHighWaterMark());
+    }
+
+    @Test
+    void settersAfterAPresetOverrideIt() {
+        StreamingInsightClientConfig config = StreamingInsightClientConfig.newBuilder()
+            .setTransportPreset(StreamingInsightClientConfig.TransportPreset.MANY_STREAMS)
+            .setEventLoopThreads(2)
+            .setFlowControlWindow(65535, false)
+            .build();
+
+        assertEquals(2, config.getEventLoopThreads());
+        assertEquals(65535, config.getFlowControlWindow());
+        assertFalse(config.isFlowControlAutoTuning());
+        assertTrue(config.isNativeTransportPreferred());
+    }
+
+    @Test
+    void defaultPresetRestoresGrpcDefaults() {
+        StreamingInsightClientConfig config = StreamingInsightClientConfig.newBuilder()
+            .setTransportPreset(StreamingInsightClientConfig.TransportPreset.MANY_STREAMS)
+            .setMaxHeaderListSize(16 * 1024)
+            .setTransportPreset(StreamingInsightClientConfig.TransportPreset.DEFAULT)
+            .build();
+
+        assertEquals(0, config.getEventLoopThreads());
+        assertFalse(config.isNativeTransportPreferred());
+        assertEquals(0, config.getFlowControlWindow());
+        assertEquals(0, config.getMaxHeaderListSize());
+        assertEquals(0, config.getWriteBufferHighWaterMark());
+    }
+
+    @Test
+    void rejectsLowWaterMarkAboveHigh() {
+        StreamingInsightClientConfig.Builder builder = StreamingInsightClientConfig.newBuilder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.setWriteBufferWaterMark(2048, 1024));
+        // A high mark of 0 keeps Netty's defaults, so any low mark is accepted
+        builder.setWriteBufferWaterMark(2048, 0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightsServingRequest;
+import com.cisco.wcc.ccai.v1.InsightsServingResponse;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingInsightClientTest {
+
+    @Test
+    void connectRetriesAfterAFailedAttempt() throws Exception {
+        AtomicInteger warmUps = new AtomicInteger();
+        try (ScriptedInsightServer server = new ScriptedInsightServer() {
+                @Override
+                public void insightServing(InsightsServingRequest request,
+                                           StreamObserver<InsightsServingResponse> responseObserver) {
+                    if (warmUps.incrementAndGet() == 1) {
+                        responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                    } else {
+                        responseObserver.onNext(InsightsServingResponse.getDefaultInstance());
+                        responseObserver.onCompleted();
+                    }
+                }
+            };
+             StreamingInsightClient client = new StreamingInsightClient(
+                 server.clientConfig().setWarmUpEnabled(true).build())) {
+
+            CompletableFuture<Void> failed = client.connect();
+            assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertFalse(client.isReady());
+
+            CompletableFuture<Void> retried = client.connect();
+            assertNotSame(failed, retried);
+            retried.get(5, TimeUnit.SECONDS);
+            assertTrue(client.isReady());
+            assertSame(retried, client.connect());
+        }
+    }
+
+    @Test
+    void hedgingDelayFollowsFirstAttemptLatency() throws Exception {
+        ScheduledExecutorService answers = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean stallFirstAttempts = new AtomicBoolean();
+        try (ScriptedInsightServer server = new ScriptedInsightServer() {
+                @Override
+                public void insightServing(InsightsServingRequest request,
+                                           StreamObserver<InsightsServingResponse> responseObserver) {
+                    boolean stall = stallFirstAttempts.get() && attempts.incrementAndGet() % 2 == 1;
+                    answers.schedule(() -> {
+                        responseObserver.onNext(InsightsServingResponse.getDefaultInstance());
+                        responseObserver.onCompleted();
+                    }, stall ? 5000 : 20, TimeUnit.MILLISECONDS);
+                }
+            };
+             StreamingInsightClient client = new StreamingInsightClient(server.clientConfig()
+                 .setUnaryCallPolicy(UnaryCallPolicy.newBuilder()
+                     .setMode(UnaryCallPolicy.Mode.HEDGE)
+                     .setMaxAttempts(2)
+                     .setHedgingDelayMs(2000)
+                     .setAdaptiveHedgingDelay(95.0, 20)
+                     .setHedgingDelayRefreshMs(20)
+                     .build())
+                 .build())) {
+
+            assertEquals(2000, client.getHedgingDelayMs());
+            for (int i = 0; i < 30; i++) {
+                client.getInsights("c1", "test-org", InsightsServingRequest.InsightType.TRANSCRIPTION);
+            }
+            await(() -> client.getHedgingDelayMs() < 2000);
+            long delayMs = client.getHedgingDelayMs();
+            assertTrue(delayMs >= 20 && delayMs < 200, "hedging delay " + delayMs);
+
+            // The first attempt stalls, the hedge started after the new delay answers
+            stallFirstAttempts.set(true);
+            long startNanos = System.nanoTime();
+            client.getInsights("c1", "test-org", InsightsServingRequest.InsightType.TRANSCRIPTION);
+            assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(2));
+
+            UnaryAttemptStats stats = client.getUnaryAttemptStats();
+            assertEquals(1, stats.getExtraAttemptWins());
+            // The cancelled first attempt still counts, with the time until the hedge won
+            await(() -> stats.getFirstAttemptLatency().getCount() == 31);
+        } finally {
+            answers.shutdownNow();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,116 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.SpeechRecognitionAlternative;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranscriptIndexTest {
+
+    private static final String CONVERSATION = "c1";
+
+    private final TranscriptIndex index = new TranscriptIndex(10);
+
+    @Test
+    void indexesEachFinalUtteranceOnce() {
+        index.accept(transcript("u1", false, "please check"));
+        index.accept(transcript("u1", true, "please check the router"));
+        index.accept(transcript("u1", true, "please check the router"));
+
+        List<TranscriptIndex.Hit> hits = index.search("the router");
+        assertEquals(1, hits.size());
+        assertEquals(1, hits.get(0).getMatches());
+        assertEquals(1, index.getIndexedUtterances());
+        assertEquals(1, index.search("please check").size());
+    }
+
+    @Test
+    void phraseDoesNotSpanUtterances() {
+        index.accept(transcript("u1", true, "check the"));
+        index.accept(transcript("u2", true, "router now"));
+
+        assertTrue(index.search("the router").isEmpty());
+        assertEquals(1, index.search("router").size());
+    }
+
+    @Test
+    void dropsConversationWhenLastStreamIsReleased() {
+        index.retainConversation(CONVERSATION);
+        index.retainConversation(CONVERSATION);
+        index.accept(transcript("u1", true, "refund please"));
+
+        index.releaseConversation(CONVERSATION);
+        assertEquals(1, index.countConversations("refund"));
+
+        index.releaseConversation(CONVERSATION);
+        assertEquals(0, index.countConversations("refund"));
+        assertEquals(0, index.getConversationCount());
+        assertEquals(0, index.getTermCount());
+    }
+
+    @Test
+    void reconnectingSessionKeepsItsConversationIndexed() throws Exception {
+        try (ScriptedInsightServer server = new ScriptedInsightServer();
+             StreamingInsightClient client = new StreamingInsightClient(
+                 server.clientConfig().setTranscriptIndexMaxConversations(10).build())) {
+            server.enqueue(observer -> {
+                observer.onNext(transcript("u1", true, "I need a refund"));
+                observer.onError(Status.UNAVAILABLE.asRuntimeException());
+            });
+            server.enqueue(observer -> {
+                // History replays u1; the stream stays open
+                observer.onNext(transcript("u1", true, "I need a refund"));
+                observer.onNext(transcript("u2", true, "for last month"));
+            });
+            List<StreamingInsightServingResponse> received = new CopyOnWriteArrayList<>();
+
+            ResilientStreamingInsightSession session = client.startResilientStreamingInsights(
+                ScriptedInsightServer.transcriptRequest(CONVERSATION),
+                ReconnectPolicy.newBuilder().setInitialBackoffMs(10).setMaxBackoffMs(10).setJitter(0).build(),
+                received::add, error -> { });
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, received.size());
+            TranscriptIndex transcripts = client.getTranscriptIndex();
+            assertEquals(2, transcripts.getIndexedUtterances());
+            assertEquals(1, transcripts.search("refund").get(0).getMatches());
+
+            session.cancel();
+            assertTrue(session.awaitCompletion(5, TimeUnit.SECONDS));
+            // Dropped once both the session and its last stream let go
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (transcripts.getConversationCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, transcripts.getConversationCount());
+        }
+    }
+
+    private static StreamingInsightServingResponse transcript(String utteranceId, boolean isFinal, String text) {
+        return StreamingInsightServingResponse.newBuilder()
+            .setInsightServingResponse(InsightServingResponse.newBuilder()
+                .setConversationId(CONVERSATION)
+                .setUtteranceId(utteranceId)
+                .setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+                .setIsFinal(isFinal)
+                .setPublishTimestamp(System.currentTimeMillis())
+                .setResponseContent(ResponseContent.newBuilder()
+                    .setRecognitionResult(StreamingRecognitionResult.newBuilder()
+                        .setIsFinal(isFinal)
+                        .addAlternatives(SpeechRecognitionAlternative.newBuilder().setTranscript(text)))))
+            .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.SpeechRecognitionAlternative;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtteranceAssemblerTest {
+
+    private final List<TranscriptDelta> deltas = new ArrayList<>();
+    private final UtteranceAssembler assembler = new UtteranceAssembler(deltas::add);
+
+    @Test
+    void emitsOnlyTheChangedSuffixOfInterims() {
+        assembler.accept(transcript("u1", false, "I want"));
+        assembler.accept(transcript("u1", false, "I want to"));
+        assembler.accept(transcript("u1", false, "I wanted"));
+
+        assertEquals(3, deltas.size());
+        assertDelta(deltas.get(0), 0, "I want");
+        assertDelta(deltas.get(1), 6, " to");
+        assertDelta(deltas.get(2), 6, "ed");
+        assertNull(deltas.get(2).getTranscript());
+        assertEquals(1, assembler.getOpenUtteranceCount());
+    }
+
+    @Test
+    void finalClosesTheUtteranceWithTheFullTranscript() {
+        assembler.accept(transcript("u1", false, "I want to"));
+        assembler.accept(transcript("u1", true, "I want to cancel"));
+
+        TranscriptDelta last = deltas.get(1);
+        assertTrue(last.isFinal());
+        assertDelta(last, 9, " cancel");
+        assertEquals("I want to cancel", last.getTranscript());
+        assertEquals(0, assembler.getOpenUtteranceCount());
+    }
+
+    @Test
+    void skipsUnchangedInterimsAndKeepsUtterancesApart() {
+        assembler.accept(transcript("u1", false, "hello"));
+        assembler.accept(transcript("u1", false, "hello"));
+        assembler.accept(transcript("u2", false, "hello"));
+
+        assertEquals(2, deltas.size());
+        assertEquals("u2", deltas.get(1).getUtteranceId());
+        assertDelta(deltas.get(1), 0, "hello");
+        assertFalse(deltas.get(1).isFinal());
+    }
+
+    @Test
+    void forgottenUtteranceIsSentInFull() {
+        UtteranceAssembler small = new UtteranceAssembler(deltas::add, 1);
+        small.accept(transcript("u1", false, "first"));
+        small.accept(transcript("u2", false, "second"));
+        small.accept(transcript("u1", false, "first words"));
+
+        assertDelta(deltas.get(2), 0, "first words");
+        assertEquals(1, small.getOpenUtteranceCount());
+    }
+
+    @Test
+    void ignoresResponsesWithoutRecognitionResult() {
+        assembler.accept(StreamingInsightServingResponse.newBuilder()
+            .setInsightServingResponse(InsightServingResponse.newBuilder()
+                .setConversationId("c1")
+                .setInsightType(InsightServingResponse.ServiceType.AGENT_ANSWERS))
+            .build());
+
+        assertTrue(deltas.isEmpty());
+    }
+
+    @Test
+    void commonPrefixDoesNotSplitSurrogatePairs() {
+        // Two different emoji sharing their high surrogate
+        assertEquals(1, UtteranceAssembler.commonPrefixLength("a\uD83D\uDE00", "a\uD83D\uDE01"));
+        assertEquals(3, UtteranceAssembler.commonPrefixLength("abc", "abcd"));
+    }
+
+    private static void assertDelta(TranscriptDelta delta, int retained, String appended) {
+        assertEquals(retained, delta.getRetainedLength());
+        assertEquals(appended, delta.getAppendedText());
+    }
+
+    private static StreamingInsightServingResponse transcript(String utteranceId, boolean isFinal, String text) {
+        return StreamingInsightServingResponse.newBuilder()
+            .setInsightServingResponse(InsightServingResponse.newBuilder()
+                .setConversationId("c1")
+                .setUtteranceId(utteranceId)
+                .setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+                .setIsFinal(isFinal)
+                .setResponseContent(ResponseContent.newBuilder()
+                    .setRecognitionResult(StreamingRecognitionResult.newBuilder()
+                        .setIsFinal(isFinal)
+                        .addAlternatives(SpeechRecognitionAlternative.newBuilder().setTranscript(text)))))
+            .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.InsightServingResponse;
+import com.cisco.wcc.ccai.v1.Recognize.StreamingRecognitionResult;
+import com.cisco.wcc.ccai.v1.ResponseContent;
+import com.cisco.wcc.ccai.v1.StreamingInsightServingResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtteranceDeduplicatorTest {
+
+    private final UtteranceDeduplicator deduplicator = new UtteranceDeduplicator();
+
+    @Test
+    void dropsReplayedFinalAndLaterInterims() {
+        assertTrue(deduplicator.shouldDeliver(transcript("u1", false)));
+        assertTrue(deduplicator.shouldDeliver(transcript("u1", false)));
+        assertTrue(deduplicator.shouldDeliver(transcript("u1", true)));
+
+        assertFalse(deduplicator.shouldDeliver(transcript("u1", true)));
+        assertFalse(deduplicator.shouldDeliver(transcript("u1", false)));
+        assertTrue(deduplicator.shouldDeliver(transcript("u2", true)));
+        assertEquals(2, deduplicator.size());
+    }
+
+    @Test
+    void recordsFinalityCarriedByRecognitionResult() {
+        StreamingInsightServingResponse response = wrap(InsightServingResponse.newBuilder()
+            .setUtteranceId("u1")
+            .setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+            .setResponseContent(ResponseContent.newBuilder()
+                .setRecognitionResult(StreamingRecognitionResult.newBuilder().setIsFinal(true))));
+
+        assertTrue(deduplicator.shouldDeliver(response));
+        assertFalse(deduplicator.shouldDeliver(response));
+    }
+
+    @Test
+    void recordsNonTranscriptInsightsWithoutFinalFlag() {
+        StreamingInsightServingResponse answer = wrap(InsightServingResponse.newBuilder()
+            .setUtteranceId("u1")
+            .setInsightType(InsightServingResponse.ServiceType.AGENT_ANSWERS));
+        StreamingInsightServingResponse message = wrap(InsightServingResponse.newBuilder()
+            .setMessageId("m1")
+            .setInsightType(InsightServingResponse.ServiceType.MESSAGE));
+
+        assertTrue(deduplicator.shouldDeliver(answer));
+        assertTrue(deduplicator.shouldDeliver(message));
+        assertFalse(deduplicator.shouldDeliver(answer));
+        assertFalse(deduplicator.shouldDeliver(message));
+    }
+
+    @Test
+    void keepsTypesOfOneUtteranceApart() {
+        StreamingInsightServingResponse answer = wrap(InsightServingResponse.newBuilder()
+            .setUtteranceId("u1")
+            .setInsightType(InsightServingResponse.ServiceType.AGENT_ANSWERS));
+
+        assertTrue(deduplicator.shouldDeliver(transcript("u1", true)));
+        assertTrue(deduplicator.shouldDeliver(answer));
+        assertEquals(1, deduplicator.size());
+    }
+
+    @Test
+    void deliversInsightsWithoutIdentifiers() {
+        StreamingInsightServingResponse anonymous = wrap(InsightServingResponse.newBuilder()
+            .setInsightType(InsightServingResponse.ServiceType.TRANSCRIPTION)
+            .setIsFinal(true));
+
+        assertTrue(deduplicator.shouldDeliver(anonymous));
+        assertTrue(deduplicator.shouldDeliver(anonymous));
+    }
+
+    @Test
+    void forgetsOldestUtterancesBeyondCapacity() {
+        UtteranceDeduplicator small = new UtteranceDeduplicator(2);
+        small.shouldDeliver(transcript("u1", true));
+        small.shouldDeliver(transcript("u2", true));
+        small.shouldDeliver(transcript("u3", true));
+
+        assertEquals(2, small.size());
+        assertTrue(small.shouldDeliver(transcript("u1", true)));
+        assertFalse(small.shouldDeliver(transcript("u3", true)));
+    }
+
+    private static StreamingInsightServingResponse transcript(String utteranceId, boolean isFinal) {
+        return ScriptedInsightServer.transcript("c1", utteranceId, isFinal, 1000);
+    }
+
+    private static StreamingInsightServingResponse wrap(InsightServingResponse.Builder insight) {
+        return StreamingInsightServingResponse.newBuilder().setInsightServingResponse(insight).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.cisco.wcc.ccai.client;
+
+import com.cisco.wcc.ccai.v1.AiInsightGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WireSizeStatsTest {
+
+    private final WireSizeStats clientStats = new WireSizeStats();
+
+    @Test
+    void sessionRecordsIntoItselfAndItsClient() {
+        WireSizeStats session = new WireSizeStats(clientStats);
+        ClientStreamTracer tracer = tracerOf(session);
+
+        tracer.outboundMessage(0);
+        tracer.outboundWireSize(40);
+        tracer.outboundUncompressedSize(40);
+        tracer.inboundMessage(0);
+        tracer.inboundWireSize(25);
+        tracer.inboundUncompressedSize(100);
+        tracer.inboundMessage(1);
+        tracer.inboundWireSize(75);
+        tracer.inboundUncompressedSize(300);
+
+        for (WireSizeStats stats : new WireSizeStats[] {session, clientStats}) {
+            assertEquals(1, stats.getOutboundMessages());
+            assertEquals(40, stats.getOutboundWireBytes());
+            assertEquals(40, stats.getOutboundUncompressedBytes());
+            assertEquals(2, stats.getInboundMessages());
+            assertEquals(100, stats.getInboundWireBytes());
+            assertEquals(400, stats.getInboundUncompressedBytes());
+            assertEquals(0.75, stats.getInboundSavings(), 1e-9);
+        }
+    }
+
+    @Test
+    void clientSumsItsSessions() {
+        WireSizeStats first = new WireSizeStats(clientStats);
+        WireSizeStats second = new WireSizeStats(clientStats);
+
+        tracerOf(first).inboundWireSize(10);
+        tracerOf(second).inboundWireSize(32);
+        // A call made on the client directly, e.g. a one-time insight request
+        tracerOf(clientStats).inboundWireSize(100);
+
+        assertEquals(10, first.getInboundWireBytes());
+        assertEquals(32, second.getInboundWireBytes());
+        assertEquals(142, clientStats.getInboundWireBytes());
+    }
+
+    @Test
+    void noSavingsBeforeAnythingWasReceived() {
+        assertEquals(0.0, clientStats.getInboundSavings());
+    }
+
+    /**
+     * Run a call through the stats interceptor and create the tracer it attached
+     */
+    private static ClientStreamTracer tracerOf(WireSizeStats stats) {
+        AtomicReference<CallOptions> attached = new AtomicReference<>();
+        Channel next = new Channel() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method,
+                                                                 CallOptions callOptions) {
+                attached.set(callOptions);
+                return null;
+            }
+
+            @Override
+            public String authority() {
+                return "test";
+            }
+        };
+        stats.interceptor().interceptCall(AiInsightGrpc.getStreamingInsightServingMethod(), CallOptions.DEFAULT, next);
+        ClientStreamTracer.Factory factory = attached.get().getStreamTracerFactories().get(0);
+        return factory.newClientStreamTracer(ClientStreamTracer.StreamInfo.newBuilder().build(), new Metadata());
+    }
+}